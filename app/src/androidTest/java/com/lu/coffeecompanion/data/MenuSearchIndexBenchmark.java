@@ -0,0 +1,109 @@
+package com.lu.coffeecompanion.data;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Keystroke latency of the search index over a 10,000-item synthetic catalog. Every prefix of
+ * each query is searched, as the Search tab does while the user types.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MenuSearchIndexBenchmark {
+
+    private static final String TAG = "MenuSearchBenchmark";
+    private static final int ITEM_COUNT = 10_000;
+    private static final int LIMIT = 50;
+    private static final long FRAME_BUDGET_NANOS = 16_000_000L;
+
+    private static final String[] DRINKS = {"Cappuccino", "Latte", "Americano", "Espresso", "Mocha",
+            "Macchiato", "Frappé", "Cold Brew", "Flat White", "Cortado", "Affogato", "Matcha Latte"};
+    private static final String[] STYLES = {"Iced", "Hot", "Caramel", "Vanilla", "Hazelnut", "Spanish",
+            "Salted", "Dark", "Double", "Honey", "Oat", "Coconut"};
+    private static final String[] CATEGORIES = {"Coffee", "Non-Coffee", "Frappe", "Pastry", "Tea"};
+    // Typed queries, typos included
+    private static final String[] QUERIES = {"cappuccino", "capucino", "iced latte", "ice late",
+            "caramel macchiato", "carmel machiato", "cafe", "frappe", "cold brew", "espreso",
+            "spanish latte", "hazelnut", "matcha", "affogatto", "flat white"};
+
+    private static MenuSearchIndex index;
+    private static long buildNanos;
+
+    @BeforeClass
+    public static void buildIndex() {
+        Random random = new Random(42);
+        List<MenuSearchIndex.Entry> entries = new ArrayList<>(ITEM_COUNT);
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            String name = STYLES[random.nextInt(STYLES.length)] + " " + DRINKS[random.nextInt(DRINKS.length)];
+            String shop = "Shop " + (i % 200);
+            entries.add(new MenuSearchIndex.Entry(MenuSearchIndex.KIND_MENU, "item" + i, "shop" + (i % 200),
+                    name, shop, null, CATEGORIES[random.nextInt(CATEGORIES.length)] + " " + shop));
+        }
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        index = MenuSearchIndex.build(entries);
+        buildNanos = SystemClock.elapsedRealtimeNanos() - start;
+    }
+
+    @Test
+    public void keystrokeSearchFitsInAFrame() {
+        // Warm up the JIT before measuring
+        for (String query : QUERIES) {
+            index.search(query, LIMIT);
+        }
+
+        List<Long> samples = new ArrayList<>();
+        for (int round = 0; round < 5; round++) {
+            for (String query : QUERIES) {
+                for (int end = 1; end <= query.length(); end++) {
+                    String typed = query.substring(0, end);
+                    long start = SystemClock.elapsedRealtimeNanos();
+                    index.search(typed, LIMIT);
+                    samples.add(SystemClock.elapsedRealtimeNanos() - start);
+                }
+            }
+        }
+
+        long[] sorted = new long[samples.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        long p50 = sorted[sorted.length / 2];
+        long p95 = sorted[(int) (sorted.length * 0.95)];
+
+        Log.i(TAG, "Built " + index.size() + " items in " + buildNanos / 1_000_000 + " ms; "
+                + sorted.length + " keystrokes, p50 " + p50 / 1000 + " us, p95 " + p95 / 1000
+                + " us, max " + sorted[sorted.length - 1] / 1000 + " us");
+        assertTrue("p95 keystroke search took " + p95 / 1000 + " us", p95 < FRAME_BUDGET_NANOS);
+    }
+
+    @Test
+    public void typosStillFindTheDrink() {
+        assertTopResultContains("capucino", "cappuccino");
+        assertTopResultContains("espreso", "espresso");
+        assertTopResultContains("carmel machiato", "caramel macchiato");
+        assertTopResultContains("afogato", "affogato");
+        // Accents are folded on both sides
+        assertTopResultContains("hot frappe", "hot frappé");
+    }
+
+    private static void assertTopResultContains(String query, String expected) {
+        List<MenuSearchIndex.Entry> results = index.search(query, LIMIT);
+        assertFalse("No results for " + query, results.isEmpty());
+        String top = results.get(0).name.toLowerCase();
+        assertTrue(query + " ranked " + top + " first", top.contains(expected));
+    }
+}
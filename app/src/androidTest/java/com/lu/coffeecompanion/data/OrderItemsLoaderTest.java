@@ -0,0 +1,113 @@
+package com.lu.coffeecompanion.data;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs against the Firestore emulator (firebase emulators:start --only firestore).
+ */
+@RunWith(AndroidJUnit4.class)
+public class OrderItemsLoaderTest {
+
+    private static final String APP_NAME = "order-items-loader-test";
+    private static final int ORDER_COUNT = 45;
+    private static final int ITEMS_PER_ORDER = 2;
+
+    private FirebaseFirestore db;
+    private final List<String> orderIds = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        FirebaseApp defaultApp = FirebaseApp.initializeApp(context);
+        FirebaseApp app;
+        try {
+            app = FirebaseApp.getInstance(APP_NAME);
+        } catch (IllegalStateException e) {
+            app = FirebaseApp.initializeApp(context, defaultApp.getOptions(), APP_NAME);
+        }
+
+        db = FirebaseFirestore.getInstance(app);
+        try {
+            db.useEmulator("10.0.2.2", 8080);
+        } catch (IllegalStateException ignored) {
+            // Already pointed at the emulator by an earlier test
+        }
+
+        WriteBatch batch = db.batch();
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            DocumentReference orderRef = db.collection("orders").document();
+            orderIds.add(orderRef.getId());
+
+            Map<String, Object> order = new HashMap<>();
+            order.put("status", "Pending");
+            batch.set(orderRef, order);
+
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                Map<String, Object> item = new HashMap<>();
+                item.put("orderId", orderRef.getId());
+                item.put("docId", "menu-" + j);
+                item.put("quantity", 1);
+                batch.set(orderRef.collection("items").document(), item);
+            }
+        }
+        Tasks.await(batch.commit(), 30, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void rowsBoundInOneFrame_shareChunkedQueries() throws Exception {
+        OrderItemsLoader loader = new OrderItemsLoader(db);
+        Map<String, List<DocumentSnapshot>> results = loadAll(loader);
+
+        int expectedQueries = (ORDER_COUNT + OrderItemsLoader.WHERE_IN_LIMIT - 1) / OrderItemsLoader.WHERE_IN_LIMIT;
+        assertEquals(expectedQueries, loader.getQueryCount());
+        assertEquals(ORDER_COUNT, results.size());
+        for (String orderId : orderIds) {
+            assertEquals(ITEMS_PER_ORDER, results.get(orderId).size());
+        }
+
+        // Rebinding the same rows is served from memory
+        loadAll(loader);
+        assertEquals(expectedQueries, loader.getQueryCount());
+    }
+
+    private Map<String, List<DocumentSnapshot>> loadAll(OrderItemsLoader loader) throws InterruptedException {
+        Map<String, List<DocumentSnapshot>> results = new ConcurrentHashMap<>();
+        CountDownLatch latch = new CountDownLatch(orderIds.size());
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            for (String orderId : orderIds) {
+                loader.load(orderId, (loadedId, items) -> {
+                    results.put(loadedId, items);
+                    latch.countDown();
+                });
+            }
+        });
+
+        assertTrue("Timed out waiting for order items", latch.await(30, TimeUnit.SECONDS));
+        return results;
+    }
+}
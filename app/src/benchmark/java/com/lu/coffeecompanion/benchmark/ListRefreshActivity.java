@@ -0,0 +1,106 @@
+package com.lu.coffeecompanion.benchmark;
+
+import android.os.Bundle;
+import android.widget.Button;
+import android.widget.LinearLayout;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.firebase.Timestamp;
+import com.lu.coffeecompanion.adapters.PaymentAdapter;
+import com.lu.coffeecompanion.models.Payment;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+// Benchmark-build-only screen: 500 synthetic payment rows on the production PaymentAdapter.
+// Each tap on "refresh" submits a new list where a slice of rows changed, a few were removed
+// and a few were added, which is what a live Firestore snapshot looks like to the adapter.
+public class ListRefreshActivity extends AppCompatActivity {
+
+    public static final int ROW_COUNT = 500;
+
+    private final Random random = new Random(42);
+    private final List<Payment> payments = new ArrayList<>();
+    private PaymentAdapter adapter;
+    private int nextId = 0;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        LinearLayout root = new LinearLayout(this);
+        root.setOrientation(LinearLayout.VERTICAL);
+
+        Button refresh = new Button(this);
+        refresh.setText("Refresh");
+        refresh.setContentDescription("refresh");
+        refresh.setOnClickListener(v -> refresh());
+        root.addView(refresh, new LinearLayout.LayoutParams(
+                LinearLayout.LayoutParams.MATCH_PARENT, LinearLayout.LayoutParams.WRAP_CONTENT));
+
+        RecyclerView recyclerView = new RecyclerView(this);
+        recyclerView.setContentDescription("list");
+        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        adapter = new PaymentAdapter(payment -> { });
+        recyclerView.setAdapter(adapter);
+        root.addView(recyclerView, new LinearLayout.LayoutParams(
+                LinearLayout.LayoutParams.MATCH_PARENT, 0, 1f));
+
+        setContentView(root);
+
+        for (int i = 0; i < ROW_COUNT; i++) {
+            payments.add(newPayment());
+        }
+        adapter.submitList(new ArrayList<>(payments));
+    }
+
+    private void refresh() {
+        // ~10% of rows change amount/status, 5 drop out and 5 new ones arrive at the top
+        for (int i = 0; i < ROW_COUNT / 10; i++) {
+            Payment old = payments.get(random.nextInt(payments.size()));
+            Payment changed = copyOf(old);
+            changed.setTotalAmount(old.getTotalAmount() + 1);
+            changed.setStatus("Completed");
+            payments.set(payments.indexOf(old), changed);
+        }
+        for (int i = 0; i < 5; i++) {
+            payments.remove(random.nextInt(payments.size()));
+            payments.add(0, newPayment());
+        }
+        adapter.submitList(new ArrayList<>(payments));
+    }
+
+    private Payment newPayment() {
+        int id = nextId++;
+        Payment payment = new Payment();
+        payment.setOrderId("order-" + id);
+        payment.setReceiptNumber("RCPT-" + (100000 + id));
+        payment.setCustomerName("Customer " + id);
+        payment.setContactNumber("0917" + (1000000 + id));
+        payment.setPaymentMethod(id % 2 == 0 ? "GCash" : "Cash on Delivery");
+        payment.setTotalAmount(100 + random.nextInt(900));
+        payment.setDeliveryFee(50);
+        payment.setOrderTimestamp(new Timestamp(new Date(System.currentTimeMillis() - id * 60_000L)));
+        payment.setStatus("Pending");
+        return payment;
+    }
+
+    private static Payment copyOf(Payment source) {
+        Payment copy = new Payment();
+        copy.setOrderId(source.getOrderId());
+        copy.setReceiptNumber(source.getReceiptNumber());
+        copy.setCustomerName(source.getCustomerName());
+        copy.setContactNumber(source.getContactNumber());
+        copy.setPaymentMethod(source.getPaymentMethod());
+        copy.setTotalAmount(source.getTotalAmount());
+        copy.setDeliveryFee(source.getDeliveryFee());
+        copy.setOrderTimestamp(source.getOrderTimestamp());
+        copy.setStatus(source.getStatus());
+        return copy;
+    }
+}
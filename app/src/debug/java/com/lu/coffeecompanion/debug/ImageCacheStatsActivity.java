@@ -0,0 +1,61 @@
+package com.lu.coffeecompanion.debug;
+
+import android.os.Bundle;
+import android.widget.Button;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.bumptech.glide.Glide;
+import com.lu.coffeecompanion.ImageCacheStats;
+
+// Debug-build-only screen: Glide's cache hit/miss counters since process start (or the last reset)
+public class ImageCacheStatsActivity extends AppCompatActivity {
+
+    private TextView statsText;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        LinearLayout root = new LinearLayout(this);
+        root.setOrientation(LinearLayout.VERTICAL);
+        int padding = Math.round(16 * getResources().getDisplayMetrics().density);
+        root.setPadding(padding, padding, padding, padding);
+
+        statsText = new TextView(this);
+        statsText.setTextSize(16);
+        root.addView(statsText);
+
+        Button refresh = new Button(this);
+        refresh.setText("Refresh");
+        refresh.setOnClickListener(v -> showStats());
+        root.addView(refresh);
+
+        Button reset = new Button(this);
+        reset.setText("Reset counters");
+        reset.setOnClickListener(v -> {
+            ImageCacheStats.getInstance().reset();
+            showStats();
+        });
+        root.addView(reset);
+
+        Button clearMemory = new Button(this);
+        clearMemory.setText("Clear memory cache");
+        clearMemory.setOnClickListener(v -> Glide.get(this).clearMemory());
+        root.addView(clearMemory);
+
+        setContentView(root);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        showStats();
+    }
+
+    private void showStats() {
+        statsText.setText(ImageCacheStats.getInstance().toString());
+    }
+}
@@ -22,27 +22,27 @@ import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.ListenerRegistration;
-import com.google.firebase.firestore.Query;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.lu.coffeecompanion.data.OrderStatusHub;
 import com.lu.coffeecompanion.databinding.AccountFragmentBinding;
 
 import java.text.SimpleDateFormat;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
 public class AccountFragment extends Fragment {
 
     private static final String TAG = "AccountFragment";
+    private static final int RECENT_ORDERS = 5;
 
     private AccountFragmentBinding binding;
     private DatabaseReference db;
     private FirebaseFirestore firestore;
     private FirebaseAuth auth;
     private String userId;
-    private ListenerRegistration orderListener;
 
     @Nullable
     @Override
@@ -62,9 +62,9 @@ public class AccountFragment extends Fragment {
     }
 
     @Override
-    public void onResume() {
-        super.onResume();
-        if (userId != null && binding != null) {
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        if (userId != null) {
             loadRecentOrders();
         }
     }
@@ -72,10 +72,6 @@ public class AccountFragment extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
-        if (orderListener != null) {
-            orderListener.remove();
-            orderListener = null;
-        }
         binding = null;
     }
 
@@ -104,8 +100,8 @@ public class AccountFragment extends Fragment {
 
     private void setupUI() {
         binding.swipeRefreshLayout.setOnRefreshListener(() -> {
+            // Recent orders are live already
             loadUserData();
-            loadRecentOrders();
             binding.swipeRefreshLayout.setRefreshing(false);
         });
 
@@ -174,99 +170,49 @@ public class AccountFragment extends Fragment {
                 });
     }
 
+    // The newest cards come from the shared order hub, which stays live while the user moves
+    // between this tab, order history and order details
     private void loadRecentOrders() {
-        if (binding == null || getContext() == null) return;
-
-        // Remove old listener
-        if (orderListener != null) {
-            orderListener.remove();
-        }
-
-        binding.orderListContainer.removeAllViews();
         Log.d(TAG, "Loading orders for userId: " + userId);
 
-        Query query = firestore.collection("orders")
-                .whereEqualTo("userId", userId)
-                .orderBy("orderTimestamp", Query.Direction.DESCENDING)
-                .limit(5);
-
-        orderListener = query.addSnapshotListener((queryDocumentSnapshots, error) -> {
-            if (getContext() == null || binding == null) return;
+        OrderStatusHub.getInstance().observeList(getViewLifecycleOwner(), userId, new OrderStatusHub.ListObserver() {
+            @Override
+            public void onOrdersChanged(@NonNull List<DocumentSnapshot> orders, boolean windowFull) {
+                showRecentOrders(orders);
+            }
 
-            if (error != null) {
+            @Override
+            public void onError(@NonNull Exception error) {
+                // A missing index is handled in the hub, which falls back to this user's orders only
+                if (getContext() == null || binding == null) return;
                 Log.e(TAG, "Error loading orders", error);
 
-                if (error.getMessage() != null && error.getMessage().contains("index")) {
-                    loadOrdersWithoutIndex();
-                    return;
-                }
-
-                binding.emptyOrderState.setVisibility(View.VISIBLE);
-                binding.orderListContainer.setVisibility(View.GONE);
-                return;
-            }
-
-            if (queryDocumentSnapshots == null || queryDocumentSnapshots.isEmpty()) {
-                Log.d(TAG, "No orders found for user: " + userId);
                 binding.emptyOrderState.setVisibility(View.VISIBLE);
                 binding.orderListContainer.setVisibility(View.GONE);
-                return;
-            }
-
-            Log.d(TAG, "Found " + queryDocumentSnapshots.size() + " orders");
-            binding.emptyOrderState.setVisibility(View.GONE);
-            binding.orderListContainer.setVisibility(View.VISIBLE);
-            binding.orderListContainer.removeAllViews();
-
-            for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                addOrderCard(document);
             }
         });
     }
 
-    private void loadOrdersWithoutIndex() {
-        if (binding == null || getContext() == null) return;
-
-        firestore.collection("orders")
-                .orderBy("orderTimestamp", Query.Direction.DESCENDING)
-                .limit(20)
-                .addSnapshotListener((queryDocumentSnapshots, error) -> {
-                    if (getContext() == null || binding == null) return;
-
-                    if (error != null) {
-                        Log.e(TAG, "Error loading all orders", error);
-                        binding.emptyOrderState.setVisibility(View.VISIBLE);
-                        binding.orderListContainer.setVisibility(View.GONE);
-                        return;
-                    }
-
-                    if (queryDocumentSnapshots == null || queryDocumentSnapshots.isEmpty()) {
-                        binding.emptyOrderState.setVisibility(View.VISIBLE);
-                        binding.orderListContainer.setVisibility(View.GONE);
-                        return;
-                    }
+    private void showRecentOrders(List<DocumentSnapshot> orders) {
+        if (getContext() == null || binding == null) return;
 
-                    binding.emptyOrderState.setVisibility(View.GONE);
-                    binding.orderListContainer.setVisibility(View.VISIBLE);
-                    binding.orderListContainer.removeAllViews();
+        if (orders.isEmpty()) {
+            Log.d(TAG, "No orders found for user: " + userId);
+            binding.emptyOrderState.setVisibility(View.VISIBLE);
+            binding.orderListContainer.setVisibility(View.GONE);
+            return;
+        }
 
-                    int userOrderCount = 0;
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        String docUserId = document.getString("userId");
-                        if (userId.equals(docUserId) && userOrderCount < 5) {
-                            addOrderCard(document);
-                            userOrderCount++;
-                        }
-                    }
+        binding.emptyOrderState.setVisibility(View.GONE);
+        binding.orderListContainer.setVisibility(View.VISIBLE);
+        binding.orderListContainer.removeAllViews();
 
-                    if (userOrderCount == 0) {
-                        binding.emptyOrderState.setVisibility(View.VISIBLE);
-                        binding.orderListContainer.setVisibility(View.GONE);
-                    }
-                });
+        for (DocumentSnapshot document : orders.subList(0, Math.min(RECENT_ORDERS, orders.size()))) {
+            addOrderCard(document);
+        }
     }
 
-    private void addOrderCard(QueryDocumentSnapshot document) {
+    private void addOrderCard(DocumentSnapshot document) {
         if (getContext() == null || binding == null) return;
 
         try {
@@ -7,8 +7,11 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+import com.lu.coffeecompanion.data.RevenueRollup;
 import com.lu.coffeecompanion.databinding.ActivityAdminAddCodPaymentBinding;
 
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -76,9 +79,13 @@ public class AdminAddCodPaymentActivity extends AppCompatActivity {
         // 🔥 Use server timestamp (correct)
         payment.put("timestamp", FieldValue.serverTimestamp());
 
-        firestore.collection("cod_payments")
-                .add(payment)
-                .addOnSuccessListener(documentReference -> {
+        // Write the payment and its daily revenue rollup in one batch
+        WriteBatch batch = firestore.batch();
+        batch.set(firestore.collection("cod_payments").document(), payment);
+        RevenueRollup.addPayment(firestore, batch, RevenueRollup.METHOD_COD, amount, new Date());
+
+        batch.commit()
+                .addOnSuccessListener(unused -> {
                     Toast.makeText(this, "COD Payment added successfully!", Toast.LENGTH_SHORT).show();
                     binding.progressBar.setVisibility(android.view.View.GONE);
                     finish();
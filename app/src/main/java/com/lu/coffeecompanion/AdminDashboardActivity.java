@@ -21,16 +21,18 @@ import com.github.mikephil.charting.data.BarDataSet;
 import com.github.mikephil.charting.data.BarEntry;
 import com.github.mikephil.charting.formatter.IndexAxisValueFormatter;
 import com.github.mikephil.charting.formatter.ValueFormatter;
-import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.ValueEventListener;
 
+import com.lu.coffeecompanion.data.OrderLines;
+import com.lu.coffeecompanion.data.RatingAggregator;
+import com.lu.coffeecompanion.data.RevenueRollup;
 import com.lu.coffeecompanion.databinding.ActivityAdminDashboardBinding;
 
 import java.text.SimpleDateFormat;
@@ -60,6 +62,7 @@ public class AdminDashboardActivity extends AppCompatActivity {
 
     private Calendar startCalendar, endCalendar;
     private SimpleDateFormat dateFormat, displayDateFormat;
+    private boolean rollupReady = false;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -75,6 +78,15 @@ public class AdminDashboardActivity extends AppCompatActivity {
         setupBarChart();
         setupCardClickListeners();
         loadInitialData();
+
+        // Fold pre-existing reviews into the per-product rating totals once
+        RatingAggregator.backfillIfNeeded(firestore, success -> {
+            if (!success) Log.w(TAG, "Rating totals backfill did not complete; will retry next open");
+        });
+        // Save line snapshots onto orders placed before checkout wrote them, a page per open
+        OrderLines.backfillIfNeeded(firestore, success -> {
+            if (!success) Log.w(TAG, "Order lines backfill did not complete; will retry next open");
+        });
     }
 
     private void initializeFirebase() {
@@ -83,7 +95,7 @@ public class AdminDashboardActivity extends AppCompatActivity {
     }
 
     private void initializeDateFormatters() {
-        dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+        dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
         displayDateFormat = new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault());
     }
 
@@ -303,178 +315,52 @@ public class AdminDashboardActivity extends AppCompatActivity {
 
         Calendar current = (Calendar) startCalendar.clone();
         while (!current.after(endCalendar)) {
-            String key = dateFormat.format(current.getTime());
+            String key = RevenueRollup.dayKey(current.getTime());
             gcashByDate.put(key, 0.0);
             codByDate.put(key, 0.0);
             current.add(Calendar.DAY_OF_YEAR, 1);
         }
 
-        Calendar startOfDay = (Calendar) startCalendar.clone();
-        startOfDay.set(Calendar.HOUR_OF_DAY, 0);
-        startOfDay.set(Calendar.MINUTE, 0);
-        startOfDay.set(Calendar.SECOND, 0);
-        startOfDay.set(Calendar.MILLISECOND, 0);
-
-        Calendar endOfDay = (Calendar) endCalendar.clone();
-        endOfDay.set(Calendar.HOUR_OF_DAY, 23);
-        endOfDay.set(Calendar.MINUTE, 59);
-        endOfDay.set(Calendar.SECOND, 59);
-        endOfDay.set(Calendar.MILLISECOND, 999);
-
-        Date startDate = startOfDay.getTime();
-        Date endDate = endOfDay.getTime();
-
-        loadAllPayments(gcashByDate, codByDate, startDate, endDate);
-    }
-
-    private void loadAllPayments(Map<String, Double> gcashByDate, Map<String, Double> codByDate,
-                                 Date startDate, Date endDate) {
-        final double[] allTimeGcash = {0.0};
-        final double[] allTimeCod = {0.0};
-        final double[] chartGcash = {0.0};
-        final double[] chartCod = {0.0};
-
-        firestore.collection("orders")
-                .whereEqualTo("paymentMethod", "GCash")
-                .get()
-                .addOnSuccessListener(gcashSnapshot -> {
-                    Log.d(TAG, "GCash orders found: " + gcashSnapshot.size());
-
-                    for (QueryDocumentSnapshot doc : gcashSnapshot) {
-                        Double totalPrice = doc.getDouble("totalPrice");
-                        Double deliveryFee = doc.getDouble("deliveryFee");
-
-                        if (totalPrice == null) {
-                            continue;
-                        }
-
-                        double orderTotal = totalPrice + (deliveryFee != null ? deliveryFee : 0.0);
-                        allTimeGcash[0] += orderTotal;
-
-                        Timestamp ts = doc.getTimestamp("orderTimestamp");
-                        if (ts == null) {
-                            ts = doc.getTimestamp("timestamp");
-                        }
-
-                        if (ts != null) {
-                            Date orderDate = ts.toDate();
-
-                            if (!orderDate.before(startDate) && !orderDate.after(endDate)) {
-                                chartGcash[0] += orderTotal;
-
-                                String dateKey = dateFormat.format(orderDate);
-                                if (gcashByDate.containsKey(dateKey)) {
-                                    double current = gcashByDate.get(dateKey);
-                                    gcashByDate.put(dateKey, current + orderTotal);
-                                }
-                            }
-                        }
-                    }
-
-                    loadCodPayments(gcashByDate, codByDate, startDate, endDate,
-                            allTimeGcash[0], chartGcash[0], allTimeCod, chartCod);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error loading GCash payments", e);
-                    updateUI(gcashByDate, codByDate, 0.0, 0.0, 0.0, 0.0);
-                });
-    }
-
-    private void loadCodPayments(Map<String, Double> gcashByDate, Map<String, Double> codByDate,
-                                 Date startDate, Date endDate, double allTimeGcash,
-                                 double chartGcash, double[] allTimeCod, double[] chartCod) {
-        firestore.collection("cod_payments")
-                .get()
-                .addOnSuccessListener(codSnapshot -> {
-                    Log.d(TAG, "COD payments found: " + codSnapshot.size());
-
-                    for (QueryDocumentSnapshot doc : codSnapshot) {
-                        Double amount = doc.getDouble("amount");
-                        if (amount == null) {
-                            continue;
-                        }
-
-                        allTimeCod[0] += amount;
-
-                        Timestamp ts = doc.getTimestamp("timestamp");
-                        if (ts != null) {
-                            Date paymentDate = ts.toDate();
-
-                            if (!paymentDate.before(startDate) && !paymentDate.after(endDate)) {
-                                chartCod[0] += amount;
+        String startKey = RevenueRollup.dayKey(startCalendar.getTime());
+        String endKey = RevenueRollup.dayKey(endCalendar.getTime());
 
-                                String dateKey = dateFormat.format(paymentDate);
-                                if (codByDate.containsKey(dateKey)) {
-                                    double current = codByDate.get(dateKey);
-                                    codByDate.put(dateKey, current + amount);
-                                }
-                            }
-                        }
-                    }
+        // All-time cards come from server-side sum() aggregates
+        RevenueRollup.loadAllTimeTotals(firestore, this::updatePaymentStatistics);
 
-                    loadCodFromOrders(gcashByDate, codByDate, startDate, endDate,
-                            allTimeGcash, chartGcash, allTimeCod, chartCod);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error loading COD payments", e);
-                    updateUI(gcashByDate, codByDate, allTimeGcash, chartGcash, 0.0, 0.0);
-                });
+        if (rollupReady) {
+            loadChartFromRollup(gcashByDate, codByDate, startKey, endKey);
+        } else {
+            RevenueRollup.backfillIfNeeded(firestore, success -> {
+                rollupReady = success;
+                loadChartFromRollup(gcashByDate, codByDate, startKey, endKey);
+            });
+        }
     }
 
-    private void loadCodFromOrders(Map<String, Double> gcashByDate, Map<String, Double> codByDate,
-                                   Date startDate, Date endDate, double allTimeGcash,
-                                   double chartGcash, double[] allTimeCod, double[] chartCod) {
-        firestore.collection("orders")
-                .whereEqualTo("paymentMethod", "Cash on Delivery")
-                .get()
-                .addOnSuccessListener(codOrdersSnapshot -> {
-                    Log.d(TAG, "COD orders found: " + codOrdersSnapshot.size());
-
-                    for (QueryDocumentSnapshot doc : codOrdersSnapshot) {
-                        Double totalPrice = doc.getDouble("totalPrice");
-                        Double deliveryFee = doc.getDouble("deliveryFee");
-
-                        if (totalPrice == null) {
-                            continue;
-                        }
-
-                        double orderTotal = totalPrice + (deliveryFee != null ? deliveryFee : 0.0);
-                        allTimeCod[0] += orderTotal;
-
-                        Timestamp ts = doc.getTimestamp("orderTimestamp");
-                        if (ts == null) {
-                            ts = doc.getTimestamp("timestamp");
-                        }
-
-                        if (ts != null) {
-                            Date orderDate = ts.toDate();
-
-                            if (!orderDate.before(startDate) && !orderDate.after(endDate)) {
-                                chartCod[0] += orderTotal;
-
-                                String dateKey = dateFormat.format(orderDate);
-                                if (codByDate.containsKey(dateKey)) {
-                                    double current = codByDate.get(dateKey);
-                                    codByDate.put(dateKey, current + orderTotal);
-                                }
-                            }
-                        }
-                    }
-
-                    runOnUiThread(() -> updateUI(gcashByDate, codByDate, allTimeGcash,
-                            chartGcash, allTimeCod[0], chartCod[0]));
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error loading COD orders", e);
-                    runOnUiThread(() -> updateUI(gcashByDate, codByDate, allTimeGcash,
-                            chartGcash, allTimeCod[0], chartCod[0]));
-                });
-    }
+    // Reads only the daily_revenue docs inside the chosen range
+    private void loadChartFromRollup(Map<String, Double> gcashByDate, Map<String, Double> codByDate,
+                                     String startKey, String endKey) {
+        RevenueRollup.loadRange(firestore, startKey, endKey, days -> {
+            double chartGcash = 0.0;
+            double chartCod = 0.0;
+
+            for (Map.Entry<String, DocumentSnapshot> day : days.entrySet()) {
+                if (!gcashByDate.containsKey(day.getKey())) continue;
+
+                Double gcash = day.getValue().getDouble(RevenueRollup.FIELD_GCASH_TOTAL);
+                Double cod = day.getValue().getDouble(RevenueRollup.FIELD_COD_TOTAL);
+                double gcashValue = gcash != null ? gcash : 0.0;
+                double codValue = cod != null ? cod : 0.0;
+
+                gcashByDate.put(day.getKey(), gcashValue);
+                codByDate.put(day.getKey(), codValue);
+                chartGcash += gcashValue;
+                chartCod += codValue;
+            }
 
-    private void updateUI(Map<String, Double> gcashByDate, Map<String, Double> codByDate,
-                          double allTimeGcash, double chartGcash, double allTimeCod, double chartCod) {
-        updatePaymentStatistics(allTimeGcash, allTimeCod);
-        updateBarChart(gcashByDate, codByDate, chartGcash, chartCod);
+            Log.d(TAG, "Daily revenue docs in range: " + days.size());
+            updateBarChart(gcashByDate, codByDate, chartGcash, chartCod);
+        });
     }
 
     private void updatePaymentStatistics(double gcashTotal, double codTotal) {
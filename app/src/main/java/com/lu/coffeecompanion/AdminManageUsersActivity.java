@@ -65,7 +65,7 @@ public class AdminManageUsersActivity extends AppCompatActivity {
         // Setup RecyclerView
         recyclerUsers.setLayoutManager(new LinearLayoutManager(this));
         userList = new ArrayList<>();
-        adapter = new UserAdapter(this, userList);
+        adapter = new UserAdapter(this);
         recyclerUsers.setAdapter(adapter);
 
         // Initialize Firebase
@@ -128,7 +128,7 @@ public class AdminManageUsersActivity extends AppCompatActivity {
                     }
 
                     Log.d("AdminManageUsers", "Total users loaded: " + userList.size());
-                    adapter.notifyDataSetChanged();
+                    adapter.submitList(new ArrayList<>(userList));
 
                     if (userList.isEmpty()) {
                         Toast.makeText(AdminManageUsersActivity.this, "No users found in database", Toast.LENGTH_SHORT).show();
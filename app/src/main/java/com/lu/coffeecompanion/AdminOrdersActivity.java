@@ -50,7 +50,7 @@ public class AdminOrdersActivity extends AppCompatActivity {
 
         // Initialize order list and adapter
         orderList = new ArrayList<>();
-        adapter = new OrderAdapter(this, orderList);
+        adapter = new OrderAdapter(this);
         recyclerOrders.setAdapter(adapter);
 
         // Initialize Firebase Database Reference
@@ -90,10 +90,11 @@ public class AdminOrdersActivity extends AppCompatActivity {
                     Collections.sort(orderList, (o1, o2) ->
                             Long.compare(o2.getTimestamp(), o1.getTimestamp()));
 
-                    adapter.notifyDataSetChanged();
+                    adapter.submitList(new ArrayList<>(orderList));
                     recyclerOrders.setVisibility(View.VISIBLE);
                     tvNoOrders.setVisibility(View.GONE);
                 } else {
+                    adapter.submitList(new ArrayList<>());
                     tvNoOrders.setVisibility(View.VISIBLE);
                     recyclerOrders.setVisibility(View.GONE);
                 }
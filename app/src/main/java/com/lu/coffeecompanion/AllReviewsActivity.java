@@ -9,23 +9,33 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
 import com.lu.coffeecompanion.adapters.ReviewAdapter;
+import com.lu.coffeecompanion.data.RatingHistogram;
 import com.lu.coffeecompanion.models.Review;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 public class AllReviewsActivity extends AppCompatActivity {
 
     private static final String TAG = "AllReviewsActivity";
+    private static final int PAGE_SIZE = 20;
+    private static final int LOAD_MORE_THRESHOLD = 5;
 
     private RecyclerView recyclerViewReviews;
     private ReviewAdapter adapter;
@@ -38,6 +48,18 @@ public class AllReviewsActivity extends AppCompatActivity {
     private ProgressBar progressBar;
     private Button btnBack;
 
+    private View ratingSummary;
+    private TextView tvAverageRating;
+    private TextView tvReviewCount;
+    private final ProgressBar[] starBars = new ProgressBar[5];
+    private final TextView[] starCounts = new TextView[5];
+
+    // The two collections RatingAggregator counts, so the list matches the header
+    private RatingStream productRatings;
+    private RatingStream itemReviews;
+    private boolean loadingPage = false;
+    private boolean endReached = false;
+
     private String menuItemId;
     private String productName;
     private String imageUrl;
@@ -65,6 +87,7 @@ public class AllReviewsActivity extends AppCompatActivity {
 
         // Load reviews
         if (menuItemId != null) {
+            loadRatingSummary();
             loadAllReviews();
         } else {
             Toast.makeText(this, "Invalid product", Toast.LENGTH_SHORT).show();
@@ -86,9 +109,33 @@ public class AllReviewsActivity extends AppCompatActivity {
             reviewList = new ArrayList<>();
             adapter = new ReviewAdapter(this);
 
+            ratingSummary = findViewById(R.id.ratingSummary);
+            tvAverageRating = findViewById(R.id.tvAverageRating);
+            tvReviewCount = findViewById(R.id.tvReviewCount);
+            int[] barIds = {R.id.star1Bar, R.id.star2Bar, R.id.star3Bar, R.id.star4Bar, R.id.star5Bar};
+            int[] countIds = {R.id.star1Count, R.id.star2Count, R.id.star3Count, R.id.star4Count, R.id.star5Count};
+            for (int i = 0; i < 5; i++) {
+                starBars[i] = findViewById(barIds[i]);
+                starCounts[i] = findViewById(countIds[i]);
+            }
+
             if (recyclerViewReviews != null) {
-                recyclerViewReviews.setLayoutManager(new LinearLayoutManager(this));
+                LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+                recyclerViewReviews.setLayoutManager(layoutManager);
                 recyclerViewReviews.setAdapter(adapter);
+
+                // Fetch the next page when the user nears the end of what is loaded
+                recyclerViewReviews.addOnScrollListener(new RecyclerView.OnScrollListener() {
+                    @Override
+                    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                        if (dy <= 0 || endReached || loadingPage) return;
+
+                        int lastVisible = layoutManager.findLastVisibleItemPosition();
+                        if (lastVisible >= adapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                            loadNextPage();
+                        }
+                    }
+                });
             }
 
             Log.d(TAG, "Views initialized successfully");
@@ -105,75 +152,96 @@ public class AllReviewsActivity extends AppCompatActivity {
         Log.d(TAG, "UI setup completed");
     }
 
-    private void loadAllReviews() {
-        showLoading(true);
-
-        Log.d(TAG, "Loading all reviews for product: " + menuItemId);
-
-        // Load ALL orderRatings without filter - then filter in Java
-        db.collection("orderRatings")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    showLoading(false);
+    private void loadRatingSummary() {
+        RatingHistogram.load(db, menuItemId, histogram -> {
+            if (histogram == null || histogram.getCount() == 0 || ratingSummary == null) return;
 
-                    Log.d(TAG, "Got all orderRatings. Total count: " + querySnapshot.size());
+            tvAverageRating.setText(String.format(Locale.getDefault(), "%.1f", histogram.getAverage()));
+            long count = histogram.getCount();
+            tvReviewCount.setText(count + (count == 1 ? " review" : " reviews"));
+            for (int star = 1; star <= 5; star++) {
+                starBars[star - 1].setProgress((int) (100 * histogram.getStarCount(star) / count));
+                starCounts[star - 1].setText(String.valueOf(histogram.getStarCount(star)));
+            }
+            ratingSummary.setVisibility(View.VISIBLE);
+        });
+    }
 
-                    if (querySnapshot.isEmpty()) {
-                        Log.d(TAG, "No ratings found in collection");
-                        showNoReviews();
-                        return;
-                    }
+    // Newest first across productRatings and reviews, merged a page at a time; each side needs
+    // its product + time composite index
+    private void loadAllReviews() {
+        productRatings = new RatingStream(db.collection("productRatings")
+                .whereEqualTo("productId", menuItemId)
+                .orderBy("timestamp", Query.Direction.DESCENDING), "timestamp");
+        itemReviews = new RatingStream(db.collection("reviews")
+                .whereEqualTo("menuItemId", menuItemId)
+                .orderBy("createdAt", Query.Direction.DESCENDING), "createdAt");
+        reviewList.clear();
+        endReached = false;
+        loadNextPage();
+    }
 
-                    // Filter and sort in Java instead of Firestore
-                    List<DocumentSnapshot> allDocs = new ArrayList<>(querySnapshot.getDocuments());
-                    List<DocumentSnapshot> matchedDocs = new ArrayList<>();
+    private void loadNextPage() {
+        if (loadingPage || endReached) return;
+        loadingPage = true;
+        showLoading(reviewList.isEmpty());
 
-                    for (DocumentSnapshot doc : allDocs) {
-                        String docProductId = doc.getString("productId");
+        // Only a side whose buffered ratings have all been shown needs another read
+        List<Task<QuerySnapshot>> reads = new ArrayList<>();
+        for (RatingStream stream : new RatingStream[]{productRatings, itemReviews}) {
+            if (stream.needsPage()) {
+                reads.add(stream.fetch(PAGE_SIZE));
+            }
+        }
 
-                        Log.d(TAG, "Checking rating - productId: " + docProductId +
-                                ", looking for: " + menuItemId);
+        Tasks.whenAll(reads)
+                .addOnSuccessListener(unused -> {
+                    loadingPage = false;
+                    showLoading(false);
 
-                        if (docProductId != null && docProductId.equals(menuItemId)) {
-                            matchedDocs.add(doc);
-                            Log.d(TAG, "MATCHED: " + doc.getString("userName"));
-                        }
+                    List<DocumentSnapshot> merged = new ArrayList<>();
+                    // Stop once a side runs dry, since its next page may hold newer ratings
+                    while (merged.size() < PAGE_SIZE && !productRatings.needsPage() && !itemReviews.needsPage()) {
+                        RatingStream next = newer(productRatings, itemReviews);
+                        if (next == null) break;
+                        merged.add(next.take());
                     }
+                    endReached = productRatings.isDone() && itemReviews.isDone();
+                    Log.d(TAG, "Loaded page of " + merged.size() + " reviews");
 
-                    Log.d(TAG, "Found " + matchedDocs.size() + " matching ratings");
-
-                    if (matchedDocs.isEmpty()) {
-                        Log.d(TAG, "No ratings found for this product");
-                        showNoReviews();
-                        return;
+                    processReviews(merged);
+                    // A short page cannot fill the screen, so the scroll listener would never ask again
+                    if (merged.size() < PAGE_SIZE) {
+                        loadNextPage();
                     }
-
-                    // Sort by timestamp descending
-                    matchedDocs.sort((d1, d2) -> {
-                        com.google.firebase.Timestamp t1 = d1.getTimestamp("timestamp");
-                        com.google.firebase.Timestamp t2 = d2.getTimestamp("timestamp");
-                        if (t1 == null || t2 == null) return 0;
-                        return t2.compareTo(t1);
-                    });
-
-                    processReviews(matchedDocs);
                 })
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "Error loading reviews: " + e.getMessage(), e);
+                    loadingPage = false;
                     showLoading(false);
-                    showNoReviews();
+                    if (reviewList.isEmpty()) {
+                        showNoReviews();
+                    }
                     Toast.makeText(this, "Failed to load reviews: " + e.getMessage(), Toast.LENGTH_SHORT).show();
                 });
     }
 
-    private void processReviews(List<DocumentSnapshot> matchedDocs) {
-        reviewList.clear();
-        for (DocumentSnapshot document : matchedDocs) {
+    // The side whose next rating is newer, or null when both are exhausted
+    private static RatingStream newer(RatingStream a, RatingStream b) {
+        if (a.buffer.isEmpty()) return b.buffer.isEmpty() ? null : b;
+        if (b.buffer.isEmpty()) return a;
+        return a.headTime() >= b.headTime() ? a : b;
+    }
+
+    private void processReviews(List<DocumentSnapshot> pageDocs) {
+        for (DocumentSnapshot document : pageDocs) {
             try {
+                // productRatings and reviews name the product, comment and time differently
+                boolean fromReviews = document.contains("menuItemId");
                 Review review = new Review();
                 review.setReviewId(document.getId());
                 review.setOrderId(document.getString("orderId"));
-                review.setMenuItemId(document.getString("productId"));
+                review.setMenuItemId(menuItemId);
                 review.setUserId(document.getString("userId"));
                 review.setUserName(document.getString("userName"));
 
@@ -182,11 +250,11 @@ public class AllReviewsActivity extends AppCompatActivity {
                     review.setRating(rating.floatValue());
                 }
 
-                review.setFeedback(document.getString("comment"));
-                review.setCreatedAt(document.getTimestamp("timestamp"));
+                String comment = document.getString(fromReviews ? "feedback" : "comment");
+                review.setFeedback(comment != null ? comment : document.getString("comment"));
+                review.setCreatedAt(document.getTimestamp(fromReviews ? "createdAt" : "timestamp"));
 
                 reviewList.add(review);
-                Log.d(TAG, "Added rating: " + review.getUserName() + " - " + review.getRating() + "★");
             } catch (Exception e) {
                 Log.e(TAG, "Error parsing rating", e);
             }
@@ -195,6 +263,52 @@ public class AllReviewsActivity extends AppCompatActivity {
         updateUI();
     }
 
+    // One collection's ratings for the product, read a page at a time into a buffer
+    private static class RatingStream {
+        final Query query;
+        final String timeField;
+        final ArrayDeque<DocumentSnapshot> buffer = new ArrayDeque<>();
+        DocumentSnapshot cursor;
+        boolean exhausted = false;
+
+        RatingStream(Query query, String timeField) {
+            this.query = query;
+            this.timeField = timeField;
+        }
+
+        boolean needsPage() {
+            return buffer.isEmpty() && !exhausted;
+        }
+
+        boolean isDone() {
+            return buffer.isEmpty() && exhausted;
+        }
+
+        Task<QuerySnapshot> fetch(int pageSize) {
+            Query page = cursor != null ? query.startAfter(cursor) : query;
+            // Buffered before the returned task completes, so the merge always sees the page
+            return page.limit(pageSize).get().continueWith(read -> {
+                QuerySnapshot snapshot = read.getResult();
+                List<DocumentSnapshot> docs = snapshot.getDocuments();
+                if (!docs.isEmpty()) {
+                    cursor = docs.get(docs.size() - 1);
+                }
+                exhausted = docs.size() < pageSize;
+                buffer.addAll(docs);
+                return snapshot;
+            });
+        }
+
+        long headTime() {
+            Timestamp time = buffer.peekFirst().getTimestamp(timeField);
+            return time != null ? time.toDate().getTime() : Long.MIN_VALUE;
+        }
+
+        DocumentSnapshot take() {
+            return buffer.pollFirst();
+        }
+    }
+
     private void updateUI() {
         try {
             if (reviewList.isEmpty()) {
@@ -14,11 +14,15 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.lu.coffeecompanion.data.CartKeys;
+import com.lu.coffeecompanion.data.CartStore;
 import com.lu.coffeecompanion.databinding.ActivityCartBinding;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public class CartActivity extends AppCompatActivity {
 
@@ -52,23 +56,26 @@ public class CartActivity extends AppCompatActivity {
         if (currentUser == null) {
             startActivity(new Intent(getApplicationContext(), MainActivity.class));
             finish();
+            return;
         } else {
             userId = currentUser.getUid();
         }
 
-        // SETUP RECYCLERVIEW + ADAPTER WITH QUANTITY CALLBACK
-        cartAdapter = new com.lu.coffeecompanion.CartAdapter(this, cartItems, userId, this::updateTotalPrice);
+        // SETUP RECYCLERVIEW + ADAPTER
+        cartAdapter = new com.lu.coffeecompanion.CartAdapter(this);
         binding.recyclerViewCart.setAdapter(cartAdapter);
         binding.recyclerViewCart.setLayoutManager(new LinearLayoutManager(this));
 
-        fetchAll();
-
-        // SWIPE REFRESH
-        binding.swipeRefreshLayout.setOnRefreshListener(() -> {
-            fetchAll();
-            binding.swipeRefreshLayout.setRefreshing(false);
+        binding.progressBar.setVisibility(android.view.View.VISIBLE);
+        // Rows from before keyed cart documents are folded together once, then the shared cart
+        // keeps this screen current
+        CartKeys.mergeDuplicatesIfNeeded(this, db, userId, merged -> {
+            if (!isDestroyed()) CartStore.getInstance(this).observe(this, userId, this::showCart, this::showCartError);
         });
 
+        // SWIPE REFRESH: the cart is live, nothing to refetch
+        binding.swipeRefreshLayout.setOnRefreshListener(() -> binding.swipeRefreshLayout.setRefreshing(false));
+
         // BACK BUTTON
         binding.back.setOnClickListener(v -> finish());
 
@@ -110,60 +117,29 @@ public class CartActivity extends AppCompatActivity {
         cartAdapter.setEditMode(isEditMode);
     }
 
-    private void fetchAll() {
-        cartItems.clear();
-        binding.progressBar.setVisibility(android.view.View.VISIBLE);
-
-        db.collection("users").document(userId).collection("cart")
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        for (DocumentSnapshot cartDoc : task.getResult()) {
-                            String cartId = cartDoc.getId();
-                            String itemRef = cartDoc.getString("docId");
-                            double quantity = cartDoc.getDouble("quantity");
-
-                            fetchItemFromShops(itemRef, quantity, cartId);
-                        }
-                    }
-                    binding.progressBar.setVisibility(android.view.View.GONE);
-                });
-    }
-
-    private void fetchItemFromShops(String docId, double quantity, String cartId) {
-        db.collection("shops")
-                .get()
-                .addOnSuccessListener(shopSnapshots -> {
-                    for (DocumentSnapshot shop : shopSnapshots) {
-                        String shopId = shop.getId();
-                        String shopName = shop.getString("name");
-
-                        db.collection("shops").document(shopId)
-                                .collection("menu").document(docId)
-                                .get()
-                                .addOnSuccessListener(itemDoc -> {
-                                    if (itemDoc.exists()) {
-                                        String name = itemDoc.getString("name");
-                                        double price = itemDoc.getDouble("price");
-                                        String imageUrl = itemDoc.getString("imageUrl");
-
-                                        CartItem cartItem = new CartItem(cartId, name, price, shopName, (int) quantity, imageUrl);
-                                        cartItems.add(cartItem);
-                                        cartAdapter.notifyDataSetChanged();
-
-                                        updateTotalPrice();
-                                    }
-                                });
-                    }
-                });
+    private void showCartError(Exception e) {
+        binding.progressBar.setVisibility(android.view.View.GONE);
+        Toast.makeText(this, "Failed to load cart", Toast.LENGTH_SHORT).show();
     }
 
-    private void updateTotalPrice() {
-        double total = 0.0;
+    // Rebuilds the rows from the shared cart, keeping which ones are ticked in edit mode
+    private void showCart(List<CartStore.Line> lines, double total) {
+        Set<String> selected = new HashSet<>();
         for (CartItem item : cartItems) {
-            total += item.getPrice() * item.getQuantity();
+            if (item.isSelected()) selected.add(item.getCartId());
+        }
+
+        cartItems.clear();
+        for (CartStore.Line line : lines) {
+            CartItem item = new CartItem(line.getCartId(), line.getName(), line.getPrice(),
+                    line.getShopName(), line.getQuantity(), line.getImageUrl());
+            item.setSelected(selected.contains(line.getCartId()));
+            cartItems.add(item);
         }
+        cartAdapter.submitList(new ArrayList<>(cartItems));
+
         binding.totalPrice.setText("₱" + String.format("%.2f", total));
+        binding.progressBar.setVisibility(android.view.View.GONE);
     }
 
     private void deleteSelectedItems() {
@@ -181,22 +157,12 @@ public class CartActivity extends AppCompatActivity {
                 .setTitle("REMOVE ITEMS")
                 .setMessage("ARE YOU SURE WANT TO REMOVE SELECTED ITEMS?")
                 .setPositiveButton("YES", (dialog, which) -> {
-                    for (String id : selectedIds) {
-                        db.collection("users").document(userId)
-                                .collection("cart")
-                                .document(id)
-                                .delete();
-                    }
+                    // The rows go at once; the deletes commit together in one batch
+                    CartStore.getInstance(this).remove(selectedIds)
+                            .addOnFailureListener(e -> Toast.makeText(this, "FAILED TO REMOVE ITEMS", Toast.LENGTH_SHORT).show());
                     Toast.makeText(this, "REMOVED SUCCESSFULLY", Toast.LENGTH_SHORT).show();
-                    fetchAll();
                 })
                 .setNegativeButton("NO", null)
                 .show();
     }
-
-    @Override
-    protected void onRestart() {
-        super.onRestart();
-        fetchAll();
-    }
 }
@@ -3,6 +3,7 @@ package com.lu.coffeecompanion;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.View;
 import android.widget.Toast;
@@ -17,15 +18,22 @@ import androidx.core.view.WindowInsetsCompat;
 
 import com.bumptech.glide.Glide;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
+import com.google.firebase.analytics.FirebaseAnalytics;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
+import com.lu.coffeecompanion.data.CartStore;
+import com.lu.coffeecompanion.data.ImageRenditions;
+import com.lu.coffeecompanion.data.MenuItemRepository;
+import com.lu.coffeecompanion.data.OrderLines;
+import com.lu.coffeecompanion.data.RevenueRollup;
 import com.lu.coffeecompanion.databinding.ActivityCheckoutBinding;
 import com.lu.coffeecompanion.databinding.DialogGcashQrBinding;
 import com.lu.coffeecompanion.databinding.ItemCartBinding;
@@ -33,6 +41,7 @@ import com.lu.coffeecompanion.databinding.ItemCartBinding;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -44,6 +53,8 @@ public class CheckoutActivity extends AppCompatActivity {
     private static final int REQUEST_IMAGE_PICK = 200;
     private static final String TAG = "CheckoutActivity";
     private static final double DELIVERY_FEE = 30.0;
+    private static final String STATE_PENDING_ORDER_ID = "pendingOrderId";
+    private static final String STATE_PENDING_RECEIPT = "pendingReceiptNumber";
 
     private ActivityCheckoutBinding binding;
     private FirebaseFirestore db;
@@ -58,6 +69,9 @@ public class CheckoutActivity extends AppCompatActivity {
 
     private double totalPrice = 0.0;
     private List<Map<String, Object>> cartItems = new ArrayList<>();
+    private List<String> cartDocIds = new ArrayList<>();
+    // Frozen onto the order so order screens never look the items up again
+    private List<OrderLines.Line> orderLines = new ArrayList<>();
     private Map<String, Object> addressData = new HashMap<>();
     private String userName = "";
 
@@ -68,6 +82,13 @@ public class CheckoutActivity extends AppCompatActivity {
     private int quantity;
     private String itemName;
     private double itemPrice;
+    private String itemShopName;
+    private String itemImageUrl;
+
+    // Survive retries and process death so a repeated tap resubmits the same order
+    private String pendingOrderId;
+    private String pendingReceiptNumber;
+    private long checkoutStartedAt;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -77,6 +98,11 @@ public class CheckoutActivity extends AppCompatActivity {
         binding = ActivityCheckoutBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
+        if (savedInstanceState != null) {
+            pendingOrderId = savedInstanceState.getString(STATE_PENDING_ORDER_ID);
+            pendingReceiptNumber = savedInstanceState.getString(STATE_PENDING_RECEIPT);
+        }
+
         applyWindowInsets();
         initializeFirebase();
 
@@ -105,6 +131,7 @@ public class CheckoutActivity extends AppCompatActivity {
             quantity = intent.getIntExtra("quantity", 1);
             itemName = intent.getStringExtra("itemName");
             itemPrice = intent.getDoubleExtra("itemPrice", 0.0);
+            itemImageUrl = intent.getStringExtra("imageUrl");
             totalPrice = intent.getDoubleExtra("totalPrice", 0.0);
 
             // Get address from Buy Now flow
@@ -252,35 +279,25 @@ public class CheckoutActivity extends AppCompatActivity {
 
         ItemCartBinding cartBinding = ItemCartBinding.inflate(getLayoutInflater());
 
-        // Load item image from Firestore
+        // Load item image and shop name from the shared menu index
         if (shopId != null && itemDocId != null) {
-            db.collection("shops")
-                    .document(shopId)
-                    .collection("menu")
-                    .document(itemDocId)
-                    .get()
-                    .addOnSuccessListener(document -> {
-                        if (document.exists()) {
-                            String imageUrl = document.getString("imageUrl");
-                            final String[] shopName = {"Loading..."};
-
-                            // Get shop name
-                            db.collection("shops").document(shopId).get()
-                                    .addOnSuccessListener(shopDoc -> {
-                                        if (shopDoc.exists()) {
-                                            shopName[0] = shopDoc.getString("name");
-                                            cartBinding.itemShop.setText(shopName[0]);
-                                        }
-                                    });
-
-                            if (imageUrl != null && !imageUrl.isEmpty()) {
-                                Glide.with(this)
-                                        .load(imageUrl)
-                                        .placeholder(R.drawable.image_placeholder)
-                                        .into(cartBinding.itemImage);
-                            }
-                        }
-                    });
+            MenuItemRepository.getInstance().getMenuItem(itemDocId, shopId, entry -> {
+                if (entry == null || binding == null) return;
+
+                itemShopName = entry.getShopName();
+                if (entry.getShopName() != null) {
+                    cartBinding.itemShop.setText(entry.getShopName());
+                }
+
+                String imageUrl = entry.getImageUrl(ImageRenditions.dpToPx(this, 80));
+                if (imageUrl != null) itemImageUrl = imageUrl;
+                if (imageUrl != null && !imageUrl.isEmpty()) {
+                    Glide.with(this)
+                            .load(imageUrl)
+                            .placeholder(R.drawable.image_placeholder)
+                            .into(cartBinding.itemImage);
+                }
+            });
         }
 
         cartBinding.itemName.setText(itemName);
@@ -320,96 +337,50 @@ public class CheckoutActivity extends AppCompatActivity {
                 });
     }
 
+    // Reads the shared cart the cart screen already loaded, so getting here costs no reads
     private void loadCartItems() {
         showLoading(true);
         binding.itemContainer.removeAllViews();
         totalPrice = 0.0;
         cartItems.clear();
+        cartDocIds.clear();
+        orderLines.clear();
+
+        CartStore.getInstance(this).get(userId, (lines, total) -> {
+            if (binding == null) return;
+            if (lines.isEmpty()) {
+                showLoading(false);
+                Toast.makeText(this, "Your cart is empty", Toast.LENGTH_SHORT).show();
+                finish();
+                return;
+            }
 
-        db.collection("users")
-                .document(userId)
-                .collection("cart")
-                .get()
-                .addOnSuccessListener(cartSnapshot -> {
-                    if (cartSnapshot.isEmpty()) {
-                        showLoading(false);
-                        Toast.makeText(this, "Your cart is empty", Toast.LENGTH_SHORT).show();
-                        finish();
-                        return;
-                    }
-
-                    List<String> menuItemIds = new ArrayList<>();
-                    Map<String, Double> quantityMap = new HashMap<>();
-
-                    for (DocumentSnapshot doc : cartSnapshot.getDocuments()) {
-                        String docId = doc.getString("docId");
-                        String shopIdFromCart = doc.getString("shopId");
-                        Double quantity = doc.getDouble("quantity");
-
-                        if (docId != null && quantity != null) {
-                            menuItemIds.add(docId);
-                            quantityMap.put(docId, quantity);
-
-                            Map<String, Object> item = new HashMap<>();
-                            item.put("docId", docId);
-                            item.put("shopId", shopIdFromCart);
-                            item.put("quantity", quantity);
-                            cartItems.add(item);
-                        }
-                    }
-
-                    loadMenuItems(menuItemIds, quantityMap);
-                })
-                .addOnFailureListener(e -> {
-                    showLoading(false);
-                    Log.e(TAG, "Error loading cart", e);
-                    Toast.makeText(this, "Failed to load cart", Toast.LENGTH_SHORT).show();
-                });
-    }
-
-    private void loadMenuItems(List<String> menuItemIds, Map<String, Double> quantityMap) {
-        db.collection("shops")
-                .get()
-                .addOnSuccessListener(shopsSnapshot -> {
-                    for (DocumentSnapshot shop : shopsSnapshot.getDocuments()) {
-                        String shopId = shop.getId();
-                        String shopName = shop.getString("name");
-
-                        db.collection("shops")
-                                .document(shopId)
-                                .collection("menu")
-                                .get()
-                                .addOnSuccessListener(menuSnapshot -> {
-                                    for (DocumentSnapshot menuItem : menuSnapshot.getDocuments()) {
-                                        if (menuItemIds.contains(menuItem.getId())) {
-                                            displayCartItem(menuItem, shopName, quantityMap.get(menuItem.getId()));
-                                        }
-                                    }
-                                    showLoading(false);
-                                    updateOrderSummary();
-                                });
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    showLoading(false);
-                    Log.e(TAG, "Error loading menu items", e);
-                });
+            for (CartStore.Line line : lines) {
+                Map<String, Object> item = new HashMap<>();
+                item.put("docId", line.getDocId());
+                item.put("shopId", line.getShopId());
+                item.put("quantity", line.getQuantity());
+                cartItems.add(item);
+                cartDocIds.add(line.getCartId());
+                orderLines.add(new OrderLines.Line(line.getDocId(), line.getShopId(), line.getName(),
+                        line.getPrice(), line.getShopName(), line.getImageUrl(), line.getQuantity()));
+                displayCartItem(line);
+            }
+            totalPrice = total;
+            showLoading(false);
+            updateOrderSummary();
+        }, e -> {
+            if (binding == null) return;
+            showLoading(false);
+            Toast.makeText(this, "Failed to load cart", Toast.LENGTH_SHORT).show();
+            finish();
+        });
     }
 
-    private void displayCartItem(DocumentSnapshot document, String shopName, Double quantity) {
-        String itemName = document.getString("name");
-        Double itemPrice = document.getDouble("price");
-        String imageUrl = document.getString("imageUrl");
-
-        if (itemName == null || itemPrice == null || quantity == null) {
-            return;
-        }
-
-        double subtotal = itemPrice * quantity;
-        totalPrice += subtotal;
-
+    private void displayCartItem(CartStore.Line line) {
         ItemCartBinding cartBinding = ItemCartBinding.inflate(getLayoutInflater());
 
+        String imageUrl = line.getImageUrl();
         if (imageUrl != null && !imageUrl.isEmpty()) {
             Glide.with(this)
                     .load(imageUrl)
@@ -417,10 +388,10 @@ public class CheckoutActivity extends AppCompatActivity {
                     .into(cartBinding.itemImage);
         }
 
-        cartBinding.itemName.setText(itemName);
-        cartBinding.itemPrice.setText(String.format("₱%.2f", itemPrice));
-        cartBinding.itemShop.setText(shopName);
-        cartBinding.quantity.setText(String.valueOf(quantity.intValue()));
+        cartBinding.itemName.setText(line.getName());
+        cartBinding.itemPrice.setText(String.format("₱%.2f", line.getPrice()));
+        cartBinding.itemShop.setText(line.getShopName());
+        cartBinding.quantity.setText(String.valueOf(line.getQuantity()));
 
         binding.itemContainer.addView(cartBinding.getRoot());
     }
@@ -507,15 +478,19 @@ public class CheckoutActivity extends AppCompatActivity {
     private void placeOrder() {
         binding.placeOrder.setEnabled(false);
         showLoading(true);
+        checkoutStartedAt = SystemClock.elapsedRealtime();
 
-        // Generate unique order ID and receipt number
-        String orderId = db.collection("orders").document().getId();
-        String receiptNumber = generateReceiptNumber();
+        // The order ID doubles as the idempotency key: a retry after a failed or unacknowledged
+        // attempt reuses it, so it can never produce a second order
+        if (pendingOrderId == null) {
+            pendingOrderId = db.collection("orders").document().getId();
+            pendingReceiptNumber = generateReceiptNumber();
+        }
 
         if (proofImageUri != null) {
-            uploadProofAndCreateOrder(orderId, receiptNumber);
+            uploadProofAndCreateOrder(pendingOrderId, pendingReceiptNumber);
         } else {
-            createOrder(orderId, receiptNumber, null);
+            createOrder(pendingOrderId, pendingReceiptNumber, null);
         }
     }
 
@@ -538,6 +513,7 @@ public class CheckoutActivity extends AppCompatActivity {
                     showLoading(false);
                     binding.placeOrder.setEnabled(true);
                     Log.e(TAG, "Upload failed", e);
+                    recordCheckoutLatency(false);
                     Toast.makeText(this, "Failed to upload proof", Toast.LENGTH_SHORT).show();
                 });
     }
@@ -570,83 +546,105 @@ public class CheckoutActivity extends AppCompatActivity {
             orderData.put("proofImageUrl", proofImageUrl);
         }
 
+        orderData.put(OrderLines.FIELD_LINES, OrderLines.toMaps(linesForOrder()));
+
+        List<Map<String, Object>> orderItems = buildOrderItems(orderId);
+        if (orderItems.isEmpty()) {
+            Log.e(TAG, "No cart items to save");
+        }
+
         Log.d(TAG, "Creating order with ID: " + orderId);
         Log.d(TAG, "Order Type: " + (isBuyNowFlow ? "Buy Now" : "Cart"));
-        Log.d(TAG, "Subtotal: " + subtotal);
-        Log.d(TAG, "Delivery Fee: " + deliveryFee);
         Log.d(TAG, "Total Price: " + totalCost);
 
-        // Save order to Firestore
-        db.collection("orders")
-                .document(orderId)
-                .set(orderData)
-                .addOnSuccessListener(unused -> {
-                    Log.d(TAG, "Order saved successfully to Firestore");
-                    saveOrderItems(orderId);
+        DocumentReference orderRef = db.collection("orders").document(orderId);
+        CollectionReference cartRef = db.collection("users").document(userId).collection("cart");
+
+        // Order, line items, cart cleanup, revenue rollup and admin notification commit together
+        // or not at all. The rollup amount mirrors the dashboard's totalPrice + deliveryFee sum.
+        db.runTransaction(transaction -> {
+                    // A retry whose earlier attempt did commit finds the order and writes nothing
+                    if (transaction.get(orderRef).exists()) {
+                        return false;
+                    }
+
+                    transaction.set(orderRef, orderData);
+                    for (int i = 0; i < orderItems.size(); i++) {
+                        // Keyed by line position: two cart rows for the same menu item stay two lines,
+                        // and orderItems is built once, so a retried attempt writes the same keys
+                        transaction.set(orderRef.collection("items").document(String.valueOf(i)), orderItems.get(i));
+                    }
+                    for (String cartDocId : cartDocIds) {
+                        transaction.delete(cartRef.document(cartDocId));
+                    }
+                    RevenueRollup.addPayment(db, transaction, selectedPaymentMethod, totalCost + deliveryFee, new Date());
+                    transaction.set(db.collection("admin_notifications").document(orderId),
+                            buildNotification(orderId, FieldValue.serverTimestamp()));
+                    return true;
+                })
+                .addOnSuccessListener(placedNow -> {
+                    Log.d(TAG, placedNow ? "Order saved successfully to Firestore" : "Order already placed, not writing again");
+                    recordCheckoutLatency(true);
+                    mirrorToRealtimeDatabase(orderId, receiptNumber);
+                    navigateToSuccess(orderId, receiptNumber);
                 })
                 .addOnFailureListener(e -> {
                     showLoading(false);
                     binding.placeOrder.setEnabled(true);
                     Log.e(TAG, "Failed to save order", e);
+                    recordCheckoutLatency(false);
                     Toast.makeText(this, "Failed to save order", Toast.LENGTH_SHORT).show();
                 });
     }
 
-    private void saveOrderItems(String orderId) {
+    private List<OrderLines.Line> linesForOrder() {
         if (isBuyNowFlow) {
-            // NEW: Save single item for Buy Now
-            saveBuyNowItem(orderId);
-        } else {
-            // Save cart items
-            if (cartItems.isEmpty()) {
-                Log.e(TAG, "No cart items to save");
-                clearCart(orderId);
-                return;
-            }
+            return Collections.singletonList(new OrderLines.Line(itemDocId, shopId, itemName, itemPrice,
+                    itemShopName, itemImageUrl, quantity));
+        }
+        return orderLines;
+    }
 
-            // Save each cart item as a subcollection
+    private List<Map<String, Object>> buildOrderItems(String orderId) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        if (isBuyNowFlow) {
+            Map<String, Object> itemData = new HashMap<>();
+            itemData.put("docId", itemDocId);
+            itemData.put("shopId", shopId);
+            itemData.put("quantity", quantity);
+            itemData.put("itemName", itemName);
+            itemData.put("itemPrice", itemPrice);
+            itemData.put("orderId", orderId);
+            items.add(itemData);
+        } else {
+            // orderId lets admin lists batch-load items
             for (Map<String, Object> item : cartItems) {
-                db.collection("orders")
-                        .document(orderId)
-                        .collection("items")
-                        .add(item)
-                        .addOnFailureListener(e -> {
-                            Log.e(TAG, "Failed to save order item", e);
-                        });
+                Map<String, Object> itemData = new HashMap<>(item);
+                itemData.put("orderId", orderId);
+                items.add(itemData);
             }
-
-            // Also save to Realtime Database for admin panel
-            saveToRealtimeDatabase(orderId);
         }
+        return items;
     }
 
-    // NEW: Method to save single Buy Now item
-    private void saveBuyNowItem(String orderId) {
-        Map<String, Object> itemData = new HashMap<>();
-        itemData.put("docId", itemDocId);
-        itemData.put("shopId", shopId);
-        itemData.put("quantity", quantity);
-        itemData.put("itemName", itemName);
-        itemData.put("itemPrice", itemPrice);
-
-        db.collection("orders")
-                .document(orderId)
-                .collection("items")
-                .add(itemData)
-                .addOnSuccessListener(documentReference -> {
-                    Log.d(TAG, "Buy Now item saved successfully");
-                    saveToRealtimeDatabase(orderId);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to save Buy Now item", e);
-                    // Still proceed to save to Realtime DB
-                    saveToRealtimeDatabase(orderId);
-                });
+    private Map<String, Object> buildNotification(String orderId, Object timestamp) {
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("orderId", orderId);
+        notification.put("type", "new_order");
+        notification.put("timestamp", timestamp);
+        notification.put("read", false);
+        notification.put("userId", userId);
+        notification.put("userName", userName);
+        notification.put("name", addressData.get("name"));
+        notification.put("totalPrice", totalPrice + DELIVERY_FEE);
+        notification.put("status", "Pending");
+        notification.put("orderType", isBuyNowFlow ? "buy_now" : "cart");
+        return notification;
     }
 
-    private void saveToRealtimeDatabase(String orderId) {
-        DatabaseReference orderRef = realtimeDb.getReference("orders").child(orderId);
-
+    // The admin panel's Realtime Database copies. They live outside Firestore, so they cannot join
+    // the transaction; both are keyed by order ID so a retry overwrites rather than duplicates.
+    private void mirrorToRealtimeDatabase(String orderId, String receiptNumber) {
         double subtotal = totalPrice;
         double deliveryFee = DELIVERY_FEE;
         double totalCost = subtotal + deliveryFee;
@@ -664,121 +662,47 @@ public class CheckoutActivity extends AppCompatActivity {
         orderData.put("orderTimestamp", System.currentTimeMillis());
         orderData.put("status", "Pending");
         orderData.put("paymentMethod", selectedPaymentMethod);
-        orderData.put("receiptNumber", generateReceiptNumber());
+        orderData.put("receiptNumber", receiptNumber);
         orderData.put("orderType", isBuyNowFlow ? "buy_now" : "cart");
 
-        orderRef.setValue(orderData)
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "Order saved to Realtime Database");
-                    if (isBuyNowFlow) {
-                        // No cart to clear for Buy Now
-                        createAdminNotification(orderId);
-                    } else {
-                        clearCart(orderId);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to save to Realtime Database", e);
-                    if (isBuyNowFlow) {
-                        createAdminNotification(orderId);
-                    } else {
-                        clearCart(orderId);
-                    }
-                });
-    }
-
-    private void clearCart(String orderId) {
-        db.collection("users")
-                .document(userId)
-                .collection("cart")
-                .get()
-                .addOnSuccessListener(snapshot -> {
-                    if (snapshot.isEmpty()) {
-                        Log.d(TAG, "Cart already empty");
-                        createAdminNotification(orderId);
-                        return;
-                    }
-
-                    // Delete all cart items
-                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
-                        doc.getReference().delete();
-                    }
-
-                    Log.d(TAG, "Cart cleared successfully");
-                    createAdminNotification(orderId);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to clear cart", e);
-                    // Still proceed to create notification
-                    createAdminNotification(orderId);
-                });
-    }
-
-    private void createAdminNotification(String orderId) {
-        // Create notification in Realtime Database
-        DatabaseReference notificationsRef = realtimeDb.getReference("admin_notifications");
-        String notificationId = notificationsRef.push().getKey();
-
-        Map<String, Object> notification = new HashMap<>();
-        notification.put("orderId", orderId);
-        notification.put("type", "new_order");
-        notification.put("timestamp", System.currentTimeMillis());
-        notification.put("read", false);
-        notification.put("userId", userId);
-        notification.put("userName", userName);
-        notification.put("name", addressData.get("name"));
-        notification.put("totalPrice", totalPrice + DELIVERY_FEE);
-        notification.put("status", "Pending");
-        notification.put("orderType", isBuyNowFlow ? "buy_now" : "cart");
-
-        if (notificationId != null) {
-            notificationsRef.child(notificationId).setValue(notification)
-                    .addOnSuccessListener(aVoid -> {
-                        Log.d(TAG, "Admin notification created in Realtime DB");
-                        // Also create in Firestore for backup
-                        createFirestoreNotification(orderId);
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(TAG, "Failed to create notification in Realtime DB", e);
-                        createFirestoreNotification(orderId);
-                    });
-        } else {
-            createFirestoreNotification(orderId);
+        // Shaped like models.OrderItem so the admin order list renders without item lookups
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (OrderLines.Line line : linesForOrder()) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("productId", line.getDocId());
+            item.put("productName", line.getName());
+            item.put("quantity", line.getQuantity());
+            item.put("price", line.getUnitPrice());
+            item.put("subtotal", line.getSubtotal());
+            item.put("imageUrl", line.getImageUrl());
+            items.add(item);
         }
+        orderData.put("items", items);
+
+        realtimeDb.getReference("orders").child(orderId).setValue(orderData)
+                .addOnFailureListener(e -> Log.e(TAG, "Failed to save to Realtime Database", e));
+        realtimeDb.getReference("admin_notifications").child(orderId)
+                .setValue(buildNotification(orderId, System.currentTimeMillis()))
+                .addOnFailureListener(e -> Log.e(TAG, "Failed to create notification in Realtime DB", e));
     }
 
-    private void createFirestoreNotification(String orderId) {
-        Map<String, Object> notification = new HashMap<>();
-        notification.put("orderId", orderId);
-        notification.put("type", "new_order");
-        notification.put("timestamp", FieldValue.serverTimestamp());
-        notification.put("read", false);
-        notification.put("userId", userId);
-        notification.put("userName", userName);
-        notification.put("name", addressData.get("name"));
-        notification.put("totalPrice", totalPrice + DELIVERY_FEE);
-        notification.put("status", "Pending");
-        notification.put("orderType", isBuyNowFlow ? "buy_now" : "cart");
+    // One number per attempt: tap on Place Order to the order being committed (or failing),
+    // proof upload included
+    private void recordCheckoutLatency(boolean success) {
+        long latencyMs = SystemClock.elapsedRealtime() - checkoutStartedAt;
+        Log.i(TAG, "checkout_latency_ms=" + latencyMs + " success=" + success);
 
-        db.collection("admin_notifications")
-                .add(notification)
-                .addOnSuccessListener(doc -> {
-                    Log.d(TAG, "Admin notification created in Firestore");
-                    navigateToSuccess(orderId);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to create notification in Firestore", e);
-                    // Still navigate to success
-                    navigateToSuccess(orderId);
-                });
+        Bundle params = new Bundle();
+        params.putLong("latency_ms", latencyMs);
+        params.putString("payment_method", selectedPaymentMethod);
+        params.putString("order_type", isBuyNowFlow ? "buy_now" : "cart");
+        params.putBoolean("success", success);
+        FirebaseAnalytics.getInstance(this).logEvent("checkout_latency", params);
     }
 
-    private void navigateToSuccess(String orderId) {
+    private void navigateToSuccess(String orderId, String receiptNumber) {
         showLoading(false);
 
-        // Get receipt number for success screen
-        String receiptNumber = generateReceiptNumber();
-
         Intent intent = new Intent(this, OrderSuccessActivity.class);
         intent.putExtra("orderId", orderId);
         intent.putExtra("receiptNumber", receiptNumber);
@@ -803,6 +727,13 @@ public class CheckoutActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putString(STATE_PENDING_ORDER_ID, pendingOrderId);
+        outState.putString(STATE_PENDING_RECEIPT, pendingReceiptNumber);
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
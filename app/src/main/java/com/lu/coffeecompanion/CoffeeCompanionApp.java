@@ -0,0 +1,30 @@
+package com.lu.coffeecompanion;
+
+import android.app.Application;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.PersistentCacheSettings;
+import com.lu.coffeecompanion.data.CatalogBundle;
+
+public class CoffeeCompanionApp extends Application {
+
+    // Room for the whole catalog plus a user's order history
+    private static final long FIRESTORE_CACHE_BYTES = 100L * 1024 * 1024;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // Must run before anything else touches Firestore; settings are locked after first use
+        FirebaseFirestoreSettings settings = new FirebaseFirestoreSettings.Builder()
+                .setLocalCacheSettings(PersistentCacheSettings.newBuilder()
+                        .setSizeBytes(FIRESTORE_CACHE_BYTES)
+                        .build())
+                .build();
+        FirebaseFirestore.getInstance().setFirestoreSettings(settings);
+
+        // First screens read the shipped catalog until their first server fetch
+        CatalogBundle.loadAtStartup(this);
+    }
+}
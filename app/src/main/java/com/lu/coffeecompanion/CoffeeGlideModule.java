@@ -0,0 +1,73 @@
+package com.lu.coffeecompanion;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+
+// Glide configuration for the whole app. Cache sizes follow the device class so low-RAM phones
+// keep fewer decoded photos around, product photos decode as RGB_565 (they are opaque JPEG/WebP,
+// so the alpha byte of ARGB_8888 is wasted), and every request reports to ImageCacheStats.
+@GlideModule
+public final class CoffeeGlideModule extends AppGlideModule {
+
+    private static final String TAG = "CoffeeGlideModule";
+
+    private static final long MB = 1024L * 1024;
+    private static final long DISK_CACHE_LOW_RAM = 50 * MB;
+    private static final long DISK_CACHE_DEFAULT = 150 * MB;
+    private static final long DISK_CACHE_LARGE = 250 * MB;
+
+    // Per-app heap (ActivityManager.getMemoryClass) at or above which a device counts as large
+    private static final int LARGE_MEMORY_CLASS_MB = 256;
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        boolean lowRam = activityManager == null || activityManager.isLowRamDevice();
+        boolean large = !lowRam && activityManager.getMemoryClass() >= LARGE_MEMORY_CLASS_MB;
+
+        // Memory cache and bitmap pool measured in screens of pixels; RGB_565 halves each bitmap
+        // so both go further
+        MemorySizeCalculator calculator = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(lowRam ? 1 : large ? 3 : 2)
+                .setBitmapPoolScreens(lowRam ? 1 : large ? 3 : 2)
+                .build();
+        builder.setMemoryCache(new LruResourceCache(calculator.getMemoryCacheSize()));
+        builder.setBitmapPool(new LruBitmapPool(calculator.getBitmapPoolSize()));
+
+        long diskCacheBytes = lowRam ? DISK_CACHE_LOW_RAM : large ? DISK_CACHE_LARGE : DISK_CACHE_DEFAULT;
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, diskCacheBytes));
+
+        builder.setDefaultRequestOptions(new RequestOptions()
+                .format(DecodeFormat.PREFER_RGB_565)
+                .diskCacheStrategy(DiskCacheStrategy.AUTOMATIC)
+                .placeholder(R.drawable.image_placeholder)
+                .error(R.drawable.image_placeholder));
+
+        builder.addGlobalRequestListener(ImageCacheStats.getInstance());
+        builder.setLogLevel(Log.ERROR);
+
+        Log.d(TAG, "Glide caches: memory " + calculator.getMemoryCacheSize() / MB + " MB, bitmap pool "
+                + calculator.getBitmapPoolSize() / MB + " MB, disk "
+                + diskCacheBytes / MB + " MB" + (lowRam ? " (low RAM)" : large ? " (large)" : ""));
+    }
+
+    // All modules are declared here; skip scanning library manifests for legacy ones
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
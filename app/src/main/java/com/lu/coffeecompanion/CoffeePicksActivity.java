@@ -2,6 +2,7 @@ package com.lu.coffeecompanion;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.View;
 import android.widget.ImageButton;
 import android.widget.ImageView;
@@ -19,24 +20,35 @@ import com.bumptech.glide.Glide;
 import com.google.android.material.tabs.TabLayout;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
-import com.google.firebase.firestore.QuerySnapshot;
+import com.lu.coffeecompanion.data.CatalogCache;
+import com.lu.coffeecompanion.data.CatalogSync;
+import com.lu.coffeecompanion.data.ImageRenditions;
 import com.lu.coffeecompanion.databinding.ActivityCoffeePicksBinding;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class CoffeePicksActivity extends AppCompatActivity {
 
+    private static final String TAG = "CoffeePicksActivity";
+    private static final int PAGE_SIZE = 20;
+    // Start the next page when the scroll view is this close to its bottom, in px
+    private static final int LOAD_MORE_THRESHOLD_PX = 600;
+
     ActivityCoffeePicksBinding binding;
     FirebaseFirestore db;
     FirebaseAuth mAuth;
     FirebaseUser currentUser;
     String pickName = null;
 
+    private Query picksQuery;
+    private DocumentSnapshot cursor;
+    private boolean loadingPage = false;
+    private boolean endReached = false;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -64,15 +76,17 @@ public class CoffeePicksActivity extends AppCompatActivity {
         String docId = intent.getStringExtra("docId");
 
         if (docId != null) {
-            db.collection("coffees").document(docId).get().addOnCompleteListener(task -> {
-                if (task.isSuccessful()) {
-                    DocumentSnapshot document = task.getResult();
-                    pickName = document.getString("name");
-                    binding.title.setText(pickName);
-                    // Instead of showing shops in tabs, directly fetch all menus
-                    fetchAllMenuItems();
-                }
-            });
+            CatalogCache.getInstance(this)
+                    .get(db.collection("coffees").document(docId), CatalogCache.COFFEES)
+                    .addOnCompleteListener(task -> {
+                        if (task.isSuccessful()) {
+                            DocumentSnapshot document = task.getResult();
+                            pickName = document.getString("name");
+                            binding.title.setText(pickName);
+                            // Instead of showing shops in tabs, directly fetch all menus
+                            fetchAllMenuItems();
+                        }
+                    });
         } else {
             Toast.makeText(this, "Item fetching failed. Please try again.", Toast.LENGTH_SHORT).show();
         }
@@ -80,75 +94,81 @@ public class CoffeePicksActivity extends AppCompatActivity {
         // Hide the TabLayout since we don't need it anymore
         binding.tabLayout.setVisibility(View.GONE);
 
+        binding.scrollView.setOnScrollChangeListener((v, scrollX, scrollY, oldScrollX, oldScrollY) -> {
+            if (scrollY <= oldScrollY || endReached || loadingPage || picksQuery == null) return;
+            View content = binding.scrollView.getChildAt(0);
+            if (content.getBottom() - (scrollY + binding.scrollView.getHeight()) < LOAD_MORE_THRESHOLD_PX) {
+                loadNextPage();
+            }
+        });
+
         binding.back.setOnClickListener(v -> {
             finish();
         });
     }
 
+    // Every shop's items in this category from one collection-group query, cheapest first, a page
+    // at a time. Needs the menu category + price collection-group index.
     private void fetchAllMenuItems() {
         binding.mainContainer.removeAllViews();
-        binding.progressBar.setVisibility(View.VISIBLE);
-
-        db.collection("shops").get().addOnCompleteListener(task -> {
-            if (task.isSuccessful()) {
-                QuerySnapshot querySnapshot = task.getResult();
-                List<String> shopIds = new ArrayList<>();
+        picksQuery = db.collectionGroup("menu")
+                .whereEqualTo("category", pickName)
+                .orderBy("price");
+        cursor = null;
+        endReached = false;
+        loadNextPage();
+    }
 
-                // First, collect all shop IDs
-                for (QueryDocumentSnapshot shopDocument : querySnapshot) {
-                    shopIds.add(shopDocument.getId());
-                }
+    private void loadNextPage() {
+        if (loadingPage || endReached) return;
+        loadingPage = true;
+        binding.progressBar.setVisibility(View.VISIBLE);
 
-                // Counter to track how many shops have been processed
-                final int[] processedCount = {0};
-                final int totalShops = shopIds.size();
+        // Firestore breaks price ties by document path, so the cursor order is stable
+        Query page = cursor != null ? picksQuery.startAfter(cursor) : picksQuery;
+        page.limit(PAGE_SIZE)
+                .get()
+                .addOnSuccessListener(querySnapshot -> {
+                    if (isDestroyed()) return;
+                    loadingPage = false;
+                    binding.progressBar.setVisibility(View.GONE);
 
-                if (totalShops == 0) {
+                    List<DocumentSnapshot> docs = querySnapshot.getDocuments();
+                    if (!docs.isEmpty()) {
+                        cursor = docs.get(docs.size() - 1);
+                    }
+                    endReached = docs.size() < PAGE_SIZE;
+
+                    for (DocumentSnapshot menuDocument : docs) {
+                        if (Boolean.TRUE.equals(menuDocument.getBoolean(CatalogSync.FIELD_DELETED))) continue;
+                        // shops/{shopId}/menu/{itemId}
+                        DocumentReference shop = menuDocument.getReference().getParent().getParent();
+                        if (shop != null) {
+                            displayMenuItem(menuDocument, shop.getId());
+                        }
+                    }
+
+                    if (binding.mainContainer.getChildCount() == 0) {
+                        showNoItemsMessage();
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    if (isDestroyed()) return;
+                    Log.e(TAG, "Error loading picks: " + e.getMessage(), e);
+                    loadingPage = false;
                     binding.progressBar.setVisibility(View.GONE);
-                    showNoItemsMessage();
-                    return;
-                }
-
-                // Fetch menu items from each shop
-                for (String shopId : shopIds) {
-                    db.collection("shops").document(shopId).collection("menu")
-                            .whereEqualTo("category", pickName)
-                            .get()
-                            .addOnCompleteListener(menuTask -> {
-                                if (menuTask.isSuccessful()) {
-                                    QuerySnapshot menuSnapshot = menuTask.getResult();
-                                    for (QueryDocumentSnapshot menuDocument : menuSnapshot) {
-                                        String category = menuDocument.getString("category");
-                                        if (category != null && category.equals(pickName)) {
-                                            displayMenuItem(menuDocument, shopId);
-                                        }
-                                    }
-                                }
-
-                                processedCount[0]++;
-                                // Check if all shops have been processed
-                                if (processedCount[0] == totalShops) {
-                                    binding.progressBar.setVisibility(View.GONE);
-
-                                    // Check if any items were added
-                                    if (binding.mainContainer.getChildCount() == 0) {
-                                        showNoItemsMessage();
-                                    }
-                                }
-                            });
-                }
-            } else {
-                binding.progressBar.setVisibility(View.GONE);
-                Toast.makeText(this, "Failed to fetch shops", Toast.LENGTH_SHORT).show();
-            }
-        });
+                    Toast.makeText(this, "Failed to fetch items", Toast.LENGTH_SHORT).show();
+                });
     }
 
-    private void displayMenuItem(QueryDocumentSnapshot document, String shopId) {
+    private void displayMenuItem(DocumentSnapshot document, String shopId) {
+        // Called from Firestore callbacks that can land after the screen is gone
+        if (isDestroyed()) return;
         String itemName = document.getString("name");
         Double priceDouble = document.getDouble("price");
         String itemDescription = document.getString("description");
-        String imageUrl = document.getString("imageUrl");
+        // item_horizontalmenu shows a 100dp square image
+        String imageUrl = ImageRenditions.pick(document, ImageRenditions.dpToPx(this, 100));
         String itemId = document.getId();
 
         // Handle null values
@@ -169,7 +189,7 @@ public class CoffeePicksActivity extends AppCompatActivity {
         descriptionTextView.setText(itemDescription);
 
         if (imageUrl != null && !imageUrl.isEmpty()) {
-            Glide.with(getApplicationContext()).load(imageUrl).into(imageView);
+            Glide.with(this).load(imageUrl).into(imageView);
         }
 
         binding.mainContainer.addView(itemView);
@@ -1,5 +1,6 @@
 package com.lu.coffeecompanion;
 
+import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
 import android.widget.Toast;
@@ -13,15 +14,12 @@ import androidx.core.view.WindowInsetsCompat;
 import com.bumptech.glide.Glide;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
-import com.google.firebase.firestore.QuerySnapshot;
+import com.lu.coffeecompanion.data.CartStore;
+import com.lu.coffeecompanion.data.MenuItemRepository;
 import com.lu.coffeecompanion.databinding.ActivityItemBinding;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collections;
 
 public class EditItemCartActivity extends AppCompatActivity {
 
@@ -29,8 +27,8 @@ public class EditItemCartActivity extends AppCompatActivity {
     FirebaseFirestore db;
     FirebaseAuth mAuth;
     FirebaseUser currentUser;
-    String userId, currentItemId, forDelete;
-    double quantityDouble;
+    String userId;
+    CartStore cartStore;
     int counter = 1;
 
     @Override
@@ -53,6 +51,7 @@ public class EditItemCartActivity extends AppCompatActivity {
             Intent intent = new Intent(getApplicationContext(), MainActivity.class);
             startActivity(intent);
             finish();
+            return;
         }
         else{
             userId = currentUser.getUid();
@@ -62,26 +61,23 @@ public class EditItemCartActivity extends AppCompatActivity {
 
         Intent getIntent = getIntent();
         String cartItemId = getIntent.getStringExtra("cartItemId");
-        String shopDocId = getIntent.getStringExtra("shopDocId");
-
-        db.collection("users")
-                .document(userId)
-                .collection("cart")
-                .whereEqualTo("docId", cartItemId)
-                .get()
-                .addOnCompleteListener(task2 -> {
-                    if (task2.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task2.getResult();
-                        if (querySnapshot != null && !querySnapshot.isEmpty()) {
-                            DocumentSnapshot document = querySnapshot.getDocuments().get(0);
-                            forDelete = document.getId();
-                            quantityDouble = document.getDouble("quantity");
-                            binding.quantity.setText(String.format("%d", (int) quantityDouble));
-                            currentItemId = document.getString("docId");
-                            fetchShopItem(shopDocId);
-                        }
-                    }
-                });
+        cartStore = CartStore.getInstance(this);
+
+        // Opened from the cart, so the shared copy is already loaded and this costs no reads
+        cartStore.get(userId, (lines, total) -> {
+            if (isDestroyed()) return;
+            CartStore.Line line = cartStore.line(cartItemId);
+            if (line == null) {
+                finish();
+                return;
+            }
+            binding.quantity.setText(String.valueOf(line.getQuantity()));
+            showItem(line);
+        }, e -> {
+            if (isDestroyed()) return;
+            Toast.makeText(this, "Failed to load cart", Toast.LENGTH_SHORT).show();
+            finish();
+        });
 
         binding.btnAdd.setOnClickListener(v -> {
             String counterString = binding.quantity.getText().toString().trim();
@@ -109,79 +105,34 @@ public class EditItemCartActivity extends AppCompatActivity {
             String counterString = binding.quantity.getText().toString().trim();
             counter = Integer.parseInt(counterString);
 
-            Map<String, Object> cartItem = new HashMap<>();
-            String currentCountString = binding.quantity.getText().toString().trim();
-            int currentCount = Integer.parseInt(currentCountString);
-            cartItem.put("docId", cartItemId);
-            cartItem.put("quantity", currentCount);
-            if(currentCount == 0){
-                db.collection("users")
-                        .document(userId)
-                        .collection("cart")
-                        .document(forDelete)
-                        .delete().addOnSuccessListener(aVoid -> {
-                            Toast.makeText(this, "Item removed from cart.", Toast.LENGTH_SHORT).show();
-                            finish();
-                        });
+            // The cart screen reflects the change right away; only a failed write is reported
+            Context appContext = getApplicationContext();
+            if(counter == 0){
+                cartStore.remove(Collections.singletonList(cartItemId))
+                        .addOnFailureListener(e -> Toast.makeText(appContext, "Unexpected error.", Toast.LENGTH_SHORT).show());
+                Toast.makeText(this, "Item removed from cart.", Toast.LENGTH_SHORT).show();
             }
             else{
-                db.collection("users")
-                        .document(userId)
-                        .collection("cart")
-                        .whereEqualTo("docId", cartItemId)
-                        .get()
-                        .addOnCompleteListener(task -> {
-                            if (task.isSuccessful() && !task.getResult().isEmpty()) {
-                                DocumentSnapshot document = task.getResult().getDocuments().get(0);
-                                String existingDocId = document.getId();
-
-                                db.collection("users")
-                                        .document(userId)
-                                        .collection("cart")
-                                        .document(existingDocId)
-                                        .update("quantity", currentCount)
-                                        .addOnSuccessListener(aVoid -> {
-                                            Toast.makeText(this, "Item quantity updated.", Toast.LENGTH_SHORT).show();
-                                            finish();
-                                        })
-                                        .addOnFailureListener(e -> {
-                                            Toast.makeText(this, "Unexpected error.", Toast.LENGTH_SHORT).show();
-                                        });
-                            }
-                        });
+                cartStore.setQuantity(cartItemId, counter)
+                        .addOnFailureListener(e -> Toast.makeText(appContext, "Unexpected error.", Toast.LENGTH_SHORT).show());
+                Toast.makeText(this, "Item quantity updated.", Toast.LENGTH_SHORT).show();
             }
-
-
+            finish();
         });
 
     }
 
-    public void fetchShopItem(String shopDocId){
-        db.collection("shops")
-                .document(shopDocId)
-                .collection("menu")
-                .document(currentItemId)
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        DocumentSnapshot document = task.getResult();
-                        if (document.exists()) {
-                            String itemName = (String) document.get("name");
-                            double itemPrice = document.getDouble("price");
-                            String itemDescription = (String) document.get("description");
-                            String imageUrl = (String) document.get("imageUrl");
-
-                            Glide.with(getApplicationContext()).load(imageUrl).into(binding.itemImage);
-                            binding.itemImage.setTextDirection(Integer.parseInt(itemName));
-                            binding.itemTitle.setText(itemName);
-                            binding.itemPrice.setText("₱" + String.format("%.2f", itemPrice));
-                            binding.itemDescription.setText(itemDescription);
-
-
-                        }
-                    }
-                });
+    // Name, price and image come with the cart line; the description from the shared menu index
+    private void showItem(CartStore.Line line) {
+        Glide.with(this).load(line.getImageUrl()).into(binding.itemImage);
+        binding.itemTitle.setText(line.getName());
+        binding.itemPrice.setText("₱" + String.format("%.2f", line.getPrice()));
+
+        MenuItemRepository.getInstance().getMenuItem(line.getDocId(), line.getShopId(), entry -> {
+            if (isDestroyed() || entry == null) return;
+            binding.itemDescription.setText(entry.getDocument().getString("description"));
+        });
     }
 
 
-}
\ No newline at end of file
+}
@@ -21,13 +21,18 @@ import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.lu.coffeecompanion.data.CatalogSync;
+import com.lu.coffeecompanion.data.ImageRenditions;
 import com.lu.coffeecompanion.databinding.HomeFragmentBinding;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class HomeFragment extends Fragment {
 
     private static final String TAG = "HomeFragment";
+    private static final int BEST_SELLER_LIMIT = 8;
+    private static final int REGULAR_LIMIT = 6;
     HomeFragmentBinding binding;
     FirebaseFirestore db;
     FirebaseAuth auth;
@@ -53,7 +58,7 @@ public class HomeFragment extends Fragment {
             @Override
             public void onRefresh() {
                 binding.itemContainer1.removeAllViews();
-                fetchBestSellers();
+                fetchBestSellers(true);
                 binding.swipeRefreshLayout.setRefreshing(false);
             }
         });
@@ -63,7 +68,7 @@ public class HomeFragment extends Fragment {
             startActivity(intent);
         });
 
-        fetchBestSellers();
+        fetchBestSellers(false);
         return binding.getRoot();
     }
 
@@ -73,47 +78,46 @@ public class HomeFragment extends Fragment {
         binding = null;
     }
 
-    private void fetchBestSellers() {
-        // Query for best sellers OR fallback to regular items
-        db.collection("coffees")
-                .whereEqualTo("bestSeller", true)
-                .orderBy("order")
-                .limit(8)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    if (queryDocumentSnapshots.isEmpty()) {
-                        // Fallback: get regular items
-                        fetchRegularItems();
+    // Best sellers, or the first regular items when none are flagged, from the synced coffees
+    private void fetchBestSellers(boolean refresh) {
+        CatalogSync.getInstance(requireContext())
+                .sync(db.collection("coffees"), refresh)
+                .addOnSuccessListener(coffees -> {
+                    List<DocumentSnapshot> bestSellers = new ArrayList<>();
+                    for (DocumentSnapshot document : CatalogSync.sortedBy(coffees, "order")) {
+                        if (Boolean.TRUE.equals(document.getBoolean("bestSeller"))
+                                && bestSellers.size() < BEST_SELLER_LIMIT) {
+                            bestSellers.add(document);
+                        }
+                    }
+                    if (bestSellers.isEmpty()) {
+                        fetchRegularItems(coffees);
                         return;
                     }
 
-                    displayItems(queryDocumentSnapshots.getDocuments(), true);
+                    displayItems(bestSellers, true);
                 })
                 .addOnFailureListener(e -> {
+                    if (!isAdded()) return;
                     Toast.makeText(requireContext(), "Failed to load items", Toast.LENGTH_SHORT).show();
-                    fetchRegularItems();
                 });
     }
 
-    private void fetchRegularItems() {
-        db.collection("coffees")
-                .orderBy("order")
-                .limit(6)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    displayItems(queryDocumentSnapshots.getDocuments(), false);
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(requireContext(), "Failed to load items", Toast.LENGTH_SHORT).show();
-                });
+    private void fetchRegularItems(List<DocumentSnapshot> coffees) {
+        List<DocumentSnapshot> sorted = CatalogSync.sortedBy(coffees, "order");
+        displayItems(sorted.subList(0, Math.min(REGULAR_LIMIT, sorted.size())), false);
     }
 
     private void displayItems(List<DocumentSnapshot> items, boolean isBestSeller) {
+        // The query can finish after the user has left the tab
+        if (binding == null) return;
         binding.itemContainer1.removeAllViews();
+        // item_coffee_vertical_simple shows a 100dp square image
+        int tileImagePx = ImageRenditions.dpToPx(requireContext(), 100);
 
         for (DocumentSnapshot document : items) {
             String coffeeName = document.getString("name");
-            String imageUrl = document.getString("imageUrl");
+            String imageUrl = ImageRenditions.pick(document, tileImagePx);
             String docId = document.getId();
             String description = document.getString("description");
 
@@ -133,9 +137,8 @@ public class HomeFragment extends Fragment {
             }
 
             if (imageUrl != null && !imageUrl.isEmpty()) {
-                Glide.with(requireContext())
+                Glide.with(this)
                         .load(imageUrl)
-                        .placeholder(R.drawable.image_placeholder)
                         .into(coffeeImage);
             }
 
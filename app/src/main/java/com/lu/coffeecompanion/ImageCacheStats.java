@@ -0,0 +1,89 @@
+package com.lu.coffeecompanion;
+
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Where each finished Glide request got its image from, registered as a global listener by
+// CoffeeGlideModule. Memory and disk count as hits, network as a miss. Read on the debug
+// image cache screen.
+public class ImageCacheStats implements RequestListener<Object> {
+
+    private static ImageCacheStats instance;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong networkLoads = new AtomicLong();
+    private final AtomicLong localLoads = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private ImageCacheStats() {}
+
+    public static synchronized ImageCacheStats getInstance() {
+        if (instance == null) {
+            instance = new ImageCacheStats();
+        }
+        return instance;
+    }
+
+    @Override
+    public boolean onResourceReady(Object resource, Object model, Target<Object> target,
+                                   DataSource dataSource, boolean isFirstResource) {
+        switch (dataSource) {
+            case MEMORY_CACHE:
+                memoryHits.incrementAndGet();
+                break;
+            case RESOURCE_DISK_CACHE:
+            case DATA_DISK_CACHE:
+                diskHits.incrementAndGet();
+                break;
+            case REMOTE:
+                networkLoads.incrementAndGet();
+                break;
+            default:
+                // Content Uris and drawables; neither a hit nor a network trip
+                localLoads.incrementAndGet();
+                break;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean onLoadFailed(@Nullable GlideException e, Object model, Target<Object> target,
+                                boolean isFirstResource) {
+        failures.incrementAndGet();
+        return false;
+    }
+
+    public long getMemoryHits() { return memoryHits.get(); }
+    public long getDiskHits() { return diskHits.get(); }
+    public long getNetworkLoads() { return networkLoads.get(); }
+    public long getLocalLoads() { return localLoads.get(); }
+    public long getFailures() { return failures.get(); }
+
+    public double getHitRatio() {
+        long hits = memoryHits.get() + diskHits.get();
+        long total = hits + networkLoads.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public void reset() {
+        memoryHits.set(0);
+        diskHits.set(0);
+        networkLoads.set(0);
+        localLoads.set(0);
+        failures.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "Hit ratio %.0f%%\nMemory hits %d\nDisk hits %d\nNetwork loads %d\nLocal loads %d\nFailures %d",
+                getHitRatio() * 100, getMemoryHits(), getDiskHits(), getNetworkLoads(), getLocalLoads(), getFailures());
+    }
+}
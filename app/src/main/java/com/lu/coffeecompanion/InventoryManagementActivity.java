@@ -3,10 +3,8 @@ package com.lu.coffeecompanion;
 import android.app.AlertDialog;
 import android.app.ProgressDialog;
 import android.content.Intent;
-import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Bundle;
-import android.provider.MediaStore;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -19,26 +17,31 @@ import android.widget.Toast;
 import android.graphics.Typeface;
 import androidx.core.content.ContextCompat;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
-import com.google.firebase.storage.UploadTask;
+import com.lu.coffeecompanion.adapters.StableIds;
+import com.lu.coffeecompanion.data.CatalogSync;
+import com.lu.coffeecompanion.data.ImageRenditions;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 public class InventoryManagementActivity extends AppCompatActivity {
 
@@ -48,15 +51,19 @@ public class InventoryManagementActivity extends AppCompatActivity {
     private List<InventoryItem> inventoryList;
     private TextView tvEmptyState;
     private static final int PICK_IMAGE_REQUEST = 1001;
-    private Bitmap selectedImageBitmap;
     private ImageView currentDialogImageView;
     private androidx.appcompat.app.AlertDialog currentAddDialog;
-    private Bitmap dialogSelectedBitmap;
+    // Only the picked image's Uri is kept; decoding happens in ImageUploadPipeline at upload time
+    private Uri dialogSelectedImageUri;
 
     // Add these constants at the top of InventoryManagementActivity class
     private static final int LOW_STOCK_THRESHOLD = 10;
     private static final int CRITICAL_STOCK_THRESHOLD = 3;
 
+    // ivProductImage sizes in item_inventory and dialog_add_inventory_item, for picking a rendition
+    private static final int ROW_IMAGE_DP = 40;
+    private static final int DIALOG_IMAGE_DP = 100;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -98,7 +105,7 @@ public class InventoryManagementActivity extends AppCompatActivity {
         ImageView ivProductImage = dialogView.findViewById(R.id.ivProductImage);
         MaterialButton btnSelectImage = dialogView.findViewById(R.id.btnSelectImage);
 
-        dialogSelectedBitmap = null;
+        dialogSelectedImageUri = null;
 
         btnSelectImage.setOnClickListener(v -> {
             Intent intent = new Intent(Intent.ACTION_PICK);
@@ -121,8 +128,8 @@ public class InventoryManagementActivity extends AppCompatActivity {
                 int quantity = Integer.parseInt(quantityStr);
                 double price = Double.parseDouble(priceStr);
 
-                if (dialogSelectedBitmap != null) {
-                    uploadImageAndAddItem(dialogSelectedBitmap, productName, quantity, price);
+                if (dialogSelectedImageUri != null) {
+                    uploadImageAndAddItem(dialogSelectedImageUri, productName, quantity, price);
                 } else {
                     addInventoryItem(productName, quantity, price, null);
                 }
@@ -136,48 +143,31 @@ public class InventoryManagementActivity extends AppCompatActivity {
         currentAddDialog.show();
     }
 
-    private void uploadImageAndAddItem(Bitmap imageBitmap, String productName, int quantity, double price) {
+    private void uploadImageAndAddItem(Uri imageUri, String productName, int quantity, double price) {
         Log.d("INVENTORY", "Starting image upload for: " + productName);
         ProgressDialog progressDialog = new ProgressDialog(this);
         progressDialog.setMessage("Uploading image...");
         progressDialog.setCancelable(false);
         progressDialog.show();
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        imageBitmap.compress(Bitmap.CompressFormat.JPEG, 80, baos);
-        byte[] imageData = baos.toByteArray();
-        Log.d("INVENTORY", "Image size: " + imageData.length + " bytes");
-
-        String filename = "inventory_" + System.currentTimeMillis() + ".jpg";
-        Log.d("INVENTORY", "Filename: " + filename);
-
-        StorageReference storageRef = FirebaseStorage.getInstance().getReference();
-        StorageReference imageRef = storageRef.child("inventory_images/" + filename);
-
-        UploadTask uploadTask = imageRef.putBytes(imageData);
-        uploadTask.addOnSuccessListener(taskSnapshot -> {
-            Log.d("INVENTORY", "Image uploaded to storage");
-            imageRef.getDownloadUrl().addOnSuccessListener(uri -> {
-                String imageUrl = uri.toString();
-                Log.d("INVENTORY", "Got download URL: " + imageUrl);
-                progressDialog.dismiss();
-                addInventoryItem(productName, quantity, price, imageUrl);
-            }).addOnFailureListener(e -> {
-                progressDialog.dismiss();
-                Log.e("INVENTORY", "Failed to get download URL: " + e.getMessage(), e);
-                Toast.makeText(this, "Failed to get image URL", Toast.LENGTH_SHORT).show();
-            });
-        }).addOnFailureListener(e -> {
-            progressDialog.dismiss();
-            Log.e("INVENTORY", "Failed to upload image: " + e.getMessage(), e);
-            Toast.makeText(this, "Failed to upload image: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-        }).addOnProgressListener(snapshot -> {
-            double progress = (100.0 * snapshot.getBytesTransferred()) / snapshot.getTotalByteCount();
-            progressDialog.setMessage("Uploading: " + (int) progress + "%");
-        });
+        String baseName = "inventory_" + System.currentTimeMillis();
+        StorageReference folder = FirebaseStorage.getInstance().getReference().child("inventory_images");
+
+        ImageRenditions.upload(this, imageUri, folder, baseName)
+                .addOnSuccessListener(imageUrls -> {
+                    Log.d("INVENTORY", "Uploaded renditions: " + imageUrls.keySet());
+                    progressDialog.dismiss();
+                    addInventoryItem(productName, quantity, price, imageUrls);
+                })
+                .addOnFailureListener(e -> {
+                    progressDialog.dismiss();
+                    Log.e("INVENTORY", "Failed to upload image: " + e.getMessage(), e);
+                    Toast.makeText(this, "Failed to upload image: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                });
     }
 
-    private void addInventoryItem(String productName, int quantity, double price, String imageUrl) {
+    private void addInventoryItem(String productName, int quantity, double price, Map<String, String> imageUrls) {
+        String imageUrl = imageUrls != null ? imageUrls.get(ImageRenditions.FULL) : null;
         Log.d("INVENTORY", "Adding item - Name: " + productName + ", ImageURL: " + imageUrl);
 
         Map<String, Object> item = new HashMap<>();
@@ -186,9 +176,11 @@ public class InventoryManagementActivity extends AppCompatActivity {
         item.put("price", price);
         item.put("isArchived", false);
         item.put("timestamp", System.currentTimeMillis());
+        item.put(CatalogSync.FIELD_UPDATED_AT, FieldValue.serverTimestamp());
 
         if (imageUrl != null) {
-            item.put("imageUrl", imageUrl);
+            item.put(ImageRenditions.FIELD_URL, imageUrl);
+            item.put(ImageRenditions.FIELD_URLS, imageUrls);
             Log.d("INVENTORY", "Image URL added to Firestore: " + imageUrl);
         } else {
             Log.d("INVENTORY", "No image URL provided");
@@ -212,21 +204,16 @@ public class InventoryManagementActivity extends AppCompatActivity {
         super.onActivityResult(requestCode, resultCode, data);
 
         if (requestCode == PICK_IMAGE_REQUEST && resultCode == RESULT_OK && data != null) {
-            Uri imageUri = data.getData();
-            try {
-                selectedImageBitmap = MediaStore.Images.Media.getBitmap(getContentResolver(), imageUri);
-                dialogSelectedBitmap = selectedImageBitmap;
-
-                if (currentDialogImageView != null && selectedImageBitmap != null) {
-                    currentDialogImageView.setImageBitmap(selectedImageBitmap);
-                }
-
-                Log.d("INVENTORY", "Image selected and loaded successfully");
+            dialogSelectedImageUri = data.getData();
 
-            } catch (IOException e) {
-                Log.e("INVENTORY", "Error loading image: " + e.getMessage(), e);
-                Toast.makeText(this, "Error loading image", Toast.LENGTH_SHORT).show();
+            // Glide decodes the preview at the ImageView's size, off the main thread
+            if (currentDialogImageView != null && dialogSelectedImageUri != null) {
+                Glide.with(this)
+                        .load(dialogSelectedImageUri)
+                        .into(currentDialogImageView);
             }
+
+            Log.d("INVENTORY", "Image selected: " + dialogSelectedImageUri);
         }
     }
 
@@ -255,7 +242,7 @@ public class InventoryManagementActivity extends AppCompatActivity {
 
                         if (shouldAdd) {
                             InventoryItem item = new InventoryItem(id, productName,
-                                    quantity.intValue(), price, imageUrl);
+                                    quantity.intValue(), price, imageUrl, ImageRenditions.urlsOf(document));
                             inventoryList.add(item);
                             Log.d("INVENTORY", "Added to list: " + productName);
                         }
@@ -264,7 +251,7 @@ public class InventoryManagementActivity extends AppCompatActivity {
                     inventoryList.sort((item1, item2) ->
                             item1.productName.compareToIgnoreCase(item2.productName));
 
-                    adapter.notifyDataSetChanged();
+                    adapter.submitList(new ArrayList<>(inventoryList));
                     Log.d("INVENTORY", "Adapter notified, items: " + inventoryList.size());
 
                     if (inventoryList.isEmpty()) {
@@ -281,16 +268,16 @@ public class InventoryManagementActivity extends AppCompatActivity {
                 });
     }
 
-    private void archiveInventoryItem(String itemId, int position) {
+    private void archiveInventoryItem(String itemId) {
         new AlertDialog.Builder(this)
                 .setTitle("Archive Item")
                 .setMessage("Are you sure you want to archive this item?")
                 .setPositiveButton("Archive", (dialog, which) -> {
                     firestore.collection("inventory").document(itemId)
-                            .update("isArchived", true)
+                            .update("isArchived", true, CatalogSync.FIELD_UPDATED_AT, FieldValue.serverTimestamp())
                             .addOnSuccessListener(aVoid -> {
-                                inventoryList.remove(position);
-                                adapter.notifyItemRemoved(position);
+                                inventoryList.removeIf(item -> item.id.equals(itemId));
+                                adapter.submitList(new ArrayList<>(inventoryList));
                                 Toast.makeText(this, "Item archived", Toast.LENGTH_SHORT).show();
 
                                 if (inventoryList.isEmpty()) {
@@ -322,7 +309,8 @@ public class InventoryManagementActivity extends AppCompatActivity {
                         if (isArchived != null && isArchived &&
                                 productName != null && quantity != null && price != null) {
                             String imageUrl = document.getString("imageUrl");
-                            InventoryItem item = new InventoryItem(id, productName, quantity.intValue(), price, imageUrl);
+                            InventoryItem item = new InventoryItem(id, productName, quantity.intValue(), price,
+                                    imageUrl, ImageRenditions.urlsOf(document));
                             archivedItems.add(item);
                         }
                     }
@@ -360,7 +348,7 @@ public class InventoryManagementActivity extends AppCompatActivity {
 
     private void unarchiveItem(String itemId) {
         firestore.collection("inventory").document(itemId)
-                .update("isArchived", false)
+                .update("isArchived", false, CatalogSync.FIELD_UPDATED_AT, FieldValue.serverTimestamp())
                 .addOnSuccessListener(aVoid -> {
                     Toast.makeText(this, "Item unarchived successfully", Toast.LENGTH_SHORT).show();
                     loadInventory();
@@ -370,14 +358,18 @@ public class InventoryManagementActivity extends AppCompatActivity {
                 });
     }
 
-    private void updateInventoryItem(String itemId, String productName, int quantity, double price, String imageUrl) {
+    // imageUrls is null when the photo is unchanged, which leaves both image fields as they are
+    private void updateInventoryItem(String itemId, String productName, int quantity, double price,
+                                     Map<String, String> imageUrls) {
         Map<String, Object> updates = new HashMap<>();
         updates.put("productName", productName);
         updates.put("quantity", quantity);
         updates.put("price", price);
+        updates.put(CatalogSync.FIELD_UPDATED_AT, FieldValue.serverTimestamp());
 
-        if (imageUrl != null) {
-            updates.put("imageUrl", imageUrl);
+        if (imageUrls != null) {
+            updates.put(ImageRenditions.FIELD_URL, imageUrls.get(ImageRenditions.FULL));
+            updates.put(ImageRenditions.FIELD_URLS, imageUrls);
         }
 
         firestore.collection("inventory").document(itemId)
@@ -391,31 +383,25 @@ public class InventoryManagementActivity extends AppCompatActivity {
                 });
     }
 
-    private void uploadImageAndUpdateItem(Bitmap imageBitmap, String itemId, String productName, int quantity, double price) {
+    private void uploadImageAndUpdateItem(Uri imageUri, String itemId, String productName, int quantity, double price) {
         ProgressDialog progressDialog = new ProgressDialog(this);
         progressDialog.setMessage("Uploading image...");
         progressDialog.setCancelable(false);
         progressDialog.show();
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        imageBitmap.compress(Bitmap.CompressFormat.JPEG, 80, baos);
-        byte[] imageData = baos.toByteArray();
-
-        String filename = "inventory_" + System.currentTimeMillis() + ".jpg";
-        StorageReference storageRef = FirebaseStorage.getInstance().getReference();
-        StorageReference imageRef = storageRef.child("inventory_images/" + filename);
+        String baseName = "inventory_" + System.currentTimeMillis();
+        StorageReference folder = FirebaseStorage.getInstance().getReference().child("inventory_images");
 
-        UploadTask uploadTask = imageRef.putBytes(imageData);
-        uploadTask.addOnSuccessListener(taskSnapshot -> {
-            imageRef.getDownloadUrl().addOnSuccessListener(uri -> {
-                progressDialog.dismiss();
-                String imageUrl = uri.toString();
-                updateInventoryItem(itemId, productName, quantity, price, imageUrl);
-            });
-        }).addOnFailureListener(e -> {
-            progressDialog.dismiss();
-            Toast.makeText(this, "Failed to upload image", Toast.LENGTH_SHORT).show();
-        });
+        ImageRenditions.upload(this, imageUri, folder, baseName)
+                .addOnSuccessListener(imageUrls -> {
+                    progressDialog.dismiss();
+                    updateInventoryItem(itemId, productName, quantity, price, imageUrls);
+                })
+                .addOnFailureListener(e -> {
+                    progressDialog.dismiss();
+                    Log.e("INVENTORY", "Failed to upload image: " + e.getMessage(), e);
+                    Toast.makeText(this, "Failed to upload image", Toast.LENGTH_SHORT).show();
+                });
     }
 
     private static class InventoryItem {
@@ -424,17 +410,48 @@ public class InventoryManagementActivity extends AppCompatActivity {
         int quantity;
         double price;
         String imageUrl;
+        Map<?, ?> imageUrls;
 
-        InventoryItem(String id, String productName, int quantity, double price, String imageUrl) {
+        InventoryItem(String id, String productName, int quantity, double price, String imageUrl,
+                      Map<?, ?> imageUrls) {
             this.id = id;
             this.productName = productName;
             this.quantity = quantity;
             this.price = price;
             this.imageUrl = imageUrl;
+            this.imageUrls = imageUrls;
         }
     }
 
-    private class InventoryAdapter extends RecyclerView.Adapter<InventoryAdapter.ViewHolder> {
+    private static final DiffUtil.ItemCallback<InventoryItem> INVENTORY_DIFF = new DiffUtil.ItemCallback<InventoryItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull InventoryItem oldItem, @NonNull InventoryItem newItem) {
+            return oldItem.id.equals(newItem.id);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull InventoryItem oldItem, @NonNull InventoryItem newItem) {
+            return oldItem.productName.equals(newItem.productName)
+                    && oldItem.quantity == newItem.quantity
+                    && oldItem.price == newItem.price
+                    && Objects.equals(oldItem.imageUrl, newItem.imageUrl);
+        }
+    };
+
+    private class InventoryAdapter extends ListAdapter<InventoryItem, InventoryAdapter.ViewHolder> {
+
+        private final StableIds stableIds = new StableIds();
+        private final int rowImagePx = ImageRenditions.dpToPx(InventoryManagementActivity.this, ROW_IMAGE_DP);
+
+        InventoryAdapter() {
+            super(INVENTORY_DIFF);
+            setHasStableIds(true);
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return stableIds.idFor(getItem(position).id);
+        }
 
         @Override
         public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
@@ -445,7 +462,7 @@ public class InventoryManagementActivity extends AppCompatActivity {
 
         @Override
         public void onBindViewHolder(ViewHolder holder, int position) {
-            InventoryItem item = inventoryList.get(position);
+            InventoryItem item = getItem(position);
 
             Log.d("INVENTORY", "Binding item: " + item.productName + ", Image: " + item.imageUrl);
 
@@ -472,7 +489,7 @@ public class InventoryManagementActivity extends AppCompatActivity {
             if (item.imageUrl != null && !item.imageUrl.isEmpty()) {
                 Log.d("INVENTORY", "Loading image with Glide: " + item.imageUrl);
                 Glide.with(holder.itemView.getContext())
-                        .load(item.imageUrl)
+                        .load(ImageRenditions.pick(item.imageUrls, item.imageUrl, rowImagePx))
                         .placeholder(android.R.drawable.ic_menu_gallery)
                         .error(android.R.drawable.ic_menu_report_image)
                         .into(holder.ivProductImage);
@@ -482,12 +499,7 @@ public class InventoryManagementActivity extends AppCompatActivity {
             }
 
             holder.btnEdit.setOnClickListener(v -> showEditDialog(item, position));
-            holder.btnArchive.setOnClickListener(v -> archiveInventoryItem(item.id, position));
-        }
-
-        @Override
-        public int getItemCount() {
-            return inventoryList.size();
+            holder.btnArchive.setOnClickListener(v -> archiveInventoryItem(item.id));
         }
 
         class ViewHolder extends RecyclerView.ViewHolder {
@@ -578,13 +590,16 @@ public class InventoryManagementActivity extends AppCompatActivity {
         ImageView ivProductImage = dialogView.findViewById(R.id.ivProductImage);
         MaterialButton btnSelectImage = dialogView.findViewById(R.id.btnSelectImage);
 
+        dialogSelectedImageUri = null;
+
         etProductName.setText(item.productName);
         etQuantity.setText(String.valueOf(item.quantity));
         etPrice.setText(String.valueOf(item.price));
 
         if (item.imageUrl != null && !item.imageUrl.isEmpty()) {
             Glide.with(this)
-                    .load(item.imageUrl)
+                    .load(ImageRenditions.pick(item.imageUrls, item.imageUrl,
+                            ImageRenditions.dpToPx(this, DIALOG_IMAGE_DP)))
                     .placeholder(android.R.drawable.ic_menu_gallery)
                     .into(ivProductImage);
         }
@@ -610,10 +625,10 @@ public class InventoryManagementActivity extends AppCompatActivity {
                 int quantity = Integer.parseInt(quantityStr);
                 double price = Double.parseDouble(priceStr);
 
-                if (dialogSelectedBitmap != null) {
-                    uploadImageAndUpdateItem(dialogSelectedBitmap, item.id, productName, quantity, price);
+                if (dialogSelectedImageUri != null) {
+                    uploadImageAndUpdateItem(dialogSelectedImageUri, item.id, productName, quantity, price);
                 } else {
-                    updateInventoryItem(item.id, productName, quantity, price, item.imageUrl);
+                    updateInventoryItem(item.id, productName, quantity, price, null);
                 }
             } catch (NumberFormatException e) {
                 Toast.makeText(this, "Please enter valid numbers", Toast.LENGTH_SHORT).show();
@@ -19,10 +19,11 @@ import com.bumptech.glide.Glide;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
 import com.lu.coffeecompanion.adapters.ProductReviewAdapter;
+import com.lu.coffeecompanion.data.CartKeys;
+import com.lu.coffeecompanion.data.RatingHistogram;
 import com.lu.coffeecompanion.models.ProductReview;
 
 import java.util.ArrayList;
@@ -290,42 +291,24 @@ public class ItemActivity extends AppCompatActivity {
         }
     }
 
-    // UPDATED: Load from reviews collection instead of productRatings
+    // Running totals kept by RatingAggregator; one document read instead of a scan over reviews
     private void loadProductRatingStats() {
         Log.d(TAG, "Loading product rating stats...");
 
-        // Query reviews collection for this product
-        db.collection("reviews")
-                .whereEqualTo("menuItemId", menuDocId)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    if (!querySnapshot.isEmpty()) {
-                        calculateAndUpdateRating(querySnapshot);
-                    } else {
-                        Log.d(TAG, "No reviews yet for this product");
-                        showDefaultRating();
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to load product stats", e);
-                    showDefaultRating();
-                });
+        RatingHistogram.load(db, menuDocId, histogram -> {
+            if (histogram == null || histogram.getCount() == 0) {
+                Log.d(TAG, "No reviews yet for this product");
+                showDefaultRating();
+                return;
+            }
+            updateRating(histogram);
+        });
     }
 
-    // UPDATED: Calculate rating from reviews
-    private void calculateAndUpdateRating(com.google.firebase.firestore.QuerySnapshot querySnapshot) {
+    private void updateRating(RatingHistogram histogram) {
         try {
-            float totalRating = 0;
-            int ratingCount = querySnapshot.size();
-
-            for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                Double rating = doc.getDouble("rating");
-                if (rating != null) {
-                    totalRating += rating;
-                }
-            }
-
-            float averageRating = ratingCount > 0 ? totalRating / ratingCount : 0;
+            float averageRating = (float) histogram.getAverage();
+            long ratingCount = histogram.getCount();
 
             if (avgRatingBar != null) {
                 avgRatingBar.setRating(averageRating);
@@ -337,12 +320,7 @@ public class ItemActivity extends AppCompatActivity {
             }
 
             if (tvReviewCountDisplay != null) {
-                if (ratingCount > 0) {
-                    tvReviewCountDisplay.setText(String.format(Locale.getDefault(), "(%d reviews)", ratingCount));
-                    Log.d(TAG, "Found " + ratingCount + " reviews");
-                } else {
-                    tvReviewCountDisplay.setText("(No reviews yet)");
-                }
+                tvReviewCountDisplay.setText(String.format(Locale.getDefault(), "(%d reviews)", ratingCount));
             }
 
         } catch (Exception e) {
@@ -482,50 +460,19 @@ public class ItemActivity extends AppCompatActivity {
             }
 
             Map<String, Object> cartItem = new HashMap<>();
-            cartItem.put("docId", menuDocId);
-            cartItem.put("quantity", qty);
-            cartItem.put("shopId", shopDocumentId);
             cartItem.put("itemName", productName);
             cartItem.put("itemPrice", productPrice);
             if (imageUrl != null) {
                 cartItem.put("imageUrl", imageUrl);
             }
 
-            // Check if item already in cart
-            db.collection("users")
-                    .document(userId)
-                    .collection("cart")
-                    .whereEqualTo("docId", menuDocId)
-                    .whereEqualTo("shopId", shopDocumentId)
-                    .get()
-                    .addOnCompleteListener(task -> {
-                        if (task.isSuccessful() && !task.getResult().isEmpty()) {
-                            // Update existing cart item
-                            String cartId = task.getResult().getDocuments().get(0).getId();
-                            db.collection("users")
-                                    .document(userId)
-                                    .collection("cart")
-                                    .document(cartId)
-                                    .update("quantity", FieldValue.increment(qty))
-                                    .addOnSuccessListener(aVoid -> {
-                                        Toast.makeText(this, "Item quantity updated in cart", Toast.LENGTH_SHORT).show();
-                                    })
-                                    .addOnFailureListener(e -> {
-                                        Toast.makeText(this, "Failed to update cart", Toast.LENGTH_SHORT).show();
-                                    });
-                        } else {
-                            // Add new cart item
-                            db.collection("users")
-                                    .document(userId)
-                                    .collection("cart")
-                                    .add(cartItem)
-                                    .addOnSuccessListener(documentReference -> {
-                                        Toast.makeText(this, "Item added to cart", Toast.LENGTH_SHORT).show();
-                                    })
-                                    .addOnFailureListener(e -> {
-                                        Toast.makeText(this, "Failed to add to cart", Toast.LENGTH_SHORT).show();
-                                    });
-                        }
+            // Keyed by shop and item, so this creates the row or adds to it without a lookup
+            CartKeys.add(db, userId, shopDocumentId, menuDocId, cartItem, qty)
+                    .addOnSuccessListener(aVoid -> {
+                        Toast.makeText(this, "Item added to cart", Toast.LENGTH_SHORT).show();
+                    })
+                    .addOnFailureListener(e -> {
+                        Toast.makeText(this, "Failed to add to cart", Toast.LENGTH_SHORT).show();
                     });
 
         } catch (NumberFormatException e) {
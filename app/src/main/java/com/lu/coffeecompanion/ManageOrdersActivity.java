@@ -1,9 +1,9 @@
 package com.lu.coffeecompanion;
 
-import android.app.AlertDialog;
 import android.content.Intent;
 import android.os.Bundle;
 import android.text.TextUtils;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -20,23 +20,67 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
+import com.google.android.material.tabs.TabLayout;
+import com.google.firebase.firestore.DocumentChange;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.lu.coffeecompanion.data.MenuItemRepository;
+import com.lu.coffeecompanion.data.OrderItemsLoader;
+import com.lu.coffeecompanion.data.OrderLines;
+import com.lu.coffeecompanion.data.OrderStatusTransitions;
+import com.lu.coffeecompanion.data.OrderStatuses;
 import com.lu.coffeecompanion.databinding.ItemOrderAdminBinding;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
+// Admin order queue split into one tab per stage (TAB_STATUSES). Each active tab has its own live listener,
+// and its docChanges are applied by index to that tab's list, so a new or moved order updates
+// only its own rows. Closed orders are read a page at a time when their tab is opened.
+// Long-pressing a card starts a selection that can be moved to the next status in one go.
 public class ManageOrdersActivity extends AppCompatActivity {
 
-    // Remove ViewBinding since we don't have the XML file yet
+    private static final String TAG = "ManageOrdersActivity";
+    private static final String TAB_CLOSED = "Closed";
+    private static final String[] ACTIVE_TABS = {OrderStatuses.PENDING, OrderStatuses.PREPARING, OrderStatuses.OUT_FOR_DELIVERY};
+    // Tab -> the statuses it lists; every status in OrderStatuses.ALL is in exactly one tab
+    private static final Map<String, List<String>> TAB_STATUSES = new LinkedHashMap<>();
+    static {
+        TAB_STATUSES.put(OrderStatuses.PENDING, Collections.singletonList(OrderStatuses.PENDING));
+        TAB_STATUSES.put(OrderStatuses.PREPARING, Arrays.asList(OrderStatuses.CONFIRMED, OrderStatuses.PREPARING));
+        TAB_STATUSES.put(OrderStatuses.OUT_FOR_DELIVERY, Collections.singletonList(OrderStatuses.OUT_FOR_DELIVERY));
+        TAB_STATUSES.put(TAB_CLOSED, OrderStatuses.CLOSED);
+    }
+    private static final int COMPLETED_PAGE_SIZE = 20;
+    private static final int LOAD_MORE_THRESHOLD = 5;
+    // Rebinds only the selection highlight
+    private static final Object PAYLOAD_SELECTION = new Object();
+
     private FirebaseFirestore db;
-    private List<Order> orderList;
+    // Tab -> its orders, newest first
+    private final Map<String, List<Order>> partitions = new LinkedHashMap<>();
+    private final List<ListenerRegistration> queueListeners = new ArrayList<>();
+    private String selectedTab = ACTIVE_TABS[0];
     private OrderAdapter adapter;
+    // Selected orders in the visible tab
+    private final Set<String> selectedIds = new LinkedHashSet<>();
+
+    private DocumentSnapshot completedCursor;
+    private boolean completedLoading = false;
+    private boolean completedEnd = false;
+    // Bumped on every refresh so a page that was in flight is dropped
+    private int completedGeneration = 0;
 
     // UI elements
     private SwipeRefreshLayout swipeRefreshLayout;
@@ -44,6 +88,10 @@ public class ManageOrdersActivity extends AppCompatActivity {
     private LinearLayout emptyState;
     private ProgressBar progressBar;
     private Toolbar toolbar;
+    private TabLayout statusTabs;
+    private LinearLayout bulkBar;
+    private TextView tvSelectedCount;
+    private Button btnBulkAdvance;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -56,76 +104,332 @@ public class ManageOrdersActivity extends AppCompatActivity {
         rvOrders = findViewById(R.id.rvOrders);
         emptyState = findViewById(R.id.emptyState);
         progressBar = findViewById(R.id.progressBar);
+        statusTabs = findViewById(R.id.statusTabs);
+        bulkBar = findViewById(R.id.bulkBar);
+        tvSelectedCount = findViewById(R.id.tvSelectedCount);
+        btnBulkAdvance = findViewById(R.id.btnBulkAdvance);
 
         db = FirebaseFirestore.getInstance();
-        orderList = new ArrayList<>();
+        for (String tab : TAB_STATUSES.keySet()) {
+            partitions.put(tab, new ArrayList<>());
+        }
 
         setupUI();
-        loadOrders();
+        startQueue();
     }
 
     private void setupUI() {
         toolbar.setNavigationOnClickListener(v -> finish());
 
+        // Active tabs are live; only the paged completed tab has anything to refresh
         swipeRefreshLayout.setOnRefreshListener(() -> {
-            loadOrders();
+            if (TAB_CLOSED.equals(selectedTab)) {
+                reloadCompleted();
+            }
             swipeRefreshLayout.setRefreshing(false);
         });
 
-        rvOrders.setLayoutManager(new LinearLayoutManager(this));
+        for (String tab : partitions.keySet()) {
+            statusTabs.addTab(statusTabs.newTab().setText(tab).setTag(tab));
+        }
+        statusTabs.addOnTabSelectedListener(new TabLayout.OnTabSelectedListener() {
+            @Override
+            public void onTabSelected(TabLayout.Tab tab) {
+                selectedTab = (String) tab.getTag();
+                selectedIds.clear();
+                updateBulkBar();
+                adapter.notifyDataSetChanged();
+                if (TAB_CLOSED.equals(selectedTab)) {
+                    reloadCompleted();
+                } else {
+                    updateEmptyState();
+                }
+            }
+
+            @Override
+            public void onTabUnselected(TabLayout.Tab tab) {}
+
+            @Override
+            public void onTabReselected(TabLayout.Tab tab) {}
+        });
+
+        findViewById(R.id.btnSelectAll).setOnClickListener(v -> {
+            for (Order order : visibleOrders()) {
+                selectedIds.add(order.id);
+            }
+            onSelectionChanged();
+        });
+        findViewById(R.id.btnClearSelection).setOnClickListener(v -> {
+            selectedIds.clear();
+            onSelectionChanged();
+        });
+        btnBulkAdvance.setOnClickListener(v -> advanceSelected());
+
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        rvOrders.setLayoutManager(layoutManager);
         adapter = new OrderAdapter();
         rvOrders.setAdapter(adapter);
+
+        rvOrders.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy <= 0 || !TAB_CLOSED.equals(selectedTab)) return;
+
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible >= adapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    loadCompletedPage();
+                }
+            }
+        });
+    }
+
+    private List<Order> visibleOrders() {
+        return partitions.get(selectedTab);
     }
 
-    private void loadOrders() {
+    private void startQueue() {
         progressBar.setVisibility(View.VISIBLE);
         emptyState.setVisibility(View.GONE);
         rvOrders.setVisibility(View.GONE);
 
-        db.collection("orders")
-                .orderBy("timestamp", com.google.firebase.firestore.Query.Direction.DESCENDING)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    orderList.clear();
-
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        Order order = new Order();
-                        order.id = document.getId();
-                        order.userId = document.getString("userId");
-                        order.userName = document.getString("userName");
-                        order.customerName = document.getString("name");
-                        order.address = document.getString("address");
-                        order.mobile = document.getString("mobile");
-                        order.totalPrice = document.getDouble("totalPrice");
-                        order.deliveryFee = document.getDouble("deliveryFee");
-                        order.paymentMethod = document.getString("paymentMethod");
-                        order.status = document.getString("status");
-                        order.timestamp = document.getLong("timestamp");
-
-                        if (document.getTimestamp("orderTimestamp") != null) {
-                            order.orderDate = document.getTimestamp("orderTimestamp").toDate();
-                        }
+        for (String tab : ACTIVE_TABS) {
+            Query query = db.collection("orders")
+                    .whereIn("status", OrderStatuses.storedForms(TAB_STATUSES.get(tab)))
+                    .orderBy("timestamp", Query.Direction.DESCENDING);
+            queueListeners.add(query.addSnapshotListener((snapshot, error) -> {
+                if (error != null) {
+                    Log.e(TAG, tab + " listener failed", error);
+                    progressBar.setVisibility(View.GONE);
+                    Toast.makeText(this, "Failed to load orders", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                if (snapshot == null) return;
+
+                applyChanges(tab, snapshot.getDocumentChanges());
+            }));
+        }
+    }
 
-                        orderList.add(order);
+    // Indexes in each change assume the ones before it were applied, so the list tracks the query exactly
+    private void applyChanges(String tab, List<DocumentChange> changes) {
+        List<Order> partition = partitions.get(tab);
+        boolean visible = tab.equals(selectedTab);
+
+        for (DocumentChange change : changes) {
+            int oldIndex = change.getOldIndex();
+            int newIndex = change.getNewIndex();
+            switch (change.getType()) {
+                case ADDED:
+                    partition.add(newIndex, toOrder(change.getDocument()));
+                    if (visible) adapter.notifyItemInserted(newIndex);
+                    break;
+                case MODIFIED:
+                    if (oldIndex == newIndex) {
+                        partition.set(newIndex, toOrder(change.getDocument()));
+                    } else {
+                        partition.remove(oldIndex);
+                        partition.add(newIndex, toOrder(change.getDocument()));
+                        if (visible) adapter.notifyItemMoved(oldIndex, newIndex);
+                    }
+                    if (visible) adapter.notifyItemChanged(newIndex);
+                    break;
+                case REMOVED:
+                    Order removed = partition.remove(oldIndex);
+                    if (visible) {
+                        adapter.notifyItemRemoved(oldIndex);
+                        // Transitions only write on commit, so a removed order really has left this tab
+                        selectedIds.remove(removed.id);
                     }
+                    break;
+            }
+        }
 
-                    if (orderList.isEmpty()) {
-                        emptyState.setVisibility(View.VISIBLE);
-                        rvOrders.setVisibility(View.GONE);
+        progressBar.setVisibility(View.GONE);
+        updateTabCount(tab);
+        if (visible) {
+            updateEmptyState();
+            updateBulkBar();
+        }
+    }
+
+    // Where each active tab's orders go next; closed orders have nowhere to go
+    private static String nextStatus(String tab) {
+        for (int i = 0; i < ACTIVE_TABS.length; i++) {
+            if (ACTIVE_TABS[i].equals(tab)) {
+                return i + 1 < ACTIVE_TABS.length ? ACTIVE_TABS[i + 1] : OrderStatuses.COMPLETED;
+            }
+        }
+        return null;
+    }
+
+    private void toggleSelection(Order order) {
+        if (nextStatus(selectedTab) == null) return;
+        if (!selectedIds.remove(order.id)) {
+            selectedIds.add(order.id);
+        }
+        onSelectionChanged();
+    }
+
+    private void onSelectionChanged() {
+        adapter.notifyItemRangeChanged(0, adapter.getItemCount(), PAYLOAD_SELECTION);
+        updateBulkBar();
+    }
+
+    private void updateBulkBar() {
+        String next = nextStatus(selectedTab);
+        if (selectedIds.isEmpty() || next == null) {
+            bulkBar.setVisibility(View.GONE);
+            return;
+        }
+        bulkBar.setVisibility(View.VISIBLE);
+        tvSelectedCount.setText(selectedIds.size() + " selected");
+        btnBulkAdvance.setText("Move to " + next);
+    }
+
+    // One request for the whole selection, guarded on each order still being in this tab's statuses.
+    // The status listeners move the orders out of this tab once the writes commit. Orders that
+    // failed to commit stay selected; orders someone else moved meanwhile are dropped from it.
+    private void advanceSelected() {
+        String tab = selectedTab;
+        String next = nextStatus(tab);
+        if (next == null || selectedIds.isEmpty()) return;
+
+        List<String> orderIds = new ArrayList<>(selectedIds);
+        btnBulkAdvance.setEnabled(false);
+        OrderStatusTransitions.transition(db, orderIds, TAB_STATUSES.get(tab), next, (moved, failed) -> {
+            if (isFinishing() || isDestroyed()) return;
+            btnBulkAdvance.setEnabled(true);
+
+            // Switching tabs clears the selection, so only restore it on the tab it was made in
+            if (tab.equals(selectedTab)) {
+                selectedIds.removeAll(moved);
+                for (Map.Entry<String, Exception> entry : failed.entrySet()) {
+                    if (entry.getValue() instanceof OrderStatusTransitions.StatusChangedException) {
+                        selectedIds.remove(entry.getKey());
                     } else {
-                        emptyState.setVisibility(View.GONE);
-                        rvOrders.setVisibility(View.VISIBLE);
-                        adapter.notifyDataSetChanged();
+                        selectedIds.add(entry.getKey());
                     }
+                }
+                onSelectionChanged();
+            }
+
+            int changed = 0;
+            for (Exception e : failed.values()) {
+                if (e instanceof OrderStatusTransitions.StatusChangedException) changed++;
+            }
+
+            if (failed.isEmpty()) {
+                Toast.makeText(this, "Moved " + moved.size() + " orders to " + next, Toast.LENGTH_SHORT).show();
+            } else {
+                StringBuilder message = new StringBuilder("Moved " + moved.size() + " of " + orderIds.size()
+                        + " orders to " + next);
+                if (changed > 0) {
+                    message.append("; ").append(changed).append(" had already been updated");
+                }
+                if (failed.size() > changed) {
+                    message.append("; ").append(failed.size() - changed).append(" failed and are still selected");
+                }
+                Toast.makeText(this, message.toString(), Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    private void updateTabCount(String status) {
+        for (int i = 0; i < statusTabs.getTabCount(); i++) {
+            TabLayout.Tab tab = statusTabs.getTabAt(i);
+            if (tab != null && status.equals(tab.getTag())) {
+                tab.setText(status + " (" + partitions.get(status).size() + ")");
+            }
+        }
+    }
+
+    private void updateEmptyState() {
+        boolean empty = visibleOrders().isEmpty();
+        emptyState.setVisibility(empty ? View.VISIBLE : View.GONE);
+        rvOrders.setVisibility(empty ? View.GONE : View.VISIBLE);
+    }
+
+    private void reloadCompleted() {
+        List<Order> completed = partitions.get(TAB_CLOSED);
+        int removed = completed.size();
+        completed.clear();
+        if (TAB_CLOSED.equals(selectedTab)) {
+            adapter.notifyItemRangeRemoved(0, removed);
+        }
+        completedCursor = null;
+        completedEnd = false;
+        completedLoading = false;
+        completedGeneration++;
+        progressBar.setVisibility(View.VISIBLE);
+        loadCompletedPage();
+    }
+
+    private void loadCompletedPage() {
+        if (completedLoading || completedEnd) return;
+        completedLoading = true;
+
+        Query query = db.collection("orders")
+                .whereIn("status", OrderStatuses.storedForms(OrderStatuses.CLOSED))
+                .orderBy("timestamp", Query.Direction.DESCENDING)
+                .limit(COMPLETED_PAGE_SIZE);
+        if (completedCursor != null) {
+            query = query.startAfter(completedCursor);
+        }
+
+        int generation = completedGeneration;
+        query.get()
+                .addOnSuccessListener(snapshot -> {
+                    // A refresh started while this page was in flight
+                    if (generation != completedGeneration) return;
+                    completedLoading = false;
+
+                    List<DocumentSnapshot> docs = snapshot.getDocuments();
+                    List<Order> completed = partitions.get(TAB_CLOSED);
+                    int start = completed.size();
+                    for (DocumentSnapshot document : docs) {
+                        completed.add(toOrder(document));
+                    }
+                    if (!docs.isEmpty()) {
+                        completedCursor = docs.get(docs.size() - 1);
+                    }
+                    completedEnd = docs.size() < COMPLETED_PAGE_SIZE;
 
                     progressBar.setVisibility(View.GONE);
+                    if (TAB_CLOSED.equals(selectedTab)) {
+                        adapter.notifyItemRangeInserted(start, docs.size());
+                        updateEmptyState();
+                    }
                 })
                 .addOnFailureListener(e -> {
+                    if (generation != completedGeneration) return;
+                    completedLoading = false;
+                    Log.e(TAG, "Failed to load completed orders", e);
                     progressBar.setVisibility(View.GONE);
                     Toast.makeText(this, "Failed to load orders", Toast.LENGTH_SHORT).show();
                 });
     }
 
+    private Order toOrder(DocumentSnapshot document) {
+        Order order = new Order();
+        order.id = document.getId();
+        order.userId = document.getString("userId");
+        order.userName = document.getString("userName");
+        order.customerName = document.getString("name");
+        order.address = document.getString("address");
+        order.mobile = document.getString("mobile");
+        order.totalPrice = document.getDouble("totalPrice");
+        order.deliveryFee = document.getDouble("deliveryFee");
+        order.paymentMethod = document.getString("paymentMethod");
+        order.status = document.getString("status");
+        order.timestamp = document.getLong("timestamp");
+        order.lines = OrderLines.of(document);
+
+        if (document.getTimestamp("orderTimestamp") != null) {
+            order.orderDate = document.getTimestamp("orderTimestamp").toDate();
+        }
+        return order;
+    }
+
     private class Order {
         String id;
         String userId;
@@ -139,6 +443,8 @@ public class ManageOrdersActivity extends AppCompatActivity {
         String status;
         Long timestamp;
         Date orderDate;
+        // Null for orders placed before lines were saved at checkout
+        List<OrderLines.Line> lines;
     }
 
     private class OrderAdapter extends RecyclerView.Adapter<OrderAdapter.OrderViewHolder> {
@@ -153,13 +459,22 @@ public class ManageOrdersActivity extends AppCompatActivity {
 
         @Override
         public void onBindViewHolder(@NonNull OrderViewHolder holder, int position) {
-            Order order = orderList.get(position);
+            Order order = visibleOrders().get(position);
             holder.bind(order);
         }
 
+        @Override
+        public void onBindViewHolder(@NonNull OrderViewHolder holder, int position, @NonNull List<Object> payloads) {
+            if (payloads.contains(PAYLOAD_SELECTION) && payloads.size() == 1) {
+                holder.showSelected(visibleOrders().get(position));
+            } else {
+                onBindViewHolder(holder, position);
+            }
+        }
+
         @Override
         public int getItemCount() {
-            return orderList.size();
+            return visibleOrders().size();
         }
 
         class OrderViewHolder extends RecyclerView.ViewHolder {
@@ -190,11 +505,25 @@ public class ManageOrdersActivity extends AppCompatActivity {
 
                 setStatusColor(binding.tvStatus, order.status);
 
-                loadOrderItems(order.id);
+                if (order.lines != null) {
+                    showLines(order.lines);
+                } else {
+                    loadOrderItems(order.id);
+                }
 
                 setupActionButtons(order);
+                showSelected(order);
 
+                binding.cardOrder.setOnLongClickListener(v -> {
+                    toggleSelection(order);
+                    return true;
+                });
                 binding.cardOrder.setOnClickListener(v -> {
+                    // While selecting, a tap adds or removes the order instead of opening it
+                    if (!selectedIds.isEmpty()) {
+                        toggleSelection(order);
+                        return;
+                    }
                     Intent intent = new Intent(ManageOrdersActivity.this, OrderDetailsActivity.class);
                     intent.putExtra("orderId", order.id);
                     intent.putExtra("adminView", true);
@@ -202,69 +531,79 @@ public class ManageOrdersActivity extends AppCompatActivity {
                 });
             }
 
+            void showSelected(Order order) {
+                binding.cardOrder.setCardBackgroundColor(selectedIds.contains(order.id) ? 0xFFFFF3E0 : 0xFFFFFFFF);
+            }
+
+            private void showLines(List<OrderLines.Line> lines) {
+                binding.tvItems.setTag(null);
+                StringBuilder summary = new StringBuilder("Items: ");
+                for (int i = 0; i < lines.size() && i < 3; i++) {
+                    if (i > 0) summary.append(", ");
+                    summary.append(lines.get(i).getQuantity()).append("x ").append(lines.get(i).getName());
+                }
+                if (lines.size() > 3) {
+                    summary.append(" and more...");
+                }
+                binding.tvItems.setText(summary.toString());
+            }
+
             private void loadOrderItems(String orderId) {
-                db.collection("orders").document(orderId)
-                        .collection("items")
-                        .limit(3)
-                        .get()
-                        .addOnSuccessListener(queryDocumentSnapshots -> {
-                            StringBuilder summary = new StringBuilder("Items: ");
-                            int count = 0;
-
-                            for (QueryDocumentSnapshot itemDoc : queryDocumentSnapshots) {
-                                String docId = itemDoc.getString("docId");
-                                Long quantity = itemDoc.getLong("quantity");
-
-                                if (count > 0) summary.append(", ");
-                                summary.append(quantity != null ? quantity + "x " : "1x ");
-
-                                if (docId != null) {
-                                    fetchMenuItemName(docId, summary, count);
-                                }
-
-                                count++;
-                            }
+                // Rows are recycled; only apply results that still belong to this row
+                binding.tvItems.setTag(orderId);
+                binding.tvItems.setText("Items: Loading...");
 
-                            if (count > 3) {
-                                summary.append(" and more...");
-                            }
+                OrderItemsLoader.getInstance().load(orderId, (loadedId, items) -> {
+                    if (!loadedId.equals(binding.tvItems.getTag())) return;
+
+                    StringBuilder summary = new StringBuilder("Items: ");
+                    int count = 0;
+
+                    for (DocumentSnapshot itemDoc : items) {
+                        if (count == 3) break;
+
+                        String docId = itemDoc.getString("docId");
+                        String shopId = itemDoc.getString("shopId");
+                        Long quantity = itemDoc.getLong("quantity");
+
+                        if (count > 0) summary.append(", ");
+                        summary.append(quantity != null ? quantity + "x " : "1x ");
+
+                        if (docId != null) {
+                            fetchMenuItemName(loadedId, docId, shopId, summary, count);
+                        }
 
-                            binding.tvItems.setText(summary.toString());
-                        })
-                        .addOnFailureListener(e -> {
-                            binding.tvItems.setText("Items: Loading...");
-                        });
+                        count++;
+                    }
+
+                    if (items.size() > 3) {
+                        summary.append(" and more...");
+                    }
+
+                    binding.tvItems.setText(summary.toString());
+                });
             }
 
-            private void fetchMenuItemName(String menuItemId, StringBuilder summary, int position) {
-                db.collection("shops")
-                        .get()
-                        .addOnSuccessListener(shopsSnapshot -> {
-                            for (DocumentSnapshot shop : shopsSnapshot.getDocuments()) {
-                                db.collection("shops").document(shop.getId())
-                                        .collection("menu").document(menuItemId)
-                                        .get()
-                                        .addOnSuccessListener(menuItem -> {
-                                            if (menuItem.exists()) {
-                                                String itemName = menuItem.getString("name");
-                                                if (itemName != null) {
-                                                    String currentText = summary.toString();
-                                                    String[] parts = currentText.split(": ");
-                                                    if (parts.length > 1) {
-                                                        String itemsText = parts[1];
-                                                        String[] items = itemsText.split(", ");
-                                                        if (items.length > position) {
-                                                            items[position] = items[position].split("x ")[0] + "x " + itemName;
-                                                            String newText = "Items: " + TextUtils.join(", ", items);
-                                                            summary.replace(0, summary.length(), newText);
-                                                            binding.tvItems.setText(newText);
-                                                        }
-                                                    }
-                                                }
-                                            }
-                                        });
+            private void fetchMenuItemName(String orderId, String menuItemId, String shopId, StringBuilder summary, int position) {
+                MenuItemRepository.getInstance().getMenuItem(menuItemId, shopId, entry -> {
+                    if (entry == null || !orderId.equals(binding.tvItems.getTag())) return;
+
+                    String itemName = entry.getName();
+                    if (itemName != null) {
+                        String currentText = summary.toString();
+                        String[] parts = currentText.split(": ");
+                        if (parts.length > 1) {
+                            String itemsText = parts[1];
+                            String[] items = itemsText.split(", ");
+                            if (items.length > position) {
+                                items[position] = items[position].split("x ")[0] + "x " + itemName;
+                                String newText = "Items: " + TextUtils.join(", ", items);
+                                summary.replace(0, summary.length(), newText);
+                                binding.tvItems.setText(newText);
                             }
-                        });
+                        }
+                    }
+                });
             }
 
             private void setStatusColor(TextView tvStatus, String status) {
@@ -279,6 +618,7 @@ public class ManageOrdersActivity extends AppCompatActivity {
                         tvStatus.setTextColor(getResources().getColor(android.R.color.white));
                         break;
                     case "preparing":
+                    case "confirmed":
                         tvStatus.setBackgroundResource(R.drawable.status_background_preparing);
                         tvStatus.setTextColor(getResources().getColor(android.R.color.white));
                         break;
@@ -287,6 +627,7 @@ public class ManageOrdersActivity extends AppCompatActivity {
                         tvStatus.setTextColor(getResources().getColor(android.R.color.white));
                         break;
                     case "completed":
+                    case "delivered":
                         tvStatus.setBackgroundResource(R.drawable.status_background_completed);
                         tvStatus.setTextColor(getResources().getColor(android.R.color.white));
                         break;
@@ -297,9 +638,9 @@ public class ManageOrdersActivity extends AppCompatActivity {
             }
 
             private void setupActionButtons(Order order) {
-                binding.btnPreparing.setOnClickListener(v -> updateOrderStatus(order.id, "Preparing"));
-                binding.btnDelivery.setOnClickListener(v -> updateOrderStatus(order.id, "Out for Delivery"));
-                binding.btnCompleted.setOnClickListener(v -> updateOrderStatus(order.id, "Completed"));
+                binding.btnPreparing.setOnClickListener(v -> updateOrderStatus(order, OrderStatuses.PREPARING));
+                binding.btnDelivery.setOnClickListener(v -> updateOrderStatus(order, OrderStatuses.OUT_FOR_DELIVERY));
+                binding.btnCompleted.setOnClickListener(v -> updateOrderStatus(order, OrderStatuses.COMPLETED));
 
                 updateButtonVisibility(order.status);
             }
@@ -319,6 +660,7 @@ public class ManageOrdersActivity extends AppCompatActivity {
                         binding.btnCompleted.setVisibility(View.GONE);
                         break;
                     case "preparing":
+                    case "confirmed":
                         binding.btnPreparing.setVisibility(View.GONE);
                         binding.btnDelivery.setVisibility(View.VISIBLE);
                         binding.btnCompleted.setVisibility(View.GONE);
@@ -328,7 +670,8 @@ public class ManageOrdersActivity extends AppCompatActivity {
                         binding.btnDelivery.setVisibility(View.GONE);
                         binding.btnCompleted.setVisibility(View.VISIBLE);
                         break;
-                    case "completed":
+                    default:
+                        // Delivered, completed and cancelled orders have no next step
                         binding.btnPreparing.setVisibility(View.GONE);
                         binding.btnDelivery.setVisibility(View.GONE);
                         binding.btnCompleted.setVisibility(View.GONE);
@@ -336,25 +679,33 @@ public class ManageOrdersActivity extends AppCompatActivity {
                 }
             }
 
-            private void updateOrderStatus(String orderId, String newStatus) {
-                db.collection("orders").document(orderId)
-                        .update("status", newStatus)
-                        .addOnSuccessListener(aVoid -> {
-                            Toast.makeText(ManageOrdersActivity.this,
-                                    "Order status updated to " + newStatus, Toast.LENGTH_SHORT).show();
-                            loadOrders();
-                        })
-                        .addOnFailureListener(e -> {
-                            Toast.makeText(ManageOrdersActivity.this,
-                                    "Failed to update status", Toast.LENGTH_SHORT).show();
-                        });
+            // Only moves the order if it still has the status shown on its card
+            private void updateOrderStatus(Order order, String newStatus) {
+                OrderStatusTransitions.transition(db, Collections.singletonList(order.id),
+                        Collections.singletonList(order.status), newStatus, (moved, failed) -> {
+                    // The status listeners move the order between tabs
+                    Exception e = failed.get(order.id);
+                    if (e == null) {
+                        Toast.makeText(ManageOrdersActivity.this,
+                                "Order status updated to " + newStatus, Toast.LENGTH_SHORT).show();
+                    } else if (e instanceof OrderStatusTransitions.StatusChangedException) {
+                        Toast.makeText(ManageOrdersActivity.this,
+                                "Order was already updated: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                    } else {
+                        Toast.makeText(ManageOrdersActivity.this,
+                                "Failed to update status", Toast.LENGTH_SHORT).show();
+                    }
+                });
             }
         }
     }
 
     @Override
-    protected void onResume() {
-        super.onResume();
-        loadOrders();
+    protected void onDestroy() {
+        super.onDestroy();
+        for (ListenerRegistration listener : queueListeners) {
+            listener.remove();
+        }
+        queueListeners.clear();
     }
 }
\ No newline at end of file
@@ -37,7 +37,7 @@ public class ManageUsersActivity extends AppCompatActivity {
         progressBar = findViewById(R.id.progressBar);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
         userList = new ArrayList<>();
-        userAdapter = new UserAdapter(this, userList);
+        userAdapter = new UserAdapter(this);
         recyclerView.setAdapter(userAdapter);
 
         userRef = FirebaseDatabase.getInstance().getReference("users");
@@ -55,9 +55,12 @@ public class ManageUsersActivity extends AppCompatActivity {
                 userList.clear();
                 for (DataSnapshot ds : snapshot.getChildren()) {
                     User user = ds.getValue(User.class);
-                    if (user != null) userList.add(user);
+                    if (user != null) {
+                        if (user.getId() == null) user.setId(ds.getKey());
+                        userList.add(user);
+                    }
                 }
-                userAdapter.notifyDataSetChanged();
+                userAdapter.submitList(new ArrayList<>(userList));
                 progressBar.setVisibility(View.GONE);
             }
 
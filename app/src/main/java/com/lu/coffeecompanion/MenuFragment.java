@@ -6,22 +6,25 @@ import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ImageView;
-import android.widget.LinearLayout;
-import android.widget.ProgressBar;
-import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
-import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.lu.coffeecompanion.adapters.MenuItemAdapter;
+import com.lu.coffeecompanion.adapters.SharedViewPool;
+import com.lu.coffeecompanion.data.CatalogSync;
+import com.lu.coffeecompanion.data.ImageRenditions;
 import com.lu.coffeecompanion.databinding.FragmentMenuBinding;
 
 import java.util.ArrayList;
@@ -30,7 +33,12 @@ import java.util.List;
 public class MenuFragment extends Fragment {
 
     private static final String TAG = "MenuFragment";
+    // Rows ahead of the viewport whose images Glide fetches while the user scrolls
+    private static final int PRELOAD_AHEAD = 10;
     private FragmentMenuBinding binding;
+    private MenuItemAdapter menuAdapter;
+    private int imageSizePx;
+    private final List<MenuItemAdapter.Item> loadedItems = new ArrayList<>();
     private FirebaseFirestore db;
     private FirebaseAuth auth;
     private int dataSourcesLoaded = 0;
@@ -52,6 +60,8 @@ public class MenuFragment extends Fragment {
             return binding.getRoot();
         }
 
+        setupMenuList();
+
         binding.swipeRefreshLayout.setOnRefreshListener(() -> {
             Log.d(TAG, "Refreshing menu");
             refreshMenu();
@@ -59,7 +69,6 @@ public class MenuFragment extends Fragment {
 
         // Initialize UI
         binding.progressBar.setVisibility(View.VISIBLE);
-        binding.menuContainer.setVisibility(View.GONE);
         binding.emptyStateContainer.setVisibility(View.GONE);
 
         if (isFirstLoad) {
@@ -70,42 +79,79 @@ public class MenuFragment extends Fragment {
         return binding.getRoot();
     }
 
+    private void setupMenuList() {
+        RecyclerView recyclerView = binding.menuRecyclerView;
+        LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
+        // Hand rows back to the shared pool when this tab's view is torn down
+        layoutManager.setRecycleChildrenOnDetach(true);
+        recyclerView.setLayoutManager(layoutManager);
+
+        RecyclerView.RecycledViewPool pool = SharedViewPool.of(requireActivity());
+        pool.setMaxRecycledViews(MenuItemAdapter.VIEW_TYPE, SharedViewPool.MAX_ROWS_PER_TYPE);
+        recyclerView.setRecycledViewPool(pool);
+
+        menuAdapter = new MenuItemAdapter(Glide.with(this), this::onMenuItemClick);
+        recyclerView.setAdapter(menuAdapter);
+
+        // Item images are a fixed 100dp square (item_coffee_vertical_simple)
+        imageSizePx = ImageRenditions.dpToPx(requireContext(), 100);
+        recyclerView.addOnScrollListener(new RecyclerViewPreloader<>(Glide.with(this), menuAdapter,
+                new FixedPreloadSizeProvider<>(imageSizePx, imageSizePx), PRELOAD_AHEAD));
+    }
+
+    private void onMenuItemClick(MenuItemAdapter.Item item) {
+        if (item.getKind() == MenuItemAdapter.KIND_COFFEE) {
+            Intent intent = new Intent(requireContext(), CoffeePicksActivity.class);
+            intent.putExtra("docId", item.getId());
+            startActivity(intent);
+        } else {
+            Toast.makeText(requireContext(),
+                    item.getName() + " - " + item.getDescription(),
+                    Toast.LENGTH_SHORT).show();
+        }
+    }
+
     private void navigateToLogin() {
         Intent intent = new Intent(requireContext(), MainActivity.class);
         startActivity(intent);
         requireActivity().finish();
     }
 
+    // Pull-to-refresh asks the server for what changed since the last sync
     private void refreshMenu() {
-        binding.menuContainer.removeAllViews();
+        loadedItems.clear();
         dataSourcesLoaded = 0;
-        loadAllMenuData();
+        loadAllMenuData(true);
     }
 
     private void loadAllMenuData() {
+        loadAllMenuData(false);
+    }
+
+    private void loadAllMenuData(boolean refresh) {
         Log.d(TAG, "Loading ALL menu data...");
 
         // Reset counter
         dataSourcesLoaded = 0;
+        loadedItems.clear();
 
         // Load both data sources
-        //loadCoffees();
-        loadInventoryItems();
+        //loadCoffees(refresh);
+        loadInventoryItems(refresh);
     }
 
-    private void loadCoffees() {
+    private void loadCoffees(boolean refresh) {
         Log.d(TAG, "Attempting to load coffees collection...");
 
-        db.collection("coffees")
-                .orderBy("order")
-                .get()
+        CatalogSync.getInstance(requireContext())
+                .sync(db.collection("coffees"), refresh)
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
                         int count = task.getResult().size();
                         Log.d(TAG, "✓ SUCCESS: Loaded " + count + " coffee items");
 
                         // Add coffee items to UI
-                        for (DocumentSnapshot document : task.getResult()) {
+                        for (DocumentSnapshot document : CatalogSync.sortedBy(task.getResult(), "order")) {
                             addCoffeeItemToView(document);
                         }
                     } else {
@@ -119,11 +165,11 @@ public class MenuFragment extends Fragment {
                 });
     }
 
-    private void loadInventoryItems() {
+    private void loadInventoryItems(boolean refresh) {
         Log.d(TAG, "Attempting to load inventory collection...");
 
-        db.collection("inventory")
-                .get()
+        CatalogSync.getInstance(requireContext())
+                .sync(db.collection("inventory"), refresh)
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
                         int totalDocs = task.getResult().size();
@@ -137,7 +183,7 @@ public class MenuFragment extends Fragment {
                             Long quantity = document.getLong("quantity");
                             Double price = document.getDouble("price");
                             Boolean isArchived = document.getBoolean("isArchived");
-                            String imageUrl = document.getString("imageUrl");
+                            String imageUrl = ImageRenditions.pick(document, imageSizePx);
 
                             Log.d(TAG, "Inventory item: " + productName +
                                     ", Archived: " + isArchived +
@@ -168,6 +214,7 @@ public class MenuFragment extends Fragment {
     }
 
     private void dataSourceLoaded() {
+        if (binding == null) return;
         dataSourcesLoaded++;
         Log.d(TAG, "Data source loaded: " + dataSourcesLoaded + "/" + TOTAL_DATA_SOURCES);
 
@@ -177,12 +224,13 @@ public class MenuFragment extends Fragment {
                 binding.swipeRefreshLayout.setRefreshing(false);
             }
 
-            // Check if we have any items in the container
-            if (binding.menuContainer.getChildCount() == 0) {
+            // One submit for everything loaded; the differ only touches rows that changed
+            menuAdapter.submitList(new ArrayList<>(loadedItems));
+
+            if (loadedItems.isEmpty()) {
                 showEmptyState();
             } else {
                 binding.progressBar.setVisibility(View.GONE);
-                binding.menuContainer.setVisibility(View.VISIBLE);
                 binding.emptyStateContainer.setVisibility(View.GONE);
 
                 // Show total count
@@ -192,111 +240,36 @@ public class MenuFragment extends Fragment {
     }
 
     private void addCoffeeItemToView(DocumentSnapshot document) {
-        try {
-            String coffeeName = document.getString("name");
-            String imageUrl = document.getString("imageUrl");
-            String docId = document.getId();
-            String description = document.getString("description");
-
-            if (coffeeName == null || coffeeName.isEmpty()) {
-                Log.w(TAG, "Skipping coffee item with no name");
-                return;
-            }
-
-            View coffeeLayout = LayoutInflater.from(requireContext())
-                    .inflate(R.layout.item_coffee_vertical_simple, binding.menuContainer, false);
-
-            ImageView coffeeImage = coffeeLayout.findViewById(R.id.coffee_image);
-            TextView coffeeText = coffeeLayout.findViewById(R.id.coffee_name);
-            TextView coffeeDescription = coffeeLayout.findViewById(R.id.coffee_description);
-
-            coffeeText.setText(coffeeName);
-
-            if (description != null && !description.isEmpty()) {
-                coffeeDescription.setText(description);
-            } else {
-                coffeeDescription.setVisibility(View.GONE);
-            }
-
-            // Load image with Glide
-            if (imageUrl != null && !imageUrl.isEmpty()) {
-                Glide.with(requireContext())
-                        .load(imageUrl)
-                        .placeholder(R.drawable.image_placeholder)
-                        .into(coffeeImage);
-            }
-
-            // Set click listener for coffee items
-            coffeeLayout.setOnClickListener(v -> {
-                Intent intent = new Intent(requireContext(), CoffeePicksActivity.class);
-                intent.putExtra("docId", docId);
-                startActivity(intent);
-            });
-
-            binding.menuContainer.addView(coffeeLayout);
-            Log.d(TAG, "✓ Added coffee: " + coffeeName);
-
-        } catch (Exception e) {
-            Log.e(TAG, "Error adding coffee item: " + e.getMessage());
+        String coffeeName = document.getString("name");
+        if (coffeeName == null || coffeeName.isEmpty()) {
+            Log.w(TAG, "Skipping coffee item with no name");
+            return;
         }
+
+        loadedItems.add(new MenuItemAdapter.Item(document.getId(), MenuItemAdapter.KIND_COFFEE,
+                coffeeName, document.getString("description"), ImageRenditions.pick(document, imageSizePx)));
+        Log.d(TAG, "✓ Added coffee: " + coffeeName);
     }
 
     private void addInventoryItemToView(String id, String productName, int quantity, double price, String imageUrl) {
-        try {
-            View inventoryLayout = LayoutInflater.from(requireContext())
-                    .inflate(R.layout.item_coffee_vertical_simple, binding.menuContainer, false);
-
-            ImageView itemImage = inventoryLayout.findViewById(R.id.coffee_image);
-            TextView itemName = inventoryLayout.findViewById(R.id.coffee_name);
-            TextView itemDescription = inventoryLayout.findViewById(R.id.coffee_description);
-
-            // Set item details
-            itemName.setText(productName);
-
-            // Show price and stock in description
-            String descriptionText = String.format("₱%.2f", price);
-            itemDescription.setText(descriptionText);
-            itemDescription.setVisibility(View.VISIBLE);
-
-            // Load image with Glide
-            if (imageUrl != null && !imageUrl.isEmpty()) {
-                Glide.with(requireContext())
-                        .load(imageUrl)
-                        .placeholder(R.drawable.image_placeholder)
-                        .into(itemImage);
-            }
-
-            // Set click listener for inventory items
-            inventoryLayout.setOnClickListener(v -> {
-                Toast.makeText(requireContext(),
-                        productName + " - ₱" + String.format("%.2f", price),
-                        Toast.LENGTH_SHORT).show();
-            });
-
-            binding.menuContainer.addView(inventoryLayout);
-            Log.d(TAG, "✓ Added inventory: " + productName + " (₱" + price + ")");
-
-        } catch (Exception e) {
-            Log.e(TAG, "Error adding inventory item: " + e.getMessage());
-        }
+        // Show price in description
+        String descriptionText = String.format("₱%.2f", price);
+        loadedItems.add(new MenuItemAdapter.Item(id, MenuItemAdapter.KIND_INVENTORY,
+                productName, descriptionText, imageUrl));
+        Log.d(TAG, "✓ Added inventory: " + productName + " (₱" + price + ")");
     }
 
     private void showTotalCount() {
-        int itemCount = binding.menuContainer.getChildCount();
-        TextView countView = new TextView(requireContext());
-        countView.setText("Total Items: " + itemCount);
-        countView.setTextSize(12);
-        countView.setTextColor(getResources().getColor(android.R.color.darker_gray));
-        countView.setPadding(16, 16, 16, 32);
-        countView.setTextAlignment(View.TEXT_ALIGNMENT_CENTER);
-        binding.menuContainer.addView(countView);
+        int itemCount = loadedItems.size();
+        binding.totalCount.setText("Total Items: " + itemCount);
+        binding.totalCount.setVisibility(View.VISIBLE);
 
         Log.d(TAG, "Total items displayed: " + itemCount);
     }
 
     private void showEmptyState() {
         binding.progressBar.setVisibility(View.GONE);
-        binding.menuContainer.setVisibility(View.GONE);
+        binding.totalCount.setVisibility(View.GONE);
         binding.emptyStateContainer.setVisibility(View.VISIBLE);
         Log.d(TAG, "Showing empty state - no items found");
     }
@@ -310,6 +283,7 @@ public class MenuFragment extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        menuAdapter = null;
         binding = null;
         isFirstLoad = true;
     }
@@ -13,6 +13,8 @@ import android.widget.ImageView;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.app.AlertDialog;
 
@@ -20,14 +22,21 @@ import com.bumptech.glide.Glide;
 import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.WriteBatch;
+import com.lu.coffeecompanion.data.MenuItemRepository;
+import com.lu.coffeecompanion.data.OrderLines;
+import com.lu.coffeecompanion.data.OrderStatusHub;
+import com.lu.coffeecompanion.data.OrderStatuses;
+import com.lu.coffeecompanion.data.RatingAggregator;
 import com.lu.coffeecompanion.databinding.ActivityOrderDetailsBinding;
 import com.lu.coffeecompanion.models.Review;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 
 public class OrderDetailsActivity extends AppCompatActivity {
@@ -41,7 +50,8 @@ public class OrderDetailsActivity extends AppCompatActivity {
     private FirebaseAuth mAuth;
     private String userId;
     private String orderId;
-    private ListenerRegistration statusListener;
+    // Latest copy from the hub; rating checks read the status here instead of fetching the order
+    private DocumentSnapshot currentOrder;
     private Handler countdownHandler;
     private Runnable countdownRunnable;
     private long orderTimestampMillis;
@@ -97,27 +107,31 @@ public class OrderDetailsActivity extends AppCompatActivity {
     private void loadOrderDetails() {
         showLoading(true);
 
-        // Real-time listener for status updates
-        statusListener = db.collection("orders")
-                .document(orderId)
-                .addSnapshotListener((document, error) -> {
-                    if (error != null) {
-                        Log.e(TAG, "Error loading order", error);
-                        showLoading(false);
-                        Toast.makeText(this, "Failed to load order", Toast.LENGTH_SHORT).show();
-                        return;
-                    }
+        // Status updates arrive through the hub shared with the account tab and order history
+        OrderStatusHub.getInstance().observeOrder(this, userId, orderId, new OrderStatusHub.OrderObserver() {
+            @Override
+            public void onOrderChanged(@Nullable DocumentSnapshot document) {
+                if (isFinishing()) return;
+
+                if (document != null) {
+                    currentOrder = document;
+                    displayOrderDetails(document);
+                    loadOrderItems(document);
+                    startCancelCountdown(document);
+                } else {
+                    showLoading(false);
+                    Toast.makeText(OrderDetailsActivity.this, "Order not found", Toast.LENGTH_SHORT).show();
+                    finish();
+                }
+            }
 
-                    if (document != null && document.exists()) {
-                        displayOrderDetails(document);
-                        loadOrderItems();
-                        startCancelCountdown(document);
-                    } else {
-                        showLoading(false);
-                        Toast.makeText(this, "Order not found", Toast.LENGTH_SHORT).show();
-                        finish();
-                    }
-                });
+            @Override
+            public void onError(@NonNull Exception error) {
+                Log.e(TAG, "Error loading order", error);
+                showLoading(false);
+                Toast.makeText(OrderDetailsActivity.this, "Failed to load order", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     private void displayOrderDetails(DocumentSnapshot document) {
@@ -245,10 +259,22 @@ public class OrderDetailsActivity extends AppCompatActivity {
         tvStatus.setPadding(24, 12, 24, 12);
     }
 
-    private void loadOrderItems() {
-        showLoading(true);
+    private void loadOrderItems(DocumentSnapshot order) {
         binding.itemContainer.removeAllViews();
 
+        // Lines saved at checkout: no further reads, and the prices that were paid
+        List<OrderLines.Line> lines = OrderLines.of(order);
+        if (lines != null) {
+            for (OrderLines.Line line : lines) {
+                displayMenuItem(line.getName(), line.getUnitPrice(), line.getImageUrl(),
+                        (double) line.getQuantity(), line.getDocId());
+            }
+            showLoading(false);
+            return;
+        }
+
+        showLoading(true);
+
         db.collection("orders")
                 .document(orderId)
                 .collection("items")
@@ -261,10 +287,11 @@ public class OrderDetailsActivity extends AppCompatActivity {
 
                     for (DocumentSnapshot itemDoc : querySnapshot.getDocuments()) {
                         String docId = itemDoc.getString("docId");
+                        String shopId = itemDoc.getString("shopId");
                         Double quantity = itemDoc.getDouble("quantity");
 
                         if (docId != null && quantity != null) {
-                            loadMenuItem(docId, quantity);
+                            loadMenuItem(docId, shopId, quantity);
                         }
                     }
 
@@ -276,31 +303,17 @@ public class OrderDetailsActivity extends AppCompatActivity {
                 });
     }
 
-    private void loadMenuItem(String menuItemId, Double quantity) {
-        db.collection("shops")
-                .get()
-                .addOnSuccessListener(shopsSnapshot -> {
-                    for (DocumentSnapshot shop : shopsSnapshot.getDocuments()) {
-                        String shopId = shop.getId();
-
-                        db.collection("shops")
-                                .document(shopId)
-                                .collection("menu")
-                                .document(menuItemId)
-                                .get()
-                                .addOnSuccessListener(menuItem -> {
-                                    if (menuItem.exists()) {
-                                        String itemName = menuItem.getString("name");
-                                        Double price = menuItem.getDouble("price");
-                                        String imageUrl = menuItem.getString("imageUrl");
-
-                                        if (itemName != null && price != null) {
-                                            displayMenuItem(itemName, price, imageUrl, quantity, menuItemId);
-                                        }
-                                    }
-                                });
-                    }
-                });
+    private void loadMenuItem(String menuItemId, String shopId, Double quantity) {
+        MenuItemRepository.getInstance().getMenuItem(menuItemId, shopId, entry -> {
+            if (entry == null || isFinishing()) return;
+
+            String itemName = entry.getName();
+            Double price = entry.getPrice();
+
+            if (itemName != null && price != null) {
+                displayMenuItem(itemName, price, entry.getImageUrl(), quantity, menuItemId);
+            }
+        });
     }
 
     private void displayMenuItem(String itemName, Double price, String imageUrl, Double quantity, String menuItemId) {
@@ -331,15 +344,13 @@ public class OrderDetailsActivity extends AppCompatActivity {
 
         // Rating button click
         rateBtn.setOnClickListener(v -> {
-            db.collection("orders").document(orderId).get().addOnSuccessListener(doc -> {
-                String status = doc.getString("status");
-                if (status != null && status.equalsIgnoreCase("completed")) {
-                    RatingDialog.showRatingDialog(this, orderId, menuItemId, itemName,
-                            (oId, mId, name, rating, feedback) -> submitRating(oId, mId, name, rating, feedback));
-                } else {
-                    Toast.makeText(this, "Order must be completed to rate", Toast.LENGTH_SHORT).show();
-                }
-            });
+            String status = currentOrder != null ? currentOrder.getString("status") : null;
+            if (status != null && status.equalsIgnoreCase("completed")) {
+                RatingDialog.showRatingDialog(this, orderId, menuItemId, itemName,
+                        (oId, mId, name, rating, feedback) -> submitRating(oId, mId, name, rating, feedback));
+            } else {
+                Toast.makeText(this, "Order must be completed to rate", Toast.LENGTH_SHORT).show();
+            }
         });
 
         binding.itemContainer.addView(orderView);
@@ -370,11 +381,20 @@ public class OrderDetailsActivity extends AppCompatActivity {
 
         Review review = new Review(orderId, menuItemId, itemName, userId, userName, rating, feedback);
 
-        db.collection("reviews").add(review)
-                .addOnSuccessListener(documentReference -> {
+        // The review and the product's running totals land together
+        DocumentReference reviewRef = db.collection("reviews").document();
+        WriteBatch batch = db.batch();
+        batch.set(reviewRef, review);
+        RatingAggregator.addRating(db, batch, menuItemId, rating);
+
+        batch.commit()
+                .addOnSuccessListener(unused -> {
                     Toast.makeText(this, "Rating submitted successfully", Toast.LENGTH_SHORT).show();
-                    Log.d(TAG, "Review added: " + documentReference.getId());
-                    loadOrderDetails();
+                    Log.d(TAG, "Review added: " + reviewRef.getId());
+                    // Redraw the items so the rated one shows as rated
+                    if (currentOrder != null) {
+                        loadOrderItems(currentOrder);
+                    }
                 })
                 .addOnFailureListener(e -> {
                     Toast.makeText(this, "Failed to submit rating: " + e.getMessage(), Toast.LENGTH_SHORT).show();
@@ -466,7 +486,7 @@ public class OrderDetailsActivity extends AppCompatActivity {
     private void cancelOrder() {
         db.collection("orders")
                 .document(orderId)
-                .update("status", "cancelled")
+                .update("status", OrderStatuses.CANCELLED)
                 .addOnSuccessListener(aVoid -> {
                     Toast.makeText(this, "Order cancelled successfully", Toast.LENGTH_SHORT).show();
                     Log.d(TAG, "Order cancelled: " + orderId);
@@ -485,9 +505,6 @@ public class OrderDetailsActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (statusListener != null) {
-            statusListener.remove();
-        }
         if (countdownHandler != null && countdownRunnable != null) {
             countdownHandler.removeCallbacks(countdownRunnable);
         }
@@ -7,16 +7,17 @@ import android.view.View;
 import android.widget.Button;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.ListenerRegistration;
-import com.google.firebase.firestore.Query;
 import com.lu.coffeecompanion.adapters.UserOrderAdapter;
+import com.lu.coffeecompanion.data.OrderPageSource;
 import com.lu.coffeecompanion.databinding.ActivityOrdersBinding;
 import com.lu.coffeecompanion.models.Order;
 
@@ -26,14 +27,15 @@ import java.util.List;
 public class OrdersActivity extends AppCompatActivity {
 
     private static final String TAG = "OrdersActivity";
+    private static final int LOAD_MORE_THRESHOLD = 5;
 
     private ActivityOrdersBinding binding;
     private FirebaseFirestore db;
     private FirebaseAuth auth;
     private String userId;
     private UserOrderAdapter adapter;
-    private List<Order> orderList;
-    private ListenerRegistration orderListener;
+    private OrderPageSource pageSource;
+    private int pageSize;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -47,6 +49,8 @@ public class OrdersActivity extends AppCompatActivity {
             return;
         }
 
+        pageSize = getIntent().getIntExtra("pageSize", OrderPageSource.DEFAULT_PAGE_SIZE);
+
         setupUI();
         loadAllOrders();
     }
@@ -76,12 +80,25 @@ public class OrdersActivity extends AppCompatActivity {
             binding.swipeRefreshLayout.setRefreshing(false);
         });
 
-        orderList = new ArrayList<>();
-        adapter = new UserOrderAdapter(this, orderList);
+        adapter = new UserOrderAdapter(this);
 
-        binding.recyclerViewOrders.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        binding.recyclerViewOrders.setLayoutManager(layoutManager);
         binding.recyclerViewOrders.setAdapter(adapter);
 
+        // Fetch the next page when the user nears the end of what is loaded
+        binding.recyclerViewOrders.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy <= 0 || pageSource == null || !pageSource.hasMore()) return;
+
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible >= adapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    pageSource.loadMore();
+                }
+            }
+        });
+
         // Add "See All Reviews" button
         setupReviewsButton();
     }
@@ -121,76 +138,41 @@ public class OrdersActivity extends AppCompatActivity {
         showLoading(true);
         showEmptyState(false);
 
-        Log.d(TAG, "Loading all orders for userId: " + userId);
-
-        // Remove old listener
-        if (orderListener != null) {
-            orderListener.remove();
-        }
-
-        // FIXED: Simple query without orderBy to avoid index requirement
-        Query query = db.collection("orders")
-                .whereEqualTo("userId", userId);
-
-        orderListener = query.addSnapshotListener((querySnapshot, error) -> {
-            if (error != null) {
-                Log.e(TAG, "Error loading orders", error);
-                showLoading(false);
-                showEmptyState(true);
-                Toast.makeText(this, "Failed to load orders: " + error.getMessage(), Toast.LENGTH_SHORT).show();
-                return;
-            }
-
-            processOrders(querySnapshot);
-        });
-    }
-
-    private void processOrders(com.google.firebase.firestore.QuerySnapshot querySnapshot) {
-        if (querySnapshot == null || querySnapshot.isEmpty()) {
-            Log.d(TAG, "No orders found for user");
-            showLoading(false);
-            showEmptyState(true);
-            return;
-        }
+        Log.d(TAG, "Loading orders for userId: " + userId + " (page size " + pageSize + ")");
 
-        orderList.clear();
+        if (pageSource == null) {
+            pageSource = new OrderPageSource(db, userId, pageSize, new OrderPageSource.Listener() {
+                @Override
+                public void onOrdersChanged(@NonNull List<DocumentSnapshot> orders, boolean hasMore) {
+                    processOrders(orders);
+                }
 
-        for (DocumentSnapshot document : querySnapshot.getDocuments()) {
-            Order order = documentToOrder(document);
-            orderList.add(order);
+                @Override
+                public void onError(@NonNull Exception e) {
+                    showLoading(false);
+                    if (adapter.getItemCount() == 0) {
+                        showEmptyState(true);
+                    }
+                    Toast.makeText(OrdersActivity.this, "Failed to load orders: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                }
+            });
         }
 
-        // FIXED: Sort manually in Java (descending by timestamp - newest first)
-        orderList.sort((o1, o2) -> {
-            long time1 = o1.getTimestamp() > 0 ? o1.getTimestamp() : 0;
-            long time2 = o2.getTimestamp() > 0 ? o2.getTimestamp() : 0;
-            return Long.compare(time2, time1); // Descending order (newest first)
-        });
-
-        updateUIAfterLoading();
+        // Restarts the live first page; older pages load again on scroll
+        pageSource.start();
     }
 
-    private void updateUIAfterLoading() {
-        Log.d(TAG, "Loaded " + orderList.size() + " orders");
-
-        if (orderList.isEmpty()) {
-            showLoading(false);
-            showEmptyState(true);
-            return;
+    private void processOrders(List<DocumentSnapshot> documents) {
+        List<Order> orders = new ArrayList<>(documents.size());
+        for (DocumentSnapshot document : documents) {
+            orders.add(documentToOrder(document));
         }
 
-        adapter.notifyDataSetChanged();
-        showLoading(false);
-        showEmptyState(false);
+        Log.d(TAG, "Loaded " + orders.size() + " orders");
 
-        // Log order details for debugging
-        for (Order order : orderList) {
-            Log.d(TAG, "Order: " + order.getOrderId() +
-                    ", Receipt: " + order.getReceiptNumber() +
-                    ", Status: " + order.getStatus() +
-                    ", Total: " + order.getTotalAmount() +
-                    ", Timestamp: " + order.getTimestamp());
-        }
+        adapter.submitList(orders);
+        showLoading(false);
+        showEmptyState(orders.isEmpty());
     }
 
     private Order documentToOrder(DocumentSnapshot document) {
@@ -277,21 +259,12 @@ public class OrdersActivity extends AppCompatActivity {
         binding.progressBar.setVisibility(View.GONE);
     }
 
-    @Override
-    protected void onResume() {
-        super.onResume();
-        // Refresh orders when activity resumes
-        if (userId != null) {
-            loadAllOrders();
-        }
-    }
-
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (orderListener != null) {
-            orderListener.remove();
-            orderListener = null;
+        if (pageSource != null) {
+            pageSource.stop();
+            pageSource = null;
         }
     }
-}
\ No newline at end of file
+}
@@ -17,6 +17,7 @@ import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.lu.coffeecompanion.adapters.ProductReviewAdapter;
+import com.lu.coffeecompanion.data.RatingHistogram;
 import com.lu.coffeecompanion.models.ProductReview;
 
 import java.text.SimpleDateFormat;
@@ -199,70 +200,23 @@ public class ProductReviewsActivity extends AppCompatActivity {
     private void loadProductStatistics() {
         Log.d(TAG, "📊 Loading product statistics for: " + productId);
 
-        db.collection("products")
-                .document(productId)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot != null && documentSnapshot.exists()) {
-                        Double averageRating = documentSnapshot.getDouble("averageRating");
-                        Long ratingCount = documentSnapshot.getLong("ratingCount");
-
-                        if (averageRating != null && tvAverageRating != null) {
-                            tvAverageRating.setText(String.format(Locale.getDefault(), "%.1f", averageRating));
-                            Log.d(TAG, "⭐ Average rating: " + averageRating);
-                        }
-
-                        if (ratingCount != null && tvReviewCount != null) {
-                            String reviewText = ratingCount + (ratingCount == 1 ? " review" : " reviews");
-                            tvReviewCount.setText(reviewText);
-                            Log.d(TAG, "📈 Review count from products collection: " + ratingCount);
-                        }
-                    } else {
-                        Log.w(TAG, "⚠️ Product statistics not found in 'products' collection");
-
-                        // Fallback: Calculate from productRatings collection
-                        calculateStatsFromReviews();
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "❌ Error loading product statistics", e);
-                    calculateStatsFromReviews();
-                });
-    }
-
-    private void calculateStatsFromReviews() {
-        Log.d(TAG, "🔢 Calculating stats from reviews collection");
-
-        db.collection("productRatings")
-                .whereEqualTo("productId", productId)
-                .get()
-                .addOnSuccessListener(snapshot -> {
-                    int count = snapshot.size();
-                    float totalRating = 0;
-
-                    for (QueryDocumentSnapshot doc : snapshot) {
-                        Double rating = doc.getDouble("rating");
-                        if (rating != null) {
-                            totalRating += rating;
-                        }
-                    }
-
-                    float avg = count > 0 ? totalRating / count : 0;
-
-                    if (tvAverageRating != null) {
-                        tvAverageRating.setText(String.format(Locale.getDefault(), "%.1f", avg));
-                        Log.d(TAG, "📊 Calculated average: " + avg);
-                    }
-
-                    if (tvReviewCount != null) {
-                        String reviewText = count + (count == 1 ? " review" : " reviews");
-                        tvReviewCount.setText(reviewText);
-                        Log.d(TAG, "📊 Calculated count: " + count);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "❌ Error calculating stats from reviews", e);
-                });
+        // Running totals kept by RatingAggregator; no scan over productRatings
+        RatingHistogram.load(db, productId, histogram -> {
+            if (histogram == null) {
+                Log.w(TAG, "⚠️ No rating totals for this product yet");
+                return;
+            }
+
+            if (tvAverageRating != null) {
+                tvAverageRating.setText(String.format(Locale.getDefault(), "%.1f", histogram.getAverage()));
+            }
+
+            long ratingCount = histogram.getCount();
+            if (tvReviewCount != null) {
+                String reviewText = ratingCount + (ratingCount == 1 ? " review" : " reviews");
+                tvReviewCount.setText(reviewText);
+            }
+        });
     }
 
     private void updateUIAfterLoading() {
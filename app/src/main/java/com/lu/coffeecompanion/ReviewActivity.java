@@ -23,8 +23,9 @@ import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
-import com.google.firebase.firestore.SetOptions;
 import com.google.firebase.firestore.WriteBatch;
+import com.lu.coffeecompanion.data.OrderLines;
+import com.lu.coffeecompanion.data.RatingAggregator;
 
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -183,7 +184,7 @@ public class ReviewActivity extends AppCompatActivity {
                     }
 
                     // Load order items
-                    loadOrderItems();
+                    loadOrderItems(doc);
 
                 })
                 .addOnFailureListener(e -> {
@@ -193,9 +194,25 @@ public class ReviewActivity extends AppCompatActivity {
                 });
     }
 
-    private void loadOrderItems() {
+    private void loadOrderItems(DocumentSnapshot order) {
         Log.d(TAG, "🔄 Loading order items...");
 
+        // Lines saved at checkout name every product; no items query needed
+        List<OrderLines.Line> lines = OrderLines.of(order);
+        if (lines != null && !lines.isEmpty()) {
+            for (OrderLines.Line line : lines) {
+                OrderItem item = new OrderItem();
+                item.productId = line.getDocId();
+                item.name = line.getName();
+                item.imageUrl = line.getImageUrl();
+                item.quantity = line.getQuantity();
+                item.shopId = line.getShopId() != null ? line.getShopId() : shopId;
+                addOrderItem(item);
+            }
+            createProductCards();
+            return;
+        }
+
         db.collection("orders").document(orderId).collection("items")
                 .get()
                 .addOnSuccessListener(query -> {
@@ -221,22 +238,7 @@ public class ReviewActivity extends AppCompatActivity {
                         String itemShopId = doc.getString("shopId");
                         item.shopId = itemShopId != null ? itemShopId : shopId;
 
-                        orderItems.add(item);
-
-                        Log.d(TAG, "📦 Item: " + item.name);
-                        Log.d(TAG, "   - Product ID: " + item.productId);
-                        Log.d(TAG, "   - Shop ID: " + item.shopId);
-
-                        // Store first product for redirection to ProductReviewsActivity
-                        if (firstProductId == null && item.productId != null) {
-                            firstProductId = item.productId;
-                            firstProductName = item.name;
-                            firstShopId = item.shopId;
-                            Log.d(TAG, "🎯 First product set for ProductReviewsActivity:");
-                            Log.d(TAG, "   - ID: " + firstProductId);
-                            Log.d(TAG, "   - Name: " + firstProductName);
-                            Log.d(TAG, "   - Shop: " + firstShopId);
-                        }
+                        addOrderItem(item);
                     }
 
                     createProductCards();
@@ -248,6 +250,25 @@ public class ReviewActivity extends AppCompatActivity {
                 });
     }
 
+    private void addOrderItem(OrderItem item) {
+        orderItems.add(item);
+
+        Log.d(TAG, "📦 Item: " + item.name);
+        Log.d(TAG, "   - Product ID: " + item.productId);
+        Log.d(TAG, "   - Shop ID: " + item.shopId);
+
+        // Store first product for redirection to ProductReviewsActivity
+        if (firstProductId == null && item.productId != null) {
+            firstProductId = item.productId;
+            firstProductName = item.name;
+            firstShopId = item.shopId;
+            Log.d(TAG, "🎯 First product set for ProductReviewsActivity:");
+            Log.d(TAG, "   - ID: " + firstProductId);
+            Log.d(TAG, "   - Name: " + firstProductName);
+            Log.d(TAG, "   - Shop: " + firstShopId);
+        }
+    }
+
     private void createProductCards() {
         containerProductRatings.removeAllViews();
 
@@ -410,6 +431,7 @@ public class ReviewActivity extends AppCompatActivity {
             ratingData.put("timestamp", FieldValue.serverTimestamp());
 
             batch.set(db.collection("productRatings").document(), ratingData);
+            RatingAggregator.addRating(db, batch, productId, pr.rating);
             Log.d(TAG, "✅ Added product rating for: " + productId);
         }
 
@@ -419,11 +441,6 @@ public class ReviewActivity extends AppCompatActivity {
                     Log.d(TAG, "🎉🎉🎉 BATCH COMMIT SUCCESSFUL! 🎉🎉🎉");
                     Log.d(TAG, "Saved " + productRatings.size() + " product ratings");
 
-                    // Update product statistics
-                    for (String productId : productRatings.keySet()) {
-                        updateProductStats(productId);
-                    }
-
                     showSuccessAndRedirectToProductReviews();
                 })
                 .addOnFailureListener(e -> {
@@ -437,66 +454,6 @@ public class ReviewActivity extends AppCompatActivity {
                 });
     }
 
-    private void updateProductStats(String productId) {
-        Log.d(TAG, "🔄 Calculating stats for product: " + productId);
-
-        db.collection("productRatings")
-                .whereEqualTo("productId", productId)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    if (querySnapshot.isEmpty()) {
-                        Log.w(TAG, "No ratings found for product: " + productId);
-                        return;
-                    }
-
-                    float total = 0;
-                    int count = 0;
-
-                    for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                        Double rating = doc.getDouble("rating");
-                        if (rating != null) {
-                            total += rating;
-                            count++;
-                        }
-                    }
-
-                    if (count == 0) return;
-
-                    float average = total / count;
-
-                    Map<String, Object> stats = new HashMap<>();
-                    stats.put("productId", productId);
-                    stats.put("averageRating", average);
-                    stats.put("ratingCount", count);
-                    stats.put("lastUpdated", FieldValue.serverTimestamp());
-
-                    // Get product name from first rating
-                    if (!querySnapshot.getDocuments().isEmpty()) {
-                        String name = querySnapshot.getDocuments().get(0).getString("productName");
-                        if (name != null) {
-                            stats.put("name", name);
-                        }
-                    }
-
-                    int finalCount = count;
-                    db.collection("products").document(productId)
-                            .set(stats, SetOptions.merge())
-                            .addOnSuccessListener(aVoid -> {
-                                Log.d(TAG, "✅ Updated product stats:");
-                                Log.d(TAG, "   - Product: " + productId);
-                                Log.d(TAG, "   - Average: " + String.format("%.1f", average));
-                                Log.d(TAG, "   - Count: " + finalCount);
-                            })
-                            .addOnFailureListener(e -> {
-                                Log.e(TAG, "❌ Failed to update product stats", e);
-                            });
-
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "❌ Failed to calculate product stats", e);
-                });
-    }
-
     private void showSuccessAndRedirectToProductReviews() {
         Log.d(TAG, "✅ Showing success message...");
 
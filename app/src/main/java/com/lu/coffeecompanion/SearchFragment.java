@@ -1,6 +1,11 @@
 package com.lu.coffeecompanion;
 
+import android.content.Intent;
 import android.os.Bundle;
+import android.os.SystemClock;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -8,25 +13,113 @@ import android.view.ViewGroup;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
+import com.lu.coffeecompanion.adapters.MenuItemAdapter;
+import com.lu.coffeecompanion.adapters.SharedViewPool;
+import com.lu.coffeecompanion.data.ImageRenditions;
+import com.lu.coffeecompanion.data.MenuSearch;
+import com.lu.coffeecompanion.data.MenuSearchIndex;
 import com.lu.coffeecompanion.databinding.SearchFragmentBinding;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class SearchFragment extends Fragment {
+
+    private static final String TAG = "SearchFragment";
+    private static final int MAX_RESULTS = 50;
+    private static final int PRELOAD_AHEAD = 10;
+    // One frame; a search slower than this shows up as keyboard lag
+    private static final long FRAME_BUDGET_MS = 16;
+
     SearchFragmentBinding binding;
+    private MenuItemAdapter adapter;
 
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
         binding = SearchFragmentBinding.inflate(inflater, container, false);
 
+        RecyclerView recyclerView = binding.searchResults;
+        LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
+        layoutManager.setRecycleChildrenOnDetach(true);
+        recyclerView.setLayoutManager(layoutManager);
+
+        RecyclerView.RecycledViewPool pool = SharedViewPool.of(requireActivity());
+        pool.setMaxRecycledViews(MenuItemAdapter.VIEW_TYPE, SharedViewPool.MAX_ROWS_PER_TYPE);
+        recyclerView.setRecycledViewPool(pool);
+
+        adapter = new MenuItemAdapter(Glide.with(this), this::onResultClick);
+        recyclerView.setAdapter(adapter);
+
+        int imageSizePx = ImageRenditions.dpToPx(requireContext(), 100);
+        recyclerView.addOnScrollListener(new RecyclerViewPreloader<>(Glide.with(this), adapter,
+                new FixedPreloadSizeProvider<>(imageSizePx, imageSizePx), PRELOAD_AHEAD));
+
+        binding.searchInput.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                runSearch();
+            }
+        });
+
+        // Searches the last built index right away; results refresh when the sync brings changes
+        MenuSearch.getInstance().refresh(requireContext(), false, index -> runSearch());
 
         return binding.getRoot();
     }
 
+    // Synchronous on the main thread: the index answers well inside a frame
+    private void runSearch() {
+        if (binding == null) return;
+        String query = binding.searchInput.getText().toString();
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        List<MenuSearchIndex.Entry> hits = MenuSearch.getInstance().current().search(query, MAX_RESULTS);
+        long elapsedMs = (SystemClock.elapsedRealtimeNanos() - start) / 1_000_000;
+        if (elapsedMs > FRAME_BUDGET_MS) {
+            Log.w(TAG, "Search for \"" + query + "\" took " + elapsedMs + " ms");
+        }
+
+        List<MenuItemAdapter.Item> items = new ArrayList<>(hits.size());
+        for (MenuSearchIndex.Entry hit : hits) {
+            int kind = hit.kind == MenuSearchIndex.KIND_MENU ? MenuItemAdapter.KIND_MENU : MenuItemAdapter.KIND_COFFEE;
+            items.add(new MenuItemAdapter.Item(hit.id, kind, hit.name, hit.description, hit.imageUrl, hit.shopId));
+        }
+        adapter.submitList(items);
+
+        boolean noMatches = items.isEmpty() && !query.trim().isEmpty();
+        binding.searchEmpty.setVisibility(noMatches ? View.VISIBLE : View.GONE);
+    }
+
+    private void onResultClick(MenuItemAdapter.Item item) {
+        Intent intent;
+        if (item.getKind() == MenuItemAdapter.KIND_MENU) {
+            intent = new Intent(requireContext(), ItemActivity.class);
+            intent.putExtra("docId", item.getId());
+            intent.putExtra("documentId", item.getShopId());
+        } else {
+            intent = new Intent(requireContext(), CoffeePicksActivity.class);
+            intent.putExtra("docId", item.getId());
+        }
+        startActivity(intent);
+    }
+
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        adapter = null;
         binding = null;
-
     }
-}
\ No newline at end of file
+}
@@ -10,7 +10,6 @@ import android.widget.ImageView;
 import android.widget.Toast;
 
 import androidx.activity.EdgeToEdge;
-import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
@@ -18,12 +17,13 @@ import androidx.core.view.WindowInsetsCompat;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
 import com.bumptech.glide.Glide;
-import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.material.tabs.TabLayout;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.lu.coffeecompanion.data.CatalogCache;
+import com.lu.coffeecompanion.data.CatalogSync;
 import com.lu.coffeecompanion.databinding.ActivityShopMenuBinding;
 
 import java.util.ArrayList;
@@ -42,6 +42,8 @@ public class ShopMenuActivity extends AppCompatActivity {
     FirebaseUser currentUser;
     LinearLayout mainContainer;
     String selectedCategory = null;
+    // Items of each category, cheapest first, from the last menu sync
+    Map<String, List<DocumentSnapshot>> itemsByCategory = new HashMap<>();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -76,9 +78,9 @@ public class ShopMenuActivity extends AppCompatActivity {
         Intent intent = getIntent();
         String documentId = intent.getStringExtra("documentId");
 
-        db.collection("shops")
-                .document(documentId)
-                        .get().addOnCompleteListener(task -> {
+        CatalogCache.getInstance(this)
+                .get(db.collection("shops").document(documentId), CatalogCache.SHOPS)
+                .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
                         DocumentSnapshot document = task.getResult();
                         if (document.exists()) {
@@ -104,14 +106,13 @@ public class ShopMenuActivity extends AppCompatActivity {
             public void onTabReselected(TabLayout.Tab tab) {}
         });
 
-        fetchCategories(documentId);
-        fetchMenu(documentId, selectedCategory);
+        fetchCategories(documentId, false);
 
         binding.swipeRefreshLayout.setOnRefreshListener(new SwipeRefreshLayout.OnRefreshListener() {
             @Override
             public void onRefresh() {
-                fetchCategories(documentId);
-                fetchMenu(documentId, selectedCategory);
+                itemsByCategory.clear();
+                fetchCategories(documentId, true);
                 binding.swipeRefreshLayout.setRefreshing(false);
             }
         });
@@ -121,93 +122,91 @@ public class ShopMenuActivity extends AppCompatActivity {
         });
     }
 
-    //generate menu from firebase
-    public void fetchMenu(String documentId, String selectedCategory){
-        mainContainer = findViewById(R.id.mainContainer);
-        mainContainer.removeAllViews();
-
+    // Tabs come from the shop's menu, kept by CatalogSync's delta sync: after the first read a
+    // reopen costs one query for changed items, and a category added or emptied shows up as it
+    // would from a full read. The same sync fills every tab's items.
+    private void fetchCategories(String documentId, boolean refresh){
         binding.progressBar.setVisibility(View.VISIBLE);
+        fetchWholeMenu(documentId, refresh);
+    }
 
-        db.collection("shops")
-                .document(documentId)
-                .collection("menu")
-                .orderBy("price")
-                .get()
+    private void fetchWholeMenu(String documentId, boolean refresh){
+        CatalogSync.getInstance(this)
+                .sync(db.collection("shops").document(documentId).collection("menu"), refresh)
                 .addOnCompleteListener(task -> {
+                    if (isDestroyed()) return;
+                    binding.progressBar.setVisibility(View.GONE);
                     if (task.isSuccessful()) {
-                        mainContainer.removeAllViews();
-                        for (DocumentSnapshot document : task.getResult()) {
-                            String itemName = (String) document.get("name");
-                            double itemPrice = document.getDouble("price");
-                            String itemDescription = (String) document.get("description");
-                            String imageUrl = (String) document.get("imageUrl");
-                            String category = (String) document.get("category");
-                            String docId = document.getId();
-
-                            View itemView = getLayoutInflater().inflate(R.layout.item_horizontalmenu, null);
-                            TextView nameTextView = itemView.findViewById(R.id.itemName);
-                            TextView priceTextView = itemView.findViewById(R.id.itemPrice);
-                            TextView descriptionTextView = itemView.findViewById(R.id.itemDescription);
-                            ImageView imageView = itemView.findViewById(R.id.imageView);
-                            ImageButton plusButton = itemView.findViewById(R.id.plusButton);
-
-                            LinearLayout itemContainer = itemView.findViewById(R.id.itemContainer);
-
-                            if(category.equals(selectedCategory)){
-                                nameTextView.setText(itemName);
-                                priceTextView.setText("₱" + String.format("%.2f", itemPrice));
-                                descriptionTextView.setText(itemDescription);
-                                Glide.with(getApplicationContext()).load(imageUrl).into(imageView);
-                                mainContainer.addView(itemView);
-
-                                itemContainer.setOnClickListener(v -> {
-                                    Intent intent = new Intent(getApplicationContext(), ItemActivity.class);
-                                    intent.putExtra("docId", docId);
-                                    intent.putExtra("documentId", documentId);
-                                    startActivity(intent);
-                                });
-                                plusButton.setOnClickListener(v -> {
-                                    Intent intent = new Intent(getApplicationContext(), ItemActivity.class);
-                                    intent.putExtra("docId", docId);
-                                    intent.putExtra("documentId", documentId);
-                                    startActivity(intent);
-                                });
-
+                        List<String> categories = new ArrayList<>();
+                        for (DocumentSnapshot document : CatalogSync.sortedBy(task.getResult(), "price")) {
+                            String category = document.getString("category");
+                            if (category == null) continue;
+                            List<DocumentSnapshot> items = itemsByCategory.get(category);
+                            if (items == null) {
+                                items = new ArrayList<>();
+                                itemsByCategory.put(category, items);
+                                categories.add(category);
                             }
-                            binding.progressBar.setVisibility(View.GONE);
-
+                            items.add(document);
                         }
-                    }
-                    else{
-                        binding.progressBar.setVisibility(View.GONE);
-                    }
-                }).addOnFailureListener(new OnFailureListener() {
-                    @Override
-                    public void onFailure(@NonNull Exception e) {
-                        binding.progressBar.setVisibility(View.GONE);
+                        showCategories(categories);
                     }
                 });
     }
 
-    private void fetchCategories(String documentId){
-        binding.tabLayout.removeAllTabs();
-        db.collection("shops")
-                .document(documentId)
-                .collection("menu")
-                .get()
-                .addOnCompleteListener(task -> {
-                    if(task.isSuccessful()){
-                        List<String> categoryList = new ArrayList<>();
-                        for (DocumentSnapshot document : task.getResult()) {
-                            String category = document.getString("category");
+    // Every category's items were filled by the menu sync before its tab existed
+    public void fetchMenu(String documentId, String category){
+        List<DocumentSnapshot> items = itemsByCategory.get(category);
+        showMenu(documentId, items != null ? items : Collections.<DocumentSnapshot>emptyList());
+    }
 
-                            if(!categoryList.contains(category)){
-                                categoryList.add(category);
-                                binding.tabLayout.addTab(binding.tabLayout.newTab().setText(category));
-                            }
+    private void showMenu(String documentId, List<DocumentSnapshot> items){
+        mainContainer = findViewById(R.id.mainContainer);
+        mainContainer.removeAllViews();
 
-                        }
-                    }
-                });
+        for (DocumentSnapshot document : items) {
+            String itemName = (String) document.get("name");
+            Double priceValue = document.getDouble("price");
+            double itemPrice = priceValue != null ? priceValue : 0.0;
+            String itemDescription = (String) document.get("description");
+            String imageUrl = (String) document.get("imageUrl");
+            String docId = document.getId();
+
+            View itemView = getLayoutInflater().inflate(R.layout.item_horizontalmenu, null);
+            TextView nameTextView = itemView.findViewById(R.id.itemName);
+            TextView priceTextView = itemView.findViewById(R.id.itemPrice);
+            TextView descriptionTextView = itemView.findViewById(R.id.itemDescription);
+            ImageView imageView = itemView.findViewById(R.id.imageView);
+            ImageButton plusButton = itemView.findViewById(R.id.plusButton);
+
+            LinearLayout itemContainer = itemView.findViewById(R.id.itemContainer);
+
+            nameTextView.setText(itemName);
+            priceTextView.setText("₱" + String.format("%.2f", itemPrice));
+            descriptionTextView.setText(itemDescription);
+            Glide.with(this).load(imageUrl).into(imageView);
+            mainContainer.addView(itemView);
+
+            itemContainer.setOnClickListener(v -> {
+                Intent intent = new Intent(getApplicationContext(), ItemActivity.class);
+                intent.putExtra("docId", docId);
+                intent.putExtra("documentId", documentId);
+                startActivity(intent);
+            });
+            plusButton.setOnClickListener(v -> {
+                Intent intent = new Intent(getApplicationContext(), ItemActivity.class);
+                intent.putExtra("docId", docId);
+                intent.putExtra("documentId", documentId);
+                startActivity(intent);
+            });
+        }
+    }
+
+    // Adding the first tab selects it, which loads that category
+    private void showCategories(List<String> categories){
+        binding.tabLayout.removeAllTabs();
+        for (String category : categories) {
+            binding.tabLayout.addTab(binding.tabLayout.newTab().setText(category));
+        }
     }
-}
\ No newline at end of file
+}
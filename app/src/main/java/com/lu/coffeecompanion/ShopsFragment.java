@@ -5,29 +5,38 @@ import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ImageView;
-import android.widget.LinearLayout;
-import android.widget.ProgressBar;
-import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
-import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.lu.coffeecompanion.adapters.ShopAdapter;
+import com.lu.coffeecompanion.adapters.SharedViewPool;
+import com.lu.coffeecompanion.data.CatalogBundle;
+import com.lu.coffeecompanion.data.CatalogCache;
 import com.lu.coffeecompanion.databinding.ShopsFragmentBinding;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class ShopsFragment extends Fragment {
 
+    private static final int PRELOAD_AHEAD = 10;
+
     ShopsFragmentBinding binding;
     FirebaseFirestore db;
     FirebaseAuth auth;
     FirebaseUser currentUser;
+    ShopAdapter shopAdapter;
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
@@ -45,15 +54,13 @@ public class ShopsFragment extends Fragment {
             Intent intent = new Intent(requireContext(), CartActivity.class);
             startActivity(intent);
         });
-        binding.swipeRefreshLayout.setOnRefreshListener(new SwipeRefreshLayout.OnRefreshListener() {
-            @Override
-            public void onRefresh() {
-                binding.itemContainer3.removeAllViews();
-                fetchVerticalScrollView(binding.itemContainer3, "shops");
-            }
+        setupShopList();
+        binding.swipeRefreshLayout.setOnRefreshListener(() -> {
+            CatalogCache.getInstance(requireContext()).invalidate(CatalogCache.SHOPS);
+            fetchVerticalScrollView("shops");
         });
-        binding.itemContainer3.removeAllViews();
-        fetchVerticalScrollView(binding.itemContainer3, "shops");
+        binding.swipeRefreshLayout.setRefreshing(true);
+        fetchVerticalScrollView("shops");
 
         return binding.getRoot();
     }
@@ -61,54 +68,50 @@ public class ShopsFragment extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        shopAdapter = null;
         binding = null;
     }
 
-    private void fetchVerticalScrollView(LinearLayout itemContainer, String collectionPath) {
-        ProgressBar progressBar = new ProgressBar(requireContext());
-        LinearLayout.LayoutParams progressBarParams = new LinearLayout.LayoutParams(
-                LinearLayout.LayoutParams.WRAP_CONTENT,
-                LinearLayout.LayoutParams.WRAP_CONTENT);
-        progressBar.setLayoutParams(progressBarParams);
-        itemContainer.addView(progressBar);
-        progressBar.setVisibility(View.VISIBLE);
-
-        db.collection(collectionPath)
-                .orderBy("order")
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    progressBar.setVisibility(View.GONE);
-
-                    itemContainer.removeAllViews();
-
-                    for (DocumentSnapshot document : queryDocumentSnapshots) {
-                        String coffeeName = document.getString("name");
-                        String imageUrl = document.getString("imageUrl");
-                        String location = document.getString("location");
-
-                        Long ratingValue = document.getLong("rating");
-                        double doubleRatingValue = ratingValue.doubleValue();
-                        String rating = String.format("%.1f", doubleRatingValue);
+    private void setupShopList() {
+        RecyclerView recyclerView = binding.shopsRecyclerView;
+        LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
+        layoutManager.setRecycleChildrenOnDetach(true);
+        recyclerView.setLayoutManager(layoutManager);
 
-                        View coffeeLayout = LayoutInflater.from(requireContext())
-                                .inflate(R.layout.item_bestwithcoffee, itemContainer, false);
+        RecyclerView.RecycledViewPool pool = SharedViewPool.of(requireActivity());
+        pool.setMaxRecycledViews(ShopAdapter.VIEW_TYPE, SharedViewPool.MAX_ROWS_PER_TYPE);
+        recyclerView.setRecycledViewPool(pool);
 
-                        ImageView coffeeImage = coffeeLayout.findViewById(R.id.coffee_image);
-                        TextView coffeeText = coffeeLayout.findViewById(R.id.coffee_name);
-                        TextView locationText = coffeeLayout.findViewById(R.id.location_text);
+        shopAdapter = new ShopAdapter(Glide.with(this), shop -> {
+            Intent intent = new Intent(requireContext(), ShopMenuActivity.class);
+            intent.putExtra("documentId", shop.getId());
+            startActivity(intent);
+        });
+        recyclerView.setAdapter(shopAdapter);
 
-                        coffeeText.setText(coffeeName);
-                        locationText.setText(location);
-                        Glide.with(requireContext()).load(imageUrl).into(coffeeImage);
+        // Shop images are a fixed 100dp square (item_bestwithcoffee)
+        int imageSize = Math.round(100 * getResources().getDisplayMetrics().density);
+        recyclerView.addOnScrollListener(new RecyclerViewPreloader<>(Glide.with(this), shopAdapter,
+                new FixedPreloadSizeProvider<>(imageSize, imageSize), PRELOAD_AHEAD));
+    }
 
-                        coffeeLayout.setOnClickListener(v -> {
-                            Intent intent = new Intent(requireContext(), ShopMenuActivity.class);
-                            intent.putExtra("documentId", document.getId());
-                            startActivity(intent);
-                        });
+    private void fetchVerticalScrollView(String collectionPath) {
+        CatalogCache.getInstance(requireContext())
+                .get(db.collection(collectionPath).orderBy("order"), CatalogCache.SHOPS, "all",
+                        CatalogBundle.QUERY_SHOPS)
+                .addOnSuccessListener(queryDocumentSnapshots -> {
+                    if (binding == null) return;
+                    binding.swipeRefreshLayout.setRefreshing(false);
 
-                        itemContainer.addView(coffeeLayout);
+                    List<ShopAdapter.Shop> shops = new ArrayList<>();
+                    for (DocumentSnapshot document : queryDocumentSnapshots) {
+                        shops.add(new ShopAdapter.Shop(document.getId(), document.getString("name"),
+                                document.getString("location"), document.getString("imageUrl")));
                     }
+                    shopAdapter.submitList(shops);
+                })
+                .addOnFailureListener(e -> {
+                    if (binding != null) binding.swipeRefreshLayout.setRefreshing(false);
                 });
     }
-}
\ No newline at end of file
+}
@@ -48,7 +48,7 @@ public class ViewAllPaymentsActivity extends AppCompatActivity {
         binding.back.setOnClickListener(v -> finish());
 
         paymentList = new ArrayList<>();
-        adapter = new PaymentAdapter(paymentList, this::onPaymentClick);
+        adapter = new PaymentAdapter(this::onPaymentClick);
 
         binding.recyclerViewPayments.setLayoutManager(new LinearLayoutManager(this));
         binding.recyclerViewPayments.setAdapter(adapter);
@@ -65,6 +65,7 @@ public class ViewAllPaymentsActivity extends AppCompatActivity {
                     paymentList.clear();
 
                     if (querySnapshot.isEmpty()) {
+                        adapter.submitList(new ArrayList<>());
                         showLoading(false);
                         showEmptyState(true);
                         return;
@@ -91,7 +92,7 @@ public class ViewAllPaymentsActivity extends AppCompatActivity {
                         paymentList.add(payment);
                     }
 
-                    adapter.notifyDataSetChanged();
+                    adapter.submitList(new ArrayList<>(paymentList));
                     showLoading(false);
                     showEmptyState(paymentList.isEmpty());
                 })
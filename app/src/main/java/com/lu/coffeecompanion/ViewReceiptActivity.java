@@ -9,11 +9,14 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.lu.coffeecompanion.data.MenuItemRepository;
+import com.lu.coffeecompanion.data.OrderLines;
 import com.lu.coffeecompanion.databinding.ActivityViewReceiptBinding;
 import com.lu.coffeecompanion.databinding.ItemReceiptItemBinding;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 
 public class ViewReceiptActivity extends AppCompatActivity {
@@ -57,7 +60,7 @@ public class ViewReceiptActivity extends AppCompatActivity {
                 .addOnSuccessListener(document -> {
                     if (document.exists()) {
                         displayReceipt(document);
-                        loadOrderItems();
+                        loadOrderItems(document);
                     } else {
                         showLoading(false);
                         Toast.makeText(this, "Receipt not found", Toast.LENGTH_SHORT).show();
@@ -105,9 +108,19 @@ public class ViewReceiptActivity extends AppCompatActivity {
         binding.totalAmount.setText(String.format("₱%.2f", total));
     }
 
-    private void loadOrderItems() {
+    private void loadOrderItems(DocumentSnapshot order) {
         binding.itemsContainer.removeAllViews();
 
+        // Lines saved at checkout carry the prices paid, so the receipt is the one order read
+        List<OrderLines.Line> lines = OrderLines.of(order);
+        if (lines != null) {
+            for (OrderLines.Line line : lines) {
+                displayItem(line.getName(), line.getUnitPrice(), (double) line.getQuantity());
+            }
+            showLoading(false);
+            return;
+        }
+
         db.collection("orders")
                 .document(orderId).collection("items")
                 .get()
@@ -119,10 +132,11 @@ public class ViewReceiptActivity extends AppCompatActivity {
 
                     for (DocumentSnapshot item : itemsSnapshot.getDocuments()) {
                         String docId = item.getString("docId");
+                        String shopId = item.getString("shopId");
                         Double quantity = item.getDouble("quantity");
 
                         if (docId != null && quantity != null) {
-                            loadMenuItem(docId, quantity);
+                            loadMenuItem(docId, shopId, quantity);
                         }
                     }
                 })
@@ -132,36 +146,18 @@ public class ViewReceiptActivity extends AppCompatActivity {
                 });
     }
 
-    private void loadMenuItem(String docId, Double quantity) {
-        db.collection("shops")
-                .get()
-                .addOnSuccessListener(shopsSnapshot -> {
-                    for (DocumentSnapshot shop : shopsSnapshot.getDocuments()) {
-                        String shopId = shop.getId();
-
-                        db.collection("shops")
-                                .document(shopId)
-                                .collection("menu")
-                                .document(docId)
-                                .get()
-                                .addOnSuccessListener(menuItem -> {
-                                    if (menuItem.exists()) {
-                                        displayMenuItem(menuItem, quantity);
-                                    }
-                                });
-                    }
-                    showLoading(false);
-                });
-    }
-
-    private void displayMenuItem(DocumentSnapshot menuItem, Double quantity) {
-        String itemName = menuItem.getString("name");
-        Double itemPrice = menuItem.getDouble("price");
+    private void loadMenuItem(String docId, String shopId, Double quantity) {
+        MenuItemRepository.getInstance().getMenuItem(docId, shopId, entry -> {
+            if (isFinishing()) return;
 
-        if (itemName == null || itemPrice == null) {
-            return;
-        }
+            if (entry != null && entry.getName() != null && entry.getPrice() != null) {
+                displayItem(entry.getName(), entry.getPrice(), quantity);
+            }
+            showLoading(false);
+        });
+    }
 
+    private void displayItem(String itemName, double itemPrice, Double quantity) {
         double subtotal = itemPrice * quantity;
 
         ItemReceiptItemBinding itemBinding = ItemReceiptItemBinding.inflate(getLayoutInflater());
@@ -7,40 +7,58 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.lu.coffeecompanion.adapters.StableIds;
+import com.lu.coffeecompanion.data.CartStore;
 import com.lu.coffeecompanion.databinding.ItemCartBinding;
 
 import java.util.List;
+import java.util.Objects;
 
-public class CartAdapter extends RecyclerView.Adapter<CartAdapter.CartViewHolder> {
+public class CartAdapter extends ListAdapter<CartItem, CartAdapter.CartViewHolder> {
+
+    // Partial rebind payload: only the edit-mode checkbox and click target change
+    private static final Object PAYLOAD_EDIT_MODE = new Object();
 
     private Context context;
-    private List<CartItem> cartItems;
     private boolean isEditMode = false;
-    private String userId;
-    private FirebaseFirestore db;
+    private final StableIds stableIds = new StableIds();
 
-    // Callback interface to notify activity about total price changes
-    public interface OnQuantityChangeListener {
-        void onQuantityChanged();
-    }
+    private static final DiffUtil.ItemCallback<CartItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<CartItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull CartItem oldItem, @NonNull CartItem newItem) {
+            return Objects.equals(oldItem.getCartId(), newItem.getCartId());
+        }
 
-    private OnQuantityChangeListener quantityChangeListener;
+        @Override
+        public boolean areContentsTheSame(@NonNull CartItem oldItem, @NonNull CartItem newItem) {
+            return Objects.equals(oldItem.getName(), newItem.getName())
+                    && oldItem.getPrice() == newItem.getPrice()
+                    && Objects.equals(oldItem.getShop(), newItem.getShop())
+                    && oldItem.getQuantity() == newItem.getQuantity()
+                    && Objects.equals(oldItem.getImageUrl(), newItem.getImageUrl())
+                    && oldItem.isSelected() == newItem.isSelected();
+        }
+    };
 
-    public CartAdapter(Context context, List<CartItem> cartItems, String userId, OnQuantityChangeListener listener) {
+    public CartAdapter(Context context) {
+        super(DIFF_CALLBACK);
         this.context = context;
-        this.cartItems = cartItems;
-        this.userId = userId;
-        this.quantityChangeListener = listener;
-        this.db = FirebaseFirestore.getInstance();
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableIds.idFor(getItem(position).getCartId());
     }
 
     public void setEditMode(boolean editMode) {
         this.isEditMode = editMode;
-        notifyDataSetChanged();
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_EDIT_MODE);
     }
 
     @NonNull
@@ -50,9 +68,18 @@ public class CartAdapter extends RecyclerView.Adapter<CartAdapter.CartViewHolder
         return new CartViewHolder(binding);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull CartViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_EDIT_MODE)) {
+            bindEditMode(holder, getItem(position));
+        } else {
+            onBindViewHolder(holder, position);
+        }
+    }
+
     @Override
     public void onBindViewHolder(@NonNull CartViewHolder holder, int position) {
-        CartItem item = cartItems.get(position);
+        CartItem item = getItem(position);
 
         // SET ITEM DATA
         holder.binding.itemName.setText(item.getName());
@@ -62,10 +89,37 @@ public class CartAdapter extends RecyclerView.Adapter<CartAdapter.CartViewHolder
 
         Glide.with(context).load(item.getImageUrl()).into(holder.binding.itemImage);
 
+        bindEditMode(holder, item);
+
+        // PLUS BUTTON: the shared cart updates the row and total before the write lands
+        holder.binding.btnAdd.setOnClickListener(v ->
+                CartStore.getInstance(context).setQuantity(item.getCartId(), currentQuantity(item) + 1));
+
+        // MINUS BUTTON
+        holder.binding.btnMinus.setOnClickListener(v -> {
+            int qty = currentQuantity(item);
+            if (qty > 1) {
+                CartStore.getInstance(context).setQuantity(item.getCartId(), qty - 1);
+            }
+        });
+    }
+
+    // The store's count, which is ahead of this row when taps outrun the list diff
+    private int currentQuantity(CartItem item) {
+        CartStore.Line line = CartStore.getInstance(context).line(item.getCartId());
+        return line != null ? line.getQuantity() : item.getQuantity();
+    }
+
+    private void bindEditMode(CartViewHolder holder, CartItem item) {
         // CHECKBOX FOR EDIT MODE
+        holder.binding.cartCheckbox.setOnCheckedChangeListener(null);
         holder.binding.cartCheckbox.setVisibility(isEditMode ? View.VISIBLE : View.GONE);
         holder.binding.cartCheckbox.setChecked(item.isSelected());
-        holder.binding.cartCheckbox.setOnCheckedChangeListener((buttonView, isChecked) -> item.setSelected(isChecked));
+        // By position: a cart update swaps in new row objects without rebinding unchanged rows
+        holder.binding.cartCheckbox.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) getItem(position).setSelected(isChecked);
+        });
 
         // ITEM CLICK (OPEN EDIT PAGE WHEN NOT IN EDIT MODE)
         if (!isEditMode) {
@@ -77,41 +131,6 @@ public class CartAdapter extends RecyclerView.Adapter<CartAdapter.CartViewHolder
         } else {
             holder.binding.linearItemCart.setOnClickListener(null);
         }
-
-        // PLUS BUTTON
-        holder.binding.btnAdd.setOnClickListener(v -> {
-            int qty = item.getQuantity();
-            item.setQuantity(qty + 1);
-            holder.binding.quantity.setText(String.valueOf(item.getQuantity()));
-
-            // UPDATE FIRESTORE
-            db.collection("users").document(userId)
-                    .collection("cart").document(item.getCartId())
-                    .update("quantity", item.getQuantity());
-
-            // NOTIFY TOTAL CHANGE
-            if (quantityChangeListener != null) quantityChangeListener.onQuantityChanged();
-        });
-
-        // MINUS BUTTON
-        holder.binding.btnMinus.setOnClickListener(v -> {
-            int qty = item.getQuantity();
-            if (qty > 1) {
-                item.setQuantity(qty - 1);
-                holder.binding.quantity.setText(String.valueOf(item.getQuantity()));
-
-                db.collection("users").document(userId)
-                        .collection("cart").document(item.getCartId())
-                        .update("quantity", item.getQuantity());
-
-                if (quantityChangeListener != null) quantityChangeListener.onQuantityChanged();
-            }
-        });
-    }
-
-    @Override
-    public int getItemCount() {
-        return cartItems.size();
     }
 
     public static class CartViewHolder extends RecyclerView.ViewHolder {
@@ -0,0 +1,176 @@
+package com.lu.coffeecompanion.adapters;
+
+import android.graphics.drawable.Drawable;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.lu.coffeecompanion.R;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+// item_coffee_vertical_simple rows for the Menu and Search tabs. Also serves as Glide's preload model
+// provider so the preloaded request is exactly the one onBind issues and hits the same cache key.
+public class MenuItemAdapter extends ListAdapter<MenuItemAdapter.Item, MenuItemAdapter.ViewHolder>
+        implements ListPreloader.PreloadModelProvider<String> {
+
+    public static final int VIEW_TYPE = R.layout.item_coffee_vertical_simple;
+
+    public static final int KIND_COFFEE = 0;
+    public static final int KIND_INVENTORY = 1;
+    // A shop's menu item; the Item carries the shop id
+    public static final int KIND_MENU = 2;
+
+    public interface OnItemClickListener {
+        void onItemClick(Item item);
+    }
+
+    public static class Item {
+        private final String id;
+        private final int kind;
+        private final String name;
+        private final String description;
+        private final String imageUrl;
+        private final String shopId;
+
+        public Item(String id, int kind, String name, @Nullable String description, @Nullable String imageUrl) {
+            this(id, kind, name, description, imageUrl, null);
+        }
+
+        public Item(String id, int kind, String name, @Nullable String description, @Nullable String imageUrl,
+                    @Nullable String shopId) {
+            this.id = id;
+            this.kind = kind;
+            this.name = name;
+            this.description = description;
+            this.imageUrl = imageUrl;
+            this.shopId = shopId;
+        }
+
+        public String getId() { return id; }
+        public int getKind() { return kind; }
+        public String getName() { return name; }
+        public String getDescription() { return description; }
+        public String getImageUrl() { return imageUrl; }
+        @Nullable public String getShopId() { return shopId; }
+    }
+
+    private static final DiffUtil.ItemCallback<Item> DIFF_CALLBACK = new DiffUtil.ItemCallback<Item>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+            return oldItem.kind == newItem.kind && oldItem.id.equals(newItem.id)
+                    && Objects.equals(oldItem.shopId, newItem.shopId);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+            return Objects.equals(oldItem.name, newItem.name)
+                    && Objects.equals(oldItem.description, newItem.description)
+                    && Objects.equals(oldItem.imageUrl, newItem.imageUrl);
+        }
+    };
+
+    private final RequestManager glide;
+    private final OnItemClickListener listener;
+    private final StableIds stableIds = new StableIds();
+
+    public MenuItemAdapter(@NonNull RequestManager glide, @NonNull OnItemClickListener listener) {
+        super(DIFF_CALLBACK);
+        this.glide = glide;
+        this.listener = listener;
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        Item item = getItem(position);
+        return stableIds.idFor(item.kind + "/" + item.shopId + "/" + item.id);
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return VIEW_TYPE;
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(VIEW_TYPE, parent, false);
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        Item item = getItem(position);
+
+        holder.name.setText(item.name);
+
+        if (item.description != null && !item.description.isEmpty()) {
+            holder.description.setText(item.description);
+            holder.description.setVisibility(View.VISIBLE);
+        } else {
+            holder.description.setVisibility(View.GONE);
+        }
+
+        if (item.imageUrl != null && !item.imageUrl.isEmpty()) {
+            imageRequest(item.imageUrl).into(holder.image);
+        } else {
+            glide.clear(holder.image);
+            holder.image.setImageResource(R.drawable.image_placeholder);
+        }
+
+        holder.itemView.setOnClickListener(v -> listener.onItemClick(item));
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull ViewHolder holder) {
+        glide.clear(holder.image);
+    }
+
+    @NonNull
+    @Override
+    public List<String> getPreloadItems(int position) {
+        String url = getItem(position).imageUrl;
+        return url == null || url.isEmpty() ? Collections.emptyList() : Collections.singletonList(url);
+    }
+
+    @Nullable
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull String url) {
+        return imageRequest(url);
+    }
+
+    // Explicit centerCrop matches the ImageView's scaleType; without it into() would add one
+    // and the preloaded entry would miss the memory cache
+    private RequestBuilder<Drawable> imageRequest(String url) {
+        return glide.load(url)
+                .placeholder(R.drawable.image_placeholder)
+                .centerCrop();
+    }
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        ImageView image;
+        TextView name;
+        TextView description;
+
+        ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            image = itemView.findViewById(R.id.coffee_image);
+            name = itemView.findViewById(R.id.coffee_name);
+            description = itemView.findViewById(R.id.coffee_description);
+        }
+    }
+}
@@ -11,27 +11,67 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.lu.coffeecompanion.R;
+import com.lu.coffeecompanion.data.MenuItemRepository;
+import com.lu.coffeecompanion.data.OrderItemsLoader;
+import com.lu.coffeecompanion.data.OrderStatusTransitions;
+import com.lu.coffeecompanion.data.OrderStatuses;
 import com.lu.coffeecompanion.models.Order;  // ✅ FIXED IMPORT
 import com.lu.coffeecompanion.models.OrderItem;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 
-public class OrderAdapter extends RecyclerView.Adapter<OrderAdapter.OrderViewHolder> {
+public class OrderAdapter extends ListAdapter<Order, OrderAdapter.OrderViewHolder> {
 
     private Context context;
-    private ArrayList<Order> orderList;
     private FirebaseFirestore db;
+    private final StableIds stableIds = new StableIds();
 
-    public OrderAdapter(Context context, ArrayList<Order> orderList) {
+    private static final DiffUtil.ItemCallback<Order> DIFF_CALLBACK = new DiffUtil.ItemCallback<Order>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Order oldItem, @NonNull Order newItem) {
+            return Objects.equals(oldItem.getOrderId(), newItem.getOrderId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Order oldItem, @NonNull Order newItem) {
+            return Objects.equals(oldItem.getStatus(), newItem.getStatus())
+                    && Objects.equals(oldItem.getName(), newItem.getName())
+                    && Objects.equals(oldItem.getUserName(), newItem.getUserName())
+                    && oldItem.getTotalAmount() == newItem.getTotalAmount()
+                    && oldItem.getTimestamp() == newItem.getTimestamp()
+                    && Objects.equals(oldItem.getOrderTimestamp(), newItem.getOrderTimestamp())
+                    && sizeOf(oldItem.getItems()) == sizeOf(newItem.getItems());
+        }
+
+        private int sizeOf(List<OrderItem> items) {
+            return items != null ? items.size() : 0;
+        }
+    };
+
+    public OrderAdapter(Context context) {
+        super(DIFF_CALLBACK);
         this.context = context;
-        this.orderList = orderList;
         this.db = FirebaseFirestore.getInstance();
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableIds.idFor(getItem(position).getOrderId());
     }
 
     @NonNull
@@ -43,7 +83,7 @@ public class OrderAdapter extends RecyclerView.Adapter<OrderAdapter.OrderViewHol
 
     @Override
     public void onBindViewHolder(@NonNull OrderViewHolder holder, int position) {
-        Order order = orderList.get(position);
+        Order order = getItem(position);
 
         // Format date
         String dateStr = order.getFormattedDateTime();
@@ -62,22 +102,72 @@ public class OrderAdapter extends RecyclerView.Adapter<OrderAdapter.OrderViewHol
         // Set status color
         setStatusColor(holder.tvStatus, order.getStatus());
 
-        // Display order items
-        holder.layoutItems.removeAllViews();
+        // Display order items (batch-loaded from Firestore when the order came without them)
+        holder.layoutItems.setTag(order.getOrderId());
         if (order.getItems() != null && !order.getItems().isEmpty()) {
-            for (OrderItem item : order.getItems()) {
-                TextView tvItem = new TextView(context);
-                tvItem.setText(String.format(Locale.getDefault(), "• %s x%d - ₱%.2f",
-                        item.getProductName(), item.getQuantity(), item.getSubtotal()));
-                tvItem.setTextSize(14);
-                tvItem.setPadding(0, 4, 0, 4);
-                holder.layoutItems.addView(tvItem);
+            renderItems(holder, order.getItems());
+        } else {
+            holder.layoutItems.removeAllViews();
+            if (order.getOrderId() != null) {
+                loadItems(holder, order);
             }
         }
 
         // Click listeners
         holder.btnViewDetails.setOnClickListener(v -> showOrderDetails(order));
-        holder.btnUpdateStatus.setOnClickListener(v -> showStatusDialog(order, position));
+        holder.btnUpdateStatus.setOnClickListener(v -> showStatusDialog(order));
+    }
+
+    private void renderItems(OrderViewHolder holder, List<OrderItem> items) {
+        holder.layoutItems.removeAllViews();
+        for (OrderItem item : items) {
+            TextView tvItem = new TextView(context);
+            tvItem.setText(String.format(Locale.getDefault(), "• %s x%d - ₱%.2f",
+                    item.getProductName(), item.getQuantity(), item.getSubtotal()));
+            tvItem.setTextSize(14);
+            tvItem.setPadding(0, 4, 0, 4);
+            holder.layoutItems.addView(tvItem);
+        }
+    }
+
+    private void loadItems(OrderViewHolder holder, Order order) {
+        String orderId = order.getOrderId();
+        OrderItemsLoader.getInstance().load(orderId, (loadedId, itemDocs) -> {
+            if (itemDocs.isEmpty()) return;
+
+            Map<String, String> shopIdHints = new HashMap<>();
+            for (DocumentSnapshot itemDoc : itemDocs) {
+                String docId = itemDoc.getString("docId");
+                if (docId != null) {
+                    shopIdHints.put(docId, itemDoc.getString("shopId"));
+                }
+            }
+
+            MenuItemRepository.getInstance().getMenuItems(shopIdHints, entries -> {
+                List<OrderItem> items = new ArrayList<>();
+                for (DocumentSnapshot itemDoc : itemDocs) {
+                    String docId = itemDoc.getString("docId");
+                    MenuItemRepository.MenuEntry entry = docId != null ? entries.get(docId) : null;
+
+                    String name = itemDoc.getString("itemName");
+                    Double price = itemDoc.getDouble("itemPrice");
+                    if (name == null && entry != null) name = entry.getName();
+                    if (price == null && entry != null) price = entry.getPrice();
+
+                    Long quantity = itemDoc.getLong("quantity");
+                    int qty = quantity != null ? quantity.intValue() : 1;
+                    double unitPrice = price != null ? price : 0.0;
+
+                    items.add(new OrderItem(docId, name != null ? name : "Item", qty, unitPrice,
+                            unitPrice * qty, entry != null ? entry.getImageUrl() : null));
+                }
+
+                order.setItems(items);
+                if (orderId.equals(holder.layoutItems.getTag())) {
+                    renderItems(holder, items);
+                }
+            });
+        });
     }
 
     private void setStatusColor(TextView tvStatus, String status) {
@@ -138,8 +228,8 @@ public class OrderAdapter extends RecyclerView.Adapter<OrderAdapter.OrderViewHol
         builder.show();
     }
 
-    private void showStatusDialog(Order order, int position) {
-        String[] statuses = {"Pending", "Preparing", "Confirmed", "Out for Delivery", "Delivered", "Completed", "Cancelled"};
+    private void showStatusDialog(Order order) {
+        String[] statuses = OrderStatuses.ALL.toArray(new String[0]);
 
         AlertDialog.Builder builder = new AlertDialog.Builder(context);
         builder.setTitle("Update Order Status");
@@ -147,16 +237,23 @@ public class OrderAdapter extends RecyclerView.Adapter<OrderAdapter.OrderViewHol
         builder.setItems(statuses, (dialog, which) -> {
             String newStatus = statuses[which];
 
-            db.collection("orders")
-                    .document(order.getOrderId())
-                    .update("status", newStatus)
-                    .addOnSuccessListener(aVoid -> {
+            // Guarded on the status this row shows, so a change made meanwhile is not overwritten
+            OrderStatusTransitions.transition(db, Collections.singletonList(order.getOrderId()),
+                    Collections.singletonList(order.getStatus()), newStatus,
+                    (moved, failed) -> {
+                        if (!failed.isEmpty()) {
+                            Exception e = failed.get(order.getOrderId());
+                            Toast.makeText(context, "Failed to update: " + (e != null ? e.getMessage() : ""),
+                                    Toast.LENGTH_SHORT).show();
+                            return;
+                        }
                         Toast.makeText(context, "Status updated to " + newStatus, Toast.LENGTH_SHORT).show();
                         order.setStatus(newStatus);
-                        notifyItemChanged(position);
-                    })
-                    .addOnFailureListener(e -> {
-                        Toast.makeText(context, "Failed to update: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                        // Edited in place, so the differ cannot see it; rebind the row directly
+                        int index = getCurrentList().indexOf(order);
+                        if (index != -1) {
+                            notifyItemChanged(index);
+                        }
                     });
         });
 
@@ -164,11 +261,6 @@ public class OrderAdapter extends RecyclerView.Adapter<OrderAdapter.OrderViewHol
         builder.show();
     }
 
-    @Override
-    public int getItemCount() {
-        return orderList.size();
-    }
-
     public static class OrderViewHolder extends RecyclerView.ViewHolder {
         TextView tvOrderId, tvCustomerName, tvOrderDate, tvTotal, tvStatus;
         LinearLayout layoutItems;
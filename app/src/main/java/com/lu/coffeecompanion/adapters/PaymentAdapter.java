@@ -4,25 +4,51 @@ import android.view.LayoutInflater;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.lu.coffeecompanion.databinding.ItemPaymentBinding;
 import com.lu.coffeecompanion.models.Payment;
 
-import java.util.List;
+import java.util.Objects;
 
-public class PaymentAdapter extends RecyclerView.Adapter<PaymentAdapter.PaymentViewHolder> {
+public class PaymentAdapter extends ListAdapter<Payment, PaymentAdapter.PaymentViewHolder> {
 
-    private List<Payment> payments;
     private OnPaymentClickListener listener;
+    private final StableIds stableIds = new StableIds();
+
+    private static final DiffUtil.ItemCallback<Payment> DIFF_CALLBACK = new DiffUtil.ItemCallback<Payment>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Payment oldItem, @NonNull Payment newItem) {
+            return Objects.equals(oldItem.getOrderId(), newItem.getOrderId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Payment oldItem, @NonNull Payment newItem) {
+            return Objects.equals(oldItem.getReceiptNumber(), newItem.getReceiptNumber())
+                    && Objects.equals(oldItem.getCustomerName(), newItem.getCustomerName())
+                    && Objects.equals(oldItem.getContactNumber(), newItem.getContactNumber())
+                    && Objects.equals(oldItem.getPaymentMethod(), newItem.getPaymentMethod())
+                    && oldItem.getTotalAmount() == newItem.getTotalAmount()
+                    && oldItem.getDeliveryFee() == newItem.getDeliveryFee()
+                    && Objects.equals(oldItem.getOrderTimestamp(), newItem.getOrderTimestamp());
+        }
+    };
 
     public interface OnPaymentClickListener {
         void onPaymentClick(Payment payment);
     }
 
-    public PaymentAdapter(List<Payment> payments, OnPaymentClickListener listener) {
-        this.payments = payments;
+    public PaymentAdapter(OnPaymentClickListener listener) {
+        super(DIFF_CALLBACK);
         this.listener = listener;
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableIds.idFor(getItem(position).getOrderId());
     }
 
     @NonNull
@@ -35,15 +61,10 @@ public class PaymentAdapter extends RecyclerView.Adapter<PaymentAdapter.PaymentV
 
     @Override
     public void onBindViewHolder(@NonNull PaymentViewHolder holder, int position) {
-        Payment payment = payments.get(position);
+        Payment payment = getItem(position);
         holder.bind(payment, listener);
     }
 
-    @Override
-    public int getItemCount() {
-        return payments.size();
-    }
-
     static class PaymentViewHolder extends RecyclerView.ViewHolder {
         private ItemPaymentBinding binding;
 
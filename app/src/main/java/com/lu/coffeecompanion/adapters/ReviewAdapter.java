@@ -8,6 +8,8 @@ import android.widget.RatingBar;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.firebase.Timestamp;
@@ -20,31 +22,57 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
-public class ReviewAdapter extends RecyclerView.Adapter<ReviewAdapter.ViewHolder> {
+public class ReviewAdapter extends ListAdapter<Review, ReviewAdapter.ViewHolder> {
 
-    private final List<DocumentSnapshot> reviewDocuments = new ArrayList<>();
-    private final List<Review> reviewList = new ArrayList<>();
     private Context context;
-    private boolean useDocuments = true; // Flag to determine which data source to use
+    private final StableIds stableIds = new StableIds();
+
+    private static final DiffUtil.ItemCallback<Review> DIFF_CALLBACK = new DiffUtil.ItemCallback<Review>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Review oldItem, @NonNull Review newItem) {
+            return Objects.equals(keyOf(oldItem), keyOf(newItem));
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Review oldItem, @NonNull Review newItem) {
+            return Objects.equals(oldItem.getUserName(), newItem.getUserName())
+                    && Objects.equals(oldItem.getItemName(), newItem.getItemName())
+                    && oldItem.getRating() == newItem.getRating()
+                    && Objects.equals(oldItem.getFeedback(), newItem.getFeedback())
+                    && Objects.equals(oldItem.getCreatedAt(), newItem.getCreatedAt());
+        }
+    };
 
     // Constructor with Context (for DocumentSnapshots)
     public ReviewAdapter(Context context) {
+        super(DIFF_CALLBACK);
         this.context = context;
-        this.useDocuments = true;
+        setHasStableIds(true);
     }
 
     // Constructor with Review List
     public ReviewAdapter(List<Review> reviewList) {
-        this.reviewList.addAll(reviewList);
-        this.useDocuments = false;
+        this(null, reviewList);
     }
 
     // Constructor with Context and Review List
     public ReviewAdapter(Context context, List<Review> reviewList) {
-        this.context = context;
-        this.reviewList.addAll(reviewList);
-        this.useDocuments = false;
+        this(context);
+        setReviewList(reviewList);
+    }
+
+    // Reviews loaded as Review objects carry their document id; locally added ones fall back
+    // to the order/item/user triple, which is unique per review
+    private static String keyOf(Review review) {
+        if (review.getReviewId() != null) return review.getReviewId();
+        return review.getOrderId() + "/" + review.getMenuItemId() + "/" + review.getUserId();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableIds.idFor(keyOf(getItem(position)));
     }
 
     @NonNull
@@ -57,77 +85,7 @@ public class ReviewAdapter extends RecyclerView.Adapter<ReviewAdapter.ViewHolder
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        if (useDocuments) {
-            bindDocumentSnapshot(holder, position);
-        } else {
-            bindReviewObject(holder, position);
-        }
-    }
-
-    // Bind data from DocumentSnapshot
-    private void bindDocumentSnapshot(@NonNull ViewHolder holder, int position) {
-        DocumentSnapshot doc = reviewDocuments.get(position);
-
-        try {
-            // Get user name
-            String userName = doc.getString("userName");
-            if (userName != null && !userName.isEmpty()) {
-                holder.reviewUserName.setText(userName);
-            } else {
-                holder.reviewUserName.setText("Anonymous");
-            }
-
-            // Get item name (if available)
-            String itemName = doc.getString("itemName");
-            if (itemName != null && !itemName.isEmpty() && holder.reviewItemName != null) {
-                holder.reviewItemName.setText(itemName);
-                holder.reviewItemName.setVisibility(View.VISIBLE);
-            } else if (holder.reviewItemName != null) {
-                holder.reviewItemName.setVisibility(View.GONE);
-            }
-
-            // Get rating
-            Double rating = doc.getDouble("rating");
-            if (rating != null) {
-                holder.reviewRating.setRating(rating.floatValue());
-            } else {
-                holder.reviewRating.setRating(0);
-            }
-
-            // Get feedback (comment)
-            String feedback = doc.getString("feedback");
-            if (feedback == null) {
-                feedback = doc.getString("comment"); // Fallback to comment field
-            }
-
-            if (feedback != null && !feedback.isEmpty()) {
-                holder.reviewFeedback.setText(feedback);
-            } else {
-                holder.reviewFeedback.setText("No feedback provided");
-            }
-
-            // Get date from timestamp
-            Timestamp timestamp = doc.getTimestamp("createdAt");
-            if (timestamp == null) {
-                timestamp = doc.getTimestamp("timestamp"); // Fallback
-            }
-
-            if (timestamp != null) {
-                Date date = timestamp.toDate();
-                SimpleDateFormat sdf = new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault());
-                holder.reviewDate.setText(sdf.format(date));
-            } else {
-                holder.reviewDate.setText("");
-            }
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
-
-    // Bind data from Review object
-    private void bindReviewObject(@NonNull ViewHolder holder, int position) {
-        Review review = reviewList.get(position);
+        Review review = getItem(position);
 
         try {
             // Get user name
@@ -173,44 +131,60 @@ public class ReviewAdapter extends RecyclerView.Adapter<ReviewAdapter.ViewHolder
         }
     }
 
-    @Override
-    public int getItemCount() {
-        return useDocuments ? reviewDocuments.size() : reviewList.size();
+    // Map a Firestore review document onto a Review, honouring the legacy field names
+    private static Review fromDocument(DocumentSnapshot doc) {
+        Review review = new Review();
+        review.setReviewId(doc.getId());
+        review.setOrderId(doc.getString("orderId"));
+        review.setUserId(doc.getString("userId"));
+        review.setUserName(doc.getString("userName"));
+        review.setItemName(doc.getString("itemName"));
+
+        Double rating = doc.getDouble("rating");
+        review.setRating(rating != null ? rating.floatValue() : 0f);
+
+        String feedback = doc.getString("feedback");
+        if (feedback == null) {
+            feedback = doc.getString("comment"); // Fallback to comment field
+        }
+        review.setFeedback(feedback);
+
+        Timestamp timestamp = doc.getTimestamp("createdAt");
+        if (timestamp == null) {
+            timestamp = doc.getTimestamp("timestamp"); // Fallback
+        }
+        review.setCreatedAt(timestamp);
+        return review;
     }
 
     // Set reviews from Firestore documents
     public void setReviews(List<DocumentSnapshot> documents) {
-        reviewDocuments.clear();
+        List<Review> reviews = new ArrayList<>();
         if (documents != null) {
-            reviewDocuments.addAll(documents);
+            for (DocumentSnapshot doc : documents) {
+                reviews.add(fromDocument(doc));
+            }
         }
-        useDocuments = true;
-        notifyDataSetChanged();
+        submitList(reviews);
     }
 
     // Set reviews from Review objects
     public void setReviewList(List<Review> reviews) {
-        reviewList.clear();
-        if (reviews != null) {
-            reviewList.addAll(reviews);
-        }
-        useDocuments = false;
-        notifyDataSetChanged();
+        submitList(reviews != null ? new ArrayList<>(reviews) : new ArrayList<>());
     }
 
     // Add single review
     public void addReview(Review review) {
         if (review != null) {
-            reviewList.add(0, review); // Add to top
-            notifyItemInserted(0);
+            List<Review> reviews = new ArrayList<>(getCurrentList());
+            reviews.add(0, review); // Add to top
+            submitList(reviews);
         }
     }
 
     // Clear all reviews
     public void clear() {
-        reviewDocuments.clear();
-        reviewList.clear();
-        notifyDataSetChanged();
+        submitList(new ArrayList<>());
     }
 
     class ViewHolder extends RecyclerView.ViewHolder {
@@ -0,0 +1,40 @@
+package com.lu.coffeecompanion.adapters;
+
+import androidx.annotation.NonNull;
+import androidx.fragment.app.FragmentActivity;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// One RecycledViewPool per host activity, shared by every list fragment it shows. Switching tabs
+// recreates the fragment's RecyclerView, and its rows come back from the pool instead of being
+// inflated again. Adapters use their row layout id as the view type, so types never clash.
+public class SharedViewPool {
+
+    // Enough cards to fill a tall screen twice over
+    public static final int MAX_ROWS_PER_TYPE = 20;
+
+    private static final Map<FragmentActivity, RecyclerView.RecycledViewPool> pools = new HashMap<>();
+
+    private SharedViewPool() {}
+
+    public static RecyclerView.RecycledViewPool of(@NonNull FragmentActivity activity) {
+        RecyclerView.RecycledViewPool pool = pools.get(activity);
+        if (pool == null) {
+            pool = new RecyclerView.RecycledViewPool();
+            pools.put(activity, pool);
+            // Pooled rows hold the activity's context; drop them with it
+            activity.getLifecycle().addObserver(new DefaultLifecycleObserver() {
+                @Override
+                public void onDestroy(@NonNull LifecycleOwner owner) {
+                    RecyclerView.RecycledViewPool removed = pools.remove(activity);
+                    if (removed != null) removed.clear();
+                }
+            });
+        }
+        return pool;
+    }
+}
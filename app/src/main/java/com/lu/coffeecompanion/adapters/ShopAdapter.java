@@ -0,0 +1,147 @@
+package com.lu.coffeecompanion.adapters;
+
+import android.graphics.drawable.Drawable;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.lu.coffeecompanion.R;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+// item_bestwithcoffee rows for the Shops tab, with the same preload contract as MenuItemAdapter
+public class ShopAdapter extends ListAdapter<ShopAdapter.Shop, ShopAdapter.ViewHolder>
+        implements ListPreloader.PreloadModelProvider<String> {
+
+    public static final int VIEW_TYPE = R.layout.item_bestwithcoffee;
+
+    public interface OnShopClickListener {
+        void onShopClick(Shop shop);
+    }
+
+    public static class Shop {
+        private final String id;
+        private final String name;
+        private final String location;
+        private final String imageUrl;
+
+        public Shop(String id, String name, @Nullable String location, @Nullable String imageUrl) {
+            this.id = id;
+            this.name = name;
+            this.location = location;
+            this.imageUrl = imageUrl;
+        }
+
+        public String getId() { return id; }
+        public String getName() { return name; }
+        public String getLocation() { return location; }
+        public String getImageUrl() { return imageUrl; }
+    }
+
+    private static final DiffUtil.ItemCallback<Shop> DIFF_CALLBACK = new DiffUtil.ItemCallback<Shop>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Shop oldItem, @NonNull Shop newItem) {
+            return oldItem.id.equals(newItem.id);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Shop oldItem, @NonNull Shop newItem) {
+            return Objects.equals(oldItem.name, newItem.name)
+                    && Objects.equals(oldItem.location, newItem.location)
+                    && Objects.equals(oldItem.imageUrl, newItem.imageUrl);
+        }
+    };
+
+    private final RequestManager glide;
+    private final OnShopClickListener listener;
+    private final StableIds stableIds = new StableIds();
+
+    public ShopAdapter(@NonNull RequestManager glide, @NonNull OnShopClickListener listener) {
+        super(DIFF_CALLBACK);
+        this.glide = glide;
+        this.listener = listener;
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableIds.idFor(getItem(position).id);
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return VIEW_TYPE;
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(VIEW_TYPE, parent, false);
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        Shop shop = getItem(position);
+
+        holder.name.setText(shop.name);
+        holder.location.setText(shop.location);
+
+        if (shop.imageUrl != null && !shop.imageUrl.isEmpty()) {
+            imageRequest(shop.imageUrl).into(holder.image);
+        } else {
+            glide.clear(holder.image);
+        }
+
+        holder.itemView.setOnClickListener(v -> listener.onShopClick(shop));
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull ViewHolder holder) {
+        glide.clear(holder.image);
+    }
+
+    @NonNull
+    @Override
+    public List<String> getPreloadItems(int position) {
+        String url = getItem(position).imageUrl;
+        return url == null || url.isEmpty() ? Collections.emptyList() : Collections.singletonList(url);
+    }
+
+    @Nullable
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull String url) {
+        return imageRequest(url);
+    }
+
+    // The shop image has the default fitCenter scaleType; spelled out so preload and bind match
+    private RequestBuilder<Drawable> imageRequest(String url) {
+        return glide.load(url).fitCenter();
+    }
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        ImageView image;
+        TextView name;
+        TextView location;
+
+        ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            image = itemView.findViewById(R.id.coffee_image);
+            name = itemView.findViewById(R.id.coffee_name);
+            location = itemView.findViewById(R.id.location_text);
+        }
+    }
+}
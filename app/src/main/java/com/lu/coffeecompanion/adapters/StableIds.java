@@ -0,0 +1,26 @@
+package com.lu.coffeecompanion.adapters;
+
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Maps Firestore/Realtime DB document keys to RecyclerView stable ids. Ids are handed out
+// sequentially per adapter, so unlike hashCode() two different keys can never collide.
+public class StableIds {
+
+    private final Map<String, Long> ids = new HashMap<>();
+    private long next = 0;
+
+    public long idFor(@Nullable String key) {
+        if (key == null) return RecyclerView.NO_ID;
+
+        Long id = ids.get(key);
+        if (id == null) {
+            id = next++;
+            ids.put(key, id);
+        }
+        return id;
+    }
+}
@@ -12,6 +12,8 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.textfield.TextInputEditText;
@@ -21,17 +23,41 @@ import com.lu.coffeecompanion.R;
 import com.lu.coffeecompanion.models.User;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 
-public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder> {
+public class UserAdapter extends ListAdapter<User, UserAdapter.UserViewHolder> {
 
     private Context context;
-    private ArrayList<User> userList;
     private DatabaseReference dbRef;
+    private final StableIds stableIds = new StableIds();
 
-    public UserAdapter(Context context, ArrayList<User> userList) {
+    private static final DiffUtil.ItemCallback<User> DIFF_CALLBACK = new DiffUtil.ItemCallback<User>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull User oldItem, @NonNull User newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull User oldItem, @NonNull User newItem) {
+            return Objects.equals(oldItem.getName(), newItem.getName())
+                    && Objects.equals(oldItem.getEmail(), newItem.getEmail())
+                    && Objects.equals(oldItem.getMobile(), newItem.getMobile())
+                    && Objects.equals(oldItem.getRole(), newItem.getRole())
+                    && oldItem.isBlocked() == newItem.isBlocked();
+        }
+    };
+
+    public UserAdapter(Context context) {
+        super(DIFF_CALLBACK);
         this.context = context;
-        this.userList = userList;
         this.dbRef = FirebaseDatabase.getInstance().getReference("users");
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableIds.idFor(getItem(position).getId());
     }
 
     @NonNull
@@ -43,7 +69,7 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
 
     @Override
     public void onBindViewHolder(@NonNull UserViewHolder holder, int position) {
-        User user = userList.get(position);
+        User user = getItem(position);
 
         Log.d("UserAdapter", "Binding user: " + user.getName() + ", Blocked: " + user.isBlocked() + ", Role: " + user.getRole());
 
@@ -68,12 +94,12 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
         }
 
         // Button click listeners
-        holder.btnEdit.setOnClickListener(v -> showEditDialog(user, position));
-        holder.btnBlock.setOnClickListener(v -> toggleBlockUser(user, position));
-        holder.btnDelete.setOnClickListener(v -> deleteUser(user, position));
+        holder.btnEdit.setOnClickListener(v -> showEditDialog(user));
+        holder.btnBlock.setOnClickListener(v -> toggleBlockUser(user));
+        holder.btnDelete.setOnClickListener(v -> deleteUser(user));
     }
 
-    private void showEditDialog(User user, int position) {
+    private void showEditDialog(User user) {
         // Create custom dialog for editing user
         AlertDialog.Builder builder = new AlertDialog.Builder(context);
         builder.setTitle("Edit User");
@@ -108,7 +134,7 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
             }
 
             // Update user in Firebase
-            updateUserInFirebase(user, newName, newEmail, newMobile, newRole, position);
+            updateUserInFirebase(user, newName, newEmail, newMobile, newRole);
         });
 
         builder.setNegativeButton("Cancel", null);
@@ -117,7 +143,7 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
         dialog.show();
     }
 
-    private void updateUserInFirebase(User user, String newName, String newEmail, String newMobile, String newRole, int position) {
+    private void updateUserInFirebase(User user, String newName, String newEmail, String newMobile, String newRole) {
         DatabaseReference userRef = dbRef.child(user.getId());
 
         userRef.child("name").setValue(newName);
@@ -132,7 +158,7 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
                     user.setRole(newRole);
 
                     // Notify adapter
-                    notifyItemChanged(position);
+                    notifyUserChanged(user);
 
                     Toast.makeText(context, "User updated successfully!", Toast.LENGTH_SHORT).show();
                     Log.d("UserAdapter", "User updated: " + newName);
@@ -143,7 +169,7 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
                 });
     }
 
-    private void toggleBlockUser(User user, int position) {
+    private void toggleBlockUser(User user) {
         boolean newBlockedStatus = !user.isBlocked();
         String action = newBlockedStatus ? "block" : "unblock";
 
@@ -155,7 +181,7 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
                             .addOnSuccessListener(aVoid -> {
                                 Toast.makeText(context, "User " + action + "ed successfully!", Toast.LENGTH_SHORT).show();
                                 user.setBlocked(newBlockedStatus);
-                                notifyItemChanged(position);
+                                notifyUserChanged(user);
                                 Log.d("UserAdapter", "User " + action + "ed: " + user.getName());
                             })
                             .addOnFailureListener(e -> {
@@ -167,7 +193,7 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
                 .show();
     }
 
-    private void deleteUser(User user, int position) {
+    private void deleteUser(User user) {
         new AlertDialog.Builder(context)
                 .setTitle("Delete User")
                 .setMessage("Are you sure you want to delete " + user.getName() + "? This action cannot be undone.")
@@ -175,9 +201,9 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
                     dbRef.child(user.getId()).removeValue()
                             .addOnSuccessListener(aVoid -> {
                                 Toast.makeText(context, "User deleted successfully!", Toast.LENGTH_SHORT).show();
-                                userList.remove(position);
-                                notifyItemRemoved(position);
-                                notifyItemRangeChanged(position, userList.size());
+                                List<User> remaining = new ArrayList<>(getCurrentList());
+                                remaining.remove(user);
+                                submitList(remaining);
                                 Log.d("UserAdapter", "User deleted: " + user.getName());
                             })
                             .addOnFailureListener(e -> {
@@ -189,9 +215,12 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
                 .show();
     }
 
-    @Override
-    public int getItemCount() {
-        return userList.size();
+    // The user was edited in place, so the differ cannot see the change; rebind its row directly
+    private void notifyUserChanged(User user) {
+        int index = getCurrentList().indexOf(user);
+        if (index != -1) {
+            notifyItemChanged(index);
+        }
     }
 
     public static class UserViewHolder extends RecyclerView.ViewHolder {
@@ -9,23 +9,39 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.cardview.widget.CardView;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.lu.coffeecompanion.OrderDetailsActivity;
 import com.lu.coffeecompanion.R;
 import com.lu.coffeecompanion.models.Order;  // ✅ FIXED IMPORT
 
-import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
-public class UserOrderAdapter extends RecyclerView.Adapter<UserOrderAdapter.OrderViewHolder> {
+public class UserOrderAdapter extends ListAdapter<Order, UserOrderAdapter.OrderViewHolder> {
 
     private Context context;
-    private List<Order> orderList;
 
-    public UserOrderAdapter(Context context, List<Order> orderList) {
+    private static final DiffUtil.ItemCallback<Order> DIFF_CALLBACK = new DiffUtil.ItemCallback<Order>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Order oldItem, @NonNull Order newItem) {
+            return Objects.equals(oldItem.getOrderId(), newItem.getOrderId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Order oldItem, @NonNull Order newItem) {
+            return Objects.equals(oldItem.getStatus(), newItem.getStatus())
+                    && Objects.equals(oldItem.getReceiptNumber(), newItem.getReceiptNumber())
+                    && oldItem.getTotalAmount() == newItem.getTotalAmount()
+                    && Objects.equals(oldItem.getFormattedDate(), newItem.getFormattedDate());
+        }
+    };
+
+    public UserOrderAdapter(Context context) {
+        super(DIFF_CALLBACK);
         this.context = context;
-        this.orderList = orderList;
     }
 
     @NonNull
@@ -37,7 +53,7 @@ public class UserOrderAdapter extends RecyclerView.Adapter<UserOrderAdapter.Orde
 
     @Override
     public void onBindViewHolder(@NonNull OrderViewHolder holder, int position) {
-        Order order = orderList.get(position);
+        Order order = getItem(position);
 
         // Receipt Number
         holder.tvReceiptNumber.setText(order.getReceiptNumber() != null ?
@@ -93,11 +109,6 @@ public class UserOrderAdapter extends RecyclerView.Adapter<UserOrderAdapter.Orde
         tvStatus.setPadding(24, 12, 24, 12);
     }
 
-    @Override
-    public int getItemCount() {
-        return orderList.size();
-    }
-
     static class OrderViewHolder extends RecyclerView.ViewHolder {
         CardView cardOrder;
         TextView tvReceiptNumber, tvOrderDate, tvTotalAmount, tvStatus;
@@ -0,0 +1,148 @@
+package com.lu.coffeecompanion.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Cart documents are keyed by shop and menu item (users/{uid}/cart/{shopId}_{menuDocId}), so
+// adding an item is one blind merge with a quantity increment: no lookup read first, and two
+// quick taps land on the same row instead of creating a duplicate.
+public class CartKeys {
+
+    private static final String TAG = "CartKeys";
+    private static final String PREFS = "cart_keys";
+    private static final int BATCH_LIMIT = 500;
+
+    public interface OnComplete {
+        void onComplete(boolean success);
+    }
+
+    private CartKeys() {}
+
+    public static String id(@NonNull String shopId, @NonNull String menuDocId) {
+        return shopId + "_" + menuDocId;
+    }
+
+    public static CollectionReference cart(@NonNull FirebaseFirestore db, @NonNull String userId) {
+        return db.collection("users").document(userId).collection("cart");
+    }
+
+    public static DocumentReference ref(@NonNull FirebaseFirestore db, @NonNull String userId,
+                                        @NonNull String shopId, @NonNull String menuDocId) {
+        return cart(db, userId).document(id(shopId, menuDocId));
+    }
+
+    // Adds qty of the item, creating the row if needed. fields carries the display copy
+    // (docId, shopId, itemName, ...) and must not contain quantity.
+    public static Task<Void> add(@NonNull FirebaseFirestore db, @NonNull String userId, @NonNull String shopId,
+                                 @NonNull String menuDocId, @NonNull Map<String, Object> fields, int qty) {
+        Map<String, Object> update = new HashMap<>(fields);
+        update.put("docId", menuDocId);
+        update.put("shopId", shopId);
+        update.put("quantity", FieldValue.increment(qty));
+        return ref(db, userId, shopId, menuDocId).set(update, SetOptions.merge());
+    }
+
+    // One-time pass per user and device: folds rows written before deterministic keys (random ids,
+    // possibly several per item) into the keyed row, summing their quantities
+    public static void mergeDuplicatesIfNeeded(@NonNull Context context, @NonNull FirebaseFirestore db,
+                                               @NonNull String userId, @NonNull OnComplete callback) {
+        SharedPreferences prefs = context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        String doneKey = "merged_" + userId;
+        if (prefs.getBoolean(doneKey, false)) {
+            callback.onComplete(true);
+            return;
+        }
+
+        CollectionReference cart = cart(db, userId);
+        cart.get()
+                .addOnSuccessListener(snapshot -> {
+                    Map<String, List<DocumentSnapshot>> rowsByKey = new LinkedHashMap<>();
+                    for (DocumentSnapshot row : snapshot.getDocuments()) {
+                        String shopId = row.getString("shopId");
+                        String menuDocId = row.getString("docId");
+                        if (shopId == null || menuDocId == null) continue;
+                        String key = id(shopId, menuDocId);
+                        List<DocumentSnapshot> rows = rowsByKey.get(key);
+                        if (rows == null) {
+                            rows = new ArrayList<>();
+                            rowsByKey.put(key, rows);
+                        }
+                        rows.add(row);
+                    }
+
+                    List<WriteBatch> batches = new ArrayList<>();
+                    WriteBatch batch = db.batch();
+                    int writes = 0;
+                    int merged = 0;
+                    for (Map.Entry<String, List<DocumentSnapshot>> group : rowsByKey.entrySet()) {
+                        List<DocumentSnapshot> rows = group.getValue();
+                        if (rows.size() == 1 && rows.get(0).getId().equals(group.getKey())) continue;
+
+                        // The keyed row and its deletes go in one batch so a quantity is never lost or doubled
+                        if (writes + rows.size() + 1 > BATCH_LIMIT) {
+                            batches.add(batch);
+                            batch = db.batch();
+                            writes = 0;
+                        }
+                        Map<String, Object> row = new HashMap<>();
+                        long quantity = 0;
+                        for (DocumentSnapshot duplicate : rows) {
+                            Map<String, Object> data = duplicate.getData();
+                            if (data != null) row.putAll(data);
+                            Long rowQuantity = duplicate.getLong("quantity");
+                            quantity += rowQuantity != null ? rowQuantity : 0;
+                        }
+                        row.put("quantity", quantity);
+                        batch.set(cart.document(group.getKey()), row);
+                        writes++;
+                        for (DocumentSnapshot duplicate : rows) {
+                            if (duplicate.getId().equals(group.getKey())) continue;
+                            batch.delete(duplicate.getReference());
+                            writes++;
+                        }
+                        merged++;
+                    }
+                    batches.add(batch);
+
+                    List<Task<Void>> commits = new ArrayList<>();
+                    for (WriteBatch b : batches) {
+                        commits.add(b.commit());
+                    }
+
+                    int mergedItems = merged;
+                    Tasks.whenAll(commits)
+                            .addOnSuccessListener(unused -> {
+                                prefs.edit().putBoolean(doneKey, true).apply();
+                                Log.d(TAG, "Merged " + mergedItems + " cart items onto keyed rows");
+                                callback.onComplete(true);
+                            })
+                            .addOnFailureListener(e -> {
+                                Log.e(TAG, "Cart merge write failed", e);
+                                callback.onComplete(false);
+                            });
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Cart merge read failed", e);
+                    callback.onComplete(false);
+                });
+    }
+}
@@ -0,0 +1,339 @@
+package com.lu.coffeecompanion.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// The signed-in user's cart, shared by the cart, edit and checkout screens. One snapshot listener
+// on users/{uid}/cart stays attached for the session, so moving between those screens reads
+// nothing; menu details come from MenuItemRepository's index. Edits change the local copy and
+// notify observers before the write is acknowledged, and the running total is adjusted per change
+// instead of re-summed.
+public class CartStore {
+
+    private static final String TAG = "CartStore";
+    private static final int BATCH_LIMIT = 500;
+    // item_cart shows an 80dp image
+    private static final int CART_IMAGE_DP = 80;
+
+    public interface Observer {
+        void onCartChanged(@NonNull List<Line> lines, double total);
+    }
+
+    public interface OnError {
+        void onError(@NonNull Exception e);
+    }
+
+    public static class Line {
+        private final String cartId;
+        private final String docId;
+        private final String shopId;
+        private final String name;
+        private final double price;
+        private final String shopName;
+        private final String imageUrl;
+        private final int quantity;
+
+        Line(String cartId, String docId, String shopId, String name, double price,
+             String shopName, String imageUrl, int quantity) {
+            this.cartId = cartId;
+            this.docId = docId;
+            this.shopId = shopId;
+            this.name = name;
+            this.price = price;
+            this.shopName = shopName;
+            this.imageUrl = imageUrl;
+            this.quantity = quantity;
+        }
+
+        Line withQuantity(int quantity) {
+            return new Line(cartId, docId, shopId, name, price, shopName, imageUrl, quantity);
+        }
+
+        public String getCartId() { return cartId; }
+        public String getDocId() { return docId; }
+        public String getShopId() { return shopId; }
+        public String getName() { return name; }
+        public double getPrice() { return price; }
+        @Nullable public String getShopName() { return shopName; }
+        @Nullable public String getImageUrl() { return imageUrl; }
+        public int getQuantity() { return quantity; }
+
+        // In centavos so adding and removing lines never drifts
+        long subtotalCents() {
+            return Math.round(price * 100) * quantity;
+        }
+    }
+
+    private static CartStore instance;
+
+    private final FirebaseFirestore db;
+    private final int imagePx;
+    private final LinkedHashMap<String, Line> lines = new LinkedHashMap<>();
+    private final Map<Observer, OnError> observers = new LinkedHashMap<>();
+    // get() callers still waiting for the first load
+    private final Map<Observer, OnError> waiting = new LinkedHashMap<>();
+    // Snapshots queue up while an earlier one waits on menu lookups, so changes apply in order
+    private final ArrayDeque<QuerySnapshot> pending = new ArrayDeque<>();
+
+    private String userId;
+    // Bumped on every detach so a menu lookup that outlives its listener is dropped
+    private int generation = 0;
+    private ListenerRegistration listener;
+    private boolean loaded = false;
+    private boolean resolving = false;
+    private long totalCents = 0;
+
+    private CartStore(Context context) {
+        db = FirebaseFirestore.getInstance();
+        imagePx = ImageRenditions.dpToPx(context.getApplicationContext(), CART_IMAGE_DP);
+        // Drop the listener and the copy on sign-out so the next account starts clean
+        FirebaseAuth.getInstance().addAuthStateListener(auth -> {
+            if (auth.getCurrentUser() == null) {
+                detach();
+            }
+        });
+    }
+
+    public static synchronized CartStore getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new CartStore(context);
+        }
+        return instance;
+    }
+
+    // Calls observer with the cart now (once loaded) and on every change until owner is destroyed.
+    // onError hears about a failed listener; the next observe or get attaches a new one.
+    public void observe(@NonNull LifecycleOwner owner, @NonNull String userId, @NonNull Observer observer,
+                        @NonNull OnError onError) {
+        attach(userId);
+        observers.put(observer, onError);
+        owner.getLifecycle().addObserver(new DefaultLifecycleObserver() {
+            @Override
+            public void onDestroy(@NonNull LifecycleOwner source) {
+                observers.remove(observer);
+                waiting.remove(observer);
+            }
+        });
+        if (loaded) {
+            observer.onCartChanged(snapshot(), total());
+        }
+    }
+
+    // Calls observer once with the cart as soon as it is loaded, or onError once if it cannot be
+    public void get(@NonNull String userId, @NonNull Observer observer, @NonNull OnError onError) {
+        attach(userId);
+        if (loaded) {
+            observer.onCartChanged(snapshot(), total());
+        } else {
+            waiting.put(observer, onError);
+        }
+    }
+
+    @Nullable
+    public Line line(@NonNull String cartId) {
+        return loaded ? lines.get(cartId) : null;
+    }
+
+    public double total() {
+        return totalCents / 100.0;
+    }
+
+    public Task<Void> setQuantity(@NonNull String cartId, int quantity) {
+        if (userId == null) {
+            return Tasks.forException(new IllegalStateException("Cart is not attached"));
+        }
+        Line line = lines.get(cartId);
+        if (line != null) {
+            put(line.withQuantity(quantity));
+            notifyObservers();
+        }
+        return CartKeys.cart(db, userId).document(cartId).update("quantity", quantity)
+                .addOnFailureListener(e -> Log.e(TAG, "Failed to update cart quantity", e));
+    }
+
+    // Every removal goes out in as few batches as possible, one commit per 500 rows
+    public Task<Void> remove(@NonNull Collection<String> cartIds) {
+        if (userId == null) {
+            return Tasks.forException(new IllegalStateException("Cart is not attached"));
+        }
+        for (String cartId : cartIds) {
+            Line removed = lines.remove(cartId);
+            if (removed != null) totalCents -= removed.subtotalCents();
+        }
+        notifyObservers();
+
+        List<Task<Void>> commits = new ArrayList<>();
+        WriteBatch batch = db.batch();
+        int writes = 0;
+        for (String cartId : cartIds) {
+            batch.delete(CartKeys.cart(db, userId).document(cartId));
+            if (++writes == BATCH_LIMIT) {
+                commits.add(batch.commit());
+                batch = db.batch();
+                writes = 0;
+            }
+        }
+        if (writes > 0) {
+            commits.add(batch.commit());
+        }
+        return Tasks.whenAll(commits)
+                .addOnFailureListener(e -> Log.e(TAG, "Failed to remove cart items", e));
+    }
+
+    private void attach(String userId) {
+        if (userId.equals(this.userId) && listener != null) {
+            return;
+        }
+        detach();
+        this.userId = userId;
+        listener = CartKeys.cart(db, userId).addSnapshotListener((snapshot, error) -> {
+            if (error != null) {
+                Log.e(TAG, "Cart listener failed", error);
+                // A failed listener is closed; the next observe or get attaches a fresh one
+                listener = null;
+                notifyError(error);
+                return;
+            }
+            if (snapshot == null) return;
+            pending.add(snapshot);
+            drain();
+        });
+    }
+
+    private void detach() {
+        if (listener != null) {
+            listener.remove();
+            listener = null;
+        }
+        userId = null;
+        generation++;
+        lines.clear();
+        pending.clear();
+        waiting.clear();
+        loaded = false;
+        resolving = false;
+        totalCents = 0;
+    }
+
+    private void drain() {
+        if (resolving || pending.isEmpty()) return;
+        QuerySnapshot snapshot = pending.poll();
+        int listeningFor = generation;
+
+        Map<String, String> shopIdHints = new HashMap<>();
+        for (DocumentChange change : snapshot.getDocumentChanges()) {
+            DocumentSnapshot row = change.getDocument();
+            String docId = row.getString("docId");
+            if (change.getType() != DocumentChange.Type.REMOVED && docId != null) {
+                shopIdHints.put(docId, row.getString("shopId"));
+            }
+        }
+
+        resolving = true;
+        MenuItemRepository.getInstance().getMenuItems(shopIdHints, entries -> {
+            // Signed out or switched accounts while the lookup ran
+            if (listeningFor != generation) return;
+            resolving = false;
+            apply(snapshot, entries);
+            drain();
+        });
+    }
+
+    private void apply(QuerySnapshot snapshot, Map<String, MenuItemRepository.MenuEntry> entries) {
+        for (DocumentChange change : snapshot.getDocumentChanges()) {
+            DocumentSnapshot row = change.getDocument();
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                Line removed = lines.remove(row.getId());
+                if (removed != null) totalCents -= removed.subtotalCents();
+                continue;
+            }
+            Line line = toLine(row, entries.get(row.getString("docId")));
+            if (line != null) {
+                put(line);
+            } else {
+                Line removed = lines.remove(row.getId());
+                if (removed != null) totalCents -= removed.subtotalCents();
+            }
+        }
+
+        loaded = true;
+        notifyObservers();
+    }
+
+    // Current menu name and price; items no longer on the menu are left out, since the price saved
+    // with the row may be stale and checkout must never charge it
+    @Nullable
+    private Line toLine(DocumentSnapshot row, @Nullable MenuItemRepository.MenuEntry entry) {
+        if (entry == null) return null;
+        String name = entry.getName();
+        Double price = entry.getPrice();
+        if (name == null || price == null) return null;
+
+        Double quantity = row.getDouble("quantity");
+        return new Line(row.getId(), row.getString("docId"), row.getString("shopId"), name, price,
+                entry.getShopName(), entry.getImageUrl(imagePx),
+                quantity != null ? quantity.intValue() : 1);
+    }
+
+    private void put(Line line) {
+        Line previous = lines.put(line.getCartId(), line);
+        if (previous != null) totalCents -= previous.subtotalCents();
+        totalCents += line.subtotalCents();
+    }
+
+    private List<Line> snapshot() {
+        return new ArrayList<>(lines.values());
+    }
+
+    private void notifyObservers() {
+        if (!loaded) return;
+        List<Line> current = snapshot();
+        double total = total();
+        for (Observer observer : new ArrayList<>(observers.keySet())) {
+            observer.onCartChanged(current, total);
+        }
+        if (!waiting.isEmpty()) {
+            List<Observer> once = new ArrayList<>(waiting.keySet());
+            waiting.clear();
+            for (Observer observer : once) {
+                observer.onCartChanged(current, total);
+            }
+        }
+    }
+
+    private void notifyError(Exception e) {
+        for (OnError onError : new ArrayList<>(observers.values())) {
+            onError.onError(e);
+        }
+        if (!waiting.isEmpty()) {
+            List<OnError> once = new ArrayList<>(waiting.values());
+            waiting.clear();
+            for (OnError onError : once) {
+                onError.onError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.lu.coffeecompanion.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// The catalog snapshot shipped in assets/catalog.bundle (built by :app:exportCatalogBundle).
+// Loading it puts coffees, shops and every shop's menu into Firestore's local cache, so a fresh
+// install renders without a network round trip. Server reads later overwrite bundled documents
+// that have changed.
+public class CatalogBundle {
+
+    private static final String TAG = "CatalogBundle";
+    private static final String ASSET = "catalog.bundle";
+    private static final String PREFS = "catalog_bundle";
+    // Install/update time of the APK whose bundle is already in the cache
+    private static final String KEY_LOADED_FOR = "loadedFor";
+
+    // Named queries; must match tools/catalog-bundle/build-bundle.js. Coffees and menus ship as
+    // plain documents, which CatalogSync reads from the cache on its first sync.
+    public static final String QUERY_SHOPS = "shops-all";
+
+    private static Task<Boolean> ready;
+
+    private CatalogBundle() {}
+
+    // Called once from Application.onCreate. The bundle is only read the first time a given APK
+    // runs; after that its documents are already in the persistent cache.
+    public static synchronized void loadAtStartup(@NonNull Context context) {
+        if (ready != null) return;
+
+        Context appContext = context.getApplicationContext();
+        SharedPreferences prefs = appContext.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        long installedAt = installedAt(appContext);
+        if (installedAt != 0 && prefs.getLong(KEY_LOADED_FOR, 0L) == installedAt) {
+            ready = Tasks.forResult(true);
+            return;
+        }
+
+        InputStream in;
+        try {
+            in = appContext.getAssets().open(ASSET);
+        } catch (IOException e) {
+            // Dev builds that never ran the export step
+            Log.i(TAG, "No catalog bundle in assets");
+            ready = Tasks.forResult(false);
+            return;
+        }
+
+        TaskCompletionSource<Boolean> source = new TaskCompletionSource<>();
+        ready = source.getTask();
+        FirebaseFirestore.getInstance().loadBundle(in)
+                .addOnCompleteListener(task -> {
+                    closeQuietly(in);
+                    if (task.isSuccessful()) {
+                        Log.d(TAG, "Loaded catalog bundle: " + task.getResult().getTotalDocuments() + " documents");
+                        prefs.edit().putLong(KEY_LOADED_FOR, installedAt).apply();
+                        source.setResult(true);
+                    } else {
+                        Log.e(TAG, "Failed to load catalog bundle", task.getException());
+                        source.setResult(false);
+                    }
+                });
+    }
+
+    // Resolves to true once bundled documents are in the local cache, false if there are none
+    public static synchronized Task<Boolean> whenReady() {
+        return ready != null ? ready : Tasks.forResult(false);
+    }
+
+    // The bundled named query, or fallback if this bundle does not define it
+    public static Task<Query> namedQuery(@NonNull FirebaseFirestore db, @NonNull String name,
+                                         @NonNull Query fallback) {
+        return db.getNamedQuery(name).continueWith(task ->
+                task.isSuccessful() && task.getResult() != null ? task.getResult() : fallback);
+    }
+
+    private static long installedAt(Context context) {
+        try {
+            return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return 0L;
+        }
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
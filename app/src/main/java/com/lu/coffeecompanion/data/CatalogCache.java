@@ -0,0 +1,243 @@
+package com.lu.coffeecompanion.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Cache-first reads for catalog data (coffees, shops, menus, inventory) that changes about once a day.
+// A read is served from Firestore's persistent cache while the last server fetch for that key is
+// younger than its collection's TTL; otherwise it goes to the server, and if the server is
+// unreachable (shop Wi-Fi) the stale cached copy is served instead of an error. Until a key has
+// had its first server read, it is answered from the shipped CatalogBundle when there is one.
+public class CatalogCache {
+
+    private static final String TAG = "CatalogCache";
+    private static final String PREFS = "catalog_cache";
+
+    public static final String COFFEES = "coffees";
+    public static final String SHOPS = "shops";
+    public static final String MENU = "menu";
+    public static final String INVENTORY = "inventory";
+
+    private static final long HOUR = 60 * 60 * 1000L;
+    private static final Map<String, Long> TTL_BY_COLLECTION = new HashMap<>();
+    static {
+        TTL_BY_COLLECTION.put(COFFEES, 12 * HOUR);
+        TTL_BY_COLLECTION.put(SHOPS, 12 * HOUR);
+        TTL_BY_COLLECTION.put(MENU, 6 * HOUR);
+        // Stock levels decide what the menu shows, so they go stale much sooner
+        TTL_BY_COLLECTION.put(INVENTORY, 10 * 60 * 1000L);
+    }
+
+    // Log the running hit ratio every this many reads
+    private static final int REPORT_EVERY = 20;
+
+    private static CatalogCache instance;
+
+    private final SharedPreferences prefs;
+    private int hits = 0;
+    private int misses = 0;
+    private int staleServed = 0;
+
+    private CatalogCache(Context context) {
+        prefs = context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    public static synchronized CatalogCache getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new CatalogCache(context);
+        }
+        return instance;
+    }
+
+    // key identifies the query shape within the collection, e.g. "bestSellers" or a shop id
+    public Task<QuerySnapshot> get(@NonNull Query query, @NonNull String collection, @NonNull String key) {
+        return get(query, collection, key, null);
+    }
+
+    // bundledQuery names the CatalogBundle query holding the same results, used before this key's
+    // first server read so a fresh install renders from the bundle
+    public Task<QuerySnapshot> get(@NonNull Query query, @NonNull String collection, @NonNull String key,
+                                   @Nullable String bundledQuery) {
+        String prefKey = collection + "/" + key;
+        if (bundledQuery != null && neverFetched(prefKey)) {
+            return fromBundle(query, bundledQuery, prefKey);
+        }
+        if (!isFresh(prefKey, collection)) {
+            return fromServer(query, prefKey);
+        }
+
+        return query.get(Source.CACHE).continueWithTask(cacheTask -> {
+            // An empty cached result only counts if the server also said empty last time
+            if (cacheTask.isSuccessful()
+                    && (!cacheTask.getResult().isEmpty() || prefs.getBoolean(prefKey + "#empty", false))) {
+                recordHit();
+                return cacheTask;
+            }
+            return fromServer(query, prefKey);
+        });
+    }
+
+    public Task<DocumentSnapshot> get(@NonNull DocumentReference ref, @NonNull String collection) {
+        String prefKey = collection + "/" + ref.getPath();
+        if (neverFetched(prefKey)) {
+            return fromBundle(ref, prefKey);
+        }
+        if (!isFresh(prefKey, collection)) {
+            return fromServer(ref, prefKey);
+        }
+
+        return ref.get(Source.CACHE).continueWithTask(cacheTask -> {
+            // Source.CACHE fails outright when the document was never cached
+            if (cacheTask.isSuccessful() && cacheTask.getResult().exists()) {
+                recordHit();
+                return cacheTask;
+            }
+            return fromServer(ref, prefKey);
+        });
+    }
+
+    // Pull-to-refresh: the next read of this collection goes to the server. Keys are zeroed rather
+    // than removed so the refresh is not answered from the bundle again.
+    public void invalidate(@NonNull String collection) {
+        SharedPreferences.Editor editor = prefs.edit();
+        for (String key : prefs.getAll().keySet()) {
+            if (key.startsWith(collection + "/") && !key.endsWith("#empty")) {
+                editor.putLong(key, 0L);
+            }
+        }
+        editor.apply();
+    }
+
+    public synchronized double getHitRatio() {
+        int total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    // Serves the bundled result and refreshes from the server behind it, so the next read of this
+    // key sees current data overlaid on the bundle. Falls through to the server when the bundle
+    // is missing or does not cover the query.
+    private Task<QuerySnapshot> fromBundle(Query query, String bundledQuery, String prefKey) {
+        return CatalogBundle.whenReady().continueWithTask(ready -> {
+            if (!Boolean.TRUE.equals(ready.getResult())) {
+                return fromServer(query, prefKey);
+            }
+            return CatalogBundle.namedQuery(query.getFirestore(), bundledQuery, query)
+                    .continueWithTask(named -> named.getResult().get(Source.CACHE))
+                    .continueWithTask(cacheTask -> {
+                        if (cacheTask.isSuccessful() && !cacheTask.getResult().isEmpty()) {
+                            recordHit();
+                            fromServer(query, prefKey);
+                            return cacheTask;
+                        }
+                        return fromServer(query, prefKey);
+                    });
+        });
+    }
+
+    private Task<DocumentSnapshot> fromBundle(DocumentReference ref, String prefKey) {
+        return CatalogBundle.whenReady().continueWithTask(ready -> {
+            if (!Boolean.TRUE.equals(ready.getResult())) {
+                return fromServer(ref, prefKey);
+            }
+            return ref.get(Source.CACHE).continueWithTask(cacheTask -> {
+                if (cacheTask.isSuccessful() && cacheTask.getResult().exists()) {
+                    recordHit();
+                    fromServer(ref, prefKey);
+                    return cacheTask;
+                }
+                return fromServer(ref, prefKey);
+            });
+        });
+    }
+
+    private Task<QuerySnapshot> fromServer(Query query, String prefKey) {
+        recordMiss();
+        return query.get(Source.SERVER).continueWithTask(serverTask -> {
+            if (serverTask.isSuccessful()) {
+                markFetched(prefKey, serverTask.getResult().isEmpty());
+                return serverTask;
+            }
+
+            Log.w(TAG, "Server read failed for " + prefKey + ", serving cache", serverTask.getException());
+            return query.get(Source.CACHE).continueWithTask(cacheTask -> {
+                if (cacheTask.isSuccessful() && !cacheTask.getResult().isEmpty()) {
+                    recordStale();
+                    return cacheTask;
+                }
+                return serverTask;
+            });
+        });
+    }
+
+    private Task<DocumentSnapshot> fromServer(DocumentReference ref, String prefKey) {
+        recordMiss();
+        return ref.get(Source.SERVER).continueWithTask(serverTask -> {
+            if (serverTask.isSuccessful()) {
+                markFetched(prefKey, false);
+                return serverTask;
+            }
+
+            Log.w(TAG, "Server read failed for " + prefKey + ", serving cache", serverTask.getException());
+            return ref.get(Source.CACHE).continueWithTask(cacheTask -> {
+                if (cacheTask.isSuccessful() && cacheTask.getResult().exists()) {
+                    recordStale();
+                    return cacheTask;
+                }
+                return serverTask;
+            });
+        });
+    }
+
+    private boolean neverFetched(String prefKey) {
+        return !prefs.contains(prefKey);
+    }
+
+    private boolean isFresh(String prefKey, String collection) {
+        long fetchedAt = prefs.getLong(prefKey, 0L);
+        Long ttl = TTL_BY_COLLECTION.get(collection);
+        return fetchedAt > 0 && ttl != null && System.currentTimeMillis() - fetchedAt < ttl;
+    }
+
+    private void markFetched(String prefKey, boolean empty) {
+        prefs.edit()
+                .putLong(prefKey, System.currentTimeMillis())
+                .putBoolean(prefKey + "#empty", empty)
+                .apply();
+    }
+
+    private synchronized void recordHit() {
+        hits++;
+        report();
+    }
+
+    private synchronized void recordMiss() {
+        misses++;
+        report();
+    }
+
+    private synchronized void recordStale() {
+        staleServed++;
+    }
+
+    private void report() {
+        int total = hits + misses;
+        if (total % REPORT_EVERY == 0) {
+            Log.i(TAG, String.format("Cache hit ratio %.0f%% (%d hits, %d server reads, %d stale fallbacks)",
+                    getHitRatio() * 100, hits, misses, staleServed));
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.lu.coffeecompanion.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Delta sync for catalog collections (coffees, inventory, a shop's menu). Firestore's persistent
+// cache is the local store: the first sync reads the whole collection, and later syncs ask the
+// server only for documents whose updatedAt is past the collection's high-water mark, then read
+// the merged set back from the cache. Refreshing an unchanged 500-item catalog costs one read.
+//
+// Writers must stamp updatedAt with a server timestamp and never hard-delete: a removed item is
+// a tombstone with deleted = true (or isArchived = true for inventory, which readers already
+// skip), so the change reaches devices through the same delta query.
+public class CatalogSync {
+
+    private static final String TAG = "CatalogSync";
+    private static final String PREFS = "catalog_sync";
+
+    public static final String FIELD_UPDATED_AT = "updatedAt";
+    public static final String FIELD_DELETED = "deleted";
+
+    // A weekly full read picks up writes that skipped updatedAt and anything the cache evicted
+    private static final long FULL_SYNC_INTERVAL = 7 * 24 * 60 * 60 * 1000L;
+    // Reopening a screen within this window reads the local store without asking the server
+    private static final long MIN_SYNC_INTERVAL = 60 * 1000L;
+
+    private static CatalogSync instance;
+
+    private final SharedPreferences prefs;
+
+    private CatalogSync(Context context) {
+        prefs = context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    public static synchronized CatalogSync getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new CatalogSync(context);
+        }
+        return instance;
+    }
+
+    // Current documents of the collection, tombstones removed. force (pull-to-refresh) skips the
+    // MIN_SYNC_INTERVAL shortcut but is still a delta query.
+    public Task<List<DocumentSnapshot>> sync(@NonNull CollectionReference collection, boolean force) {
+        return sync(collection, collection.getPath(), force);
+    }
+
+    // Same for a collection group, e.g. every shop's menu at once; key names its watermark
+    public Task<List<DocumentSnapshot>> sync(@NonNull Query collection, @NonNull String key, boolean force) {
+        long fullSyncAt = prefs.getLong(key + "#full", 0L);
+        long now = System.currentTimeMillis();
+
+        if (fullSyncAt == 0L) {
+            return firstSync(collection, key);
+        }
+        if (now - fullSyncAt > FULL_SYNC_INTERVAL) {
+            return fullSync(collection, key);
+        }
+        if (!force && now - prefs.getLong(key + "#checked", 0L) < MIN_SYNC_INTERVAL) {
+            return readLocal(collection, key);
+        }
+        return deltaSync(collection, key);
+    }
+
+    // Documents sorted ascending by a numeric field, missing values last
+    public static List<DocumentSnapshot> sortedBy(@NonNull List<DocumentSnapshot> docs, @NonNull String field) {
+        List<DocumentSnapshot> sorted = new ArrayList<>(docs);
+        Collections.sort(sorted, (a, b) -> {
+            Double left = a.getDouble(field);
+            Double right = b.getDouble(field);
+            if (left == null) return right == null ? 0 : 1;
+            if (right == null) return -1;
+            return Double.compare(left, right);
+        });
+        return sorted;
+    }
+
+    // With the catalog bundle in the cache a fresh install renders from it, and the full read
+    // runs behind so the next sync starts from a real watermark
+    private Task<List<DocumentSnapshot>> firstSync(Query collection, String key) {
+        return CatalogBundle.whenReady().continueWithTask(ready -> {
+            if (!Boolean.TRUE.equals(ready.getResult())) {
+                return fullSync(collection, key);
+            }
+            return collection.get(Source.CACHE).continueWithTask(cacheTask -> {
+                if (cacheTask.isSuccessful() && !cacheTask.getResult().isEmpty()) {
+                    fullSync(collection, key);
+                    return Tasks.forResult(live(cacheTask.getResult()));
+                }
+                return fullSync(collection, key);
+            });
+        });
+    }
+
+    private Task<List<DocumentSnapshot>> fullSync(Query collection, String key) {
+        return collection.get(Source.SERVER).continueWithTask(serverTask -> {
+            if (!serverTask.isSuccessful()) {
+                Log.w(TAG, "Full sync of " + key + " failed, serving local copy", serverTask.getException());
+                return readLocal(collection, key);
+            }
+            QuerySnapshot result = serverTask.getResult();
+            long now = System.currentTimeMillis();
+            SharedPreferences.Editor editor = prefs.edit()
+                    .putLong(key + "#full", now)
+                    .putLong(key + "#checked", now);
+            writeMark(editor, key, maxUpdatedAt(result, readMark(key)));
+            editor.apply();
+            Log.d(TAG, "Full sync of " + key + ": " + result.size() + " documents");
+            return Tasks.forResult(live(result));
+        });
+    }
+
+    private Task<List<DocumentSnapshot>> deltaSync(Query collection, String key) {
+        Timestamp mark = readMark(key);
+        return collection.whereGreaterThan(FIELD_UPDATED_AT, mark)
+                .get(Source.SERVER)
+                .continueWithTask(serverTask -> {
+                    if (serverTask.isSuccessful()) {
+                        QuerySnapshot changed = serverTask.getResult();
+                        SharedPreferences.Editor editor = prefs.edit()
+                                .putLong(key + "#checked", System.currentTimeMillis());
+                        writeMark(editor, key, maxUpdatedAt(changed, mark));
+                        editor.apply();
+                        Log.d(TAG, "Delta sync of " + key + ": " + changed.size() + " changed");
+                    } else {
+                        Log.w(TAG, "Delta sync of " + key + " failed, serving local copy", serverTask.getException());
+                    }
+                    return readLocal(collection, key);
+                });
+    }
+
+    private Task<List<DocumentSnapshot>> readLocal(Query collection, String key) {
+        return collection.get(Source.CACHE).continueWithTask(cacheTask -> {
+            if (cacheTask.isSuccessful() && !cacheTask.getResult().isEmpty()) {
+                return Tasks.forResult(live(cacheTask.getResult()));
+            }
+            // The cache was cleared or evicted under us; start over from the server
+            Log.w(TAG, "Local copy of " + key + " is empty, resyncing");
+            prefs.edit().remove(key + "#full").apply();
+            return collection.get(Source.SERVER).continueWith(serverTask -> live(serverTask.getResult()));
+        });
+    }
+
+    private static List<DocumentSnapshot> live(QuerySnapshot snapshot) {
+        List<DocumentSnapshot> docs = new ArrayList<>();
+        for (DocumentSnapshot doc : snapshot.getDocuments()) {
+            if (!Boolean.TRUE.equals(doc.getBoolean(FIELD_DELETED))) {
+                docs.add(doc);
+            }
+        }
+        return docs;
+    }
+
+    private static Timestamp maxUpdatedAt(QuerySnapshot snapshot, Timestamp mark) {
+        Timestamp max = mark;
+        for (DocumentSnapshot doc : snapshot.getDocuments()) {
+            Timestamp updatedAt = doc.getTimestamp(FIELD_UPDATED_AT);
+            if (updatedAt != null && updatedAt.compareTo(max) > 0) {
+                max = updatedAt;
+            }
+        }
+        return max;
+    }
+
+    private Timestamp readMark(String key) {
+        return new Timestamp(prefs.getLong(key + "#markSeconds", 0L), prefs.getInt(key + "#markNanos", 0));
+    }
+
+    private static void writeMark(SharedPreferences.Editor editor, String key, Timestamp mark) {
+        editor.putLong(key + "#markSeconds", mark.getSeconds())
+                .putInt(key + "#markNanos", mark.getNanoseconds());
+    }
+}
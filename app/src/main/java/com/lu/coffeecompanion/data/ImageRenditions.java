@@ -0,0 +1,99 @@
+package com.lu.coffeecompanion.data;
+
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.storage.StorageReference;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Thumbnail, medium and full WebP renditions of a product photo, stored on the document as an
+// imageUrls map next to the legacy imageUrl (which holds the full one). Loaders ask for the
+// smallest rendition that still covers their view, and fall back to imageUrl for documents
+// that predate renditions.
+public class ImageRenditions {
+
+    public static final String FIELD_URLS = "imageUrls";
+    public static final String FIELD_URL = "imageUrl";
+
+    public static final String THUMB = "thumb";
+    public static final String MEDIUM = "medium";
+    public static final String FULL = "full";
+
+    // Long edges in px. Thumb covers 40-80dp list images, medium a 100dp tile at xxxhdpi.
+    private static final String[] NAMES = {THUMB, MEDIUM, FULL};
+    private static final int[] SIZES = {160, 480, ImageUploadPipeline.MAX_DIMENSION};
+
+    private ImageRenditions() {}
+
+    // Encodes all renditions from one decode, uploads them as <baseName>_<rendition>.webp in
+    // folder, and resolves to rendition name -> download URL
+    public static Task<Map<String, String>> upload(@NonNull Context context, @NonNull Uri source,
+                                                   @NonNull StorageReference folder, @NonNull String baseName) {
+        return ImageUploadPipeline.encodeRenditions(context, source, SIZES)
+                .onSuccessTask(files -> {
+                    List<Task<Uri>> urls = new ArrayList<>();
+                    for (int i = 0; i < NAMES.length; i++) {
+                        StorageReference ref = folder.child(baseName + "_" + NAMES[i] + ".webp");
+                        urls.add(ImageUploadPipeline.upload(ref, files.get(i))
+                                .continueWithTask(upload -> {
+                                    if (!upload.isSuccessful()) {
+                                        throw upload.getException();
+                                    }
+                                    return ref.getDownloadUrl();
+                                }));
+                    }
+                    return Tasks.<Uri>whenAllSuccess(urls);
+                })
+                .continueWith(task -> {
+                    List<Uri> resolved = task.getResult();
+                    Map<String, String> byName = new HashMap<>();
+                    for (int i = 0; i < NAMES.length; i++) {
+                        byName.put(NAMES[i], resolved.get(i).toString());
+                    }
+                    return byName;
+                });
+    }
+
+    @Nullable
+    public static String pick(@NonNull DocumentSnapshot doc, int targetPx) {
+        return pick(urlsOf(doc), doc.getString(FIELD_URL), targetPx);
+    }
+
+    @Nullable
+    public static Map<?, ?> urlsOf(@NonNull DocumentSnapshot doc) {
+        Object urls = doc.get(FIELD_URLS);
+        return urls instanceof Map ? (Map<?, ?>) urls : null;
+    }
+
+    // Smallest rendition whose long edge reaches targetPx, else the largest one present
+    @Nullable
+    public static String pick(@Nullable Map<?, ?> urls, @Nullable String fallback, int targetPx) {
+        if (urls == null || urls.isEmpty()) {
+            return fallback;
+        }
+        String best = null;
+        for (int i = 0; i < NAMES.length; i++) {
+            Object url = urls.get(NAMES[i]);
+            if (!(url instanceof String) || ((String) url).isEmpty()) continue;
+            best = (String) url;
+            if (SIZES[i] >= targetPx) {
+                return best;
+            }
+        }
+        return best != null ? best : fallback;
+    }
+
+    public static int dpToPx(@NonNull Context context, int dp) {
+        return Math.round(dp * context.getResources().getDisplayMetrics().density);
+    }
+}
@@ -0,0 +1,182 @@
+package com.lu.coffeecompanion.data;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.ImageDecoder;
+import android.net.Uri;
+import android.os.Build;
+import android.util.Log;
+import android.util.Size;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+import com.google.firebase.storage.UploadTask;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Turns a picked photo into an upload-sized WebP file off the main thread. The source is decoded
+// straight to the target size (header read first, so a 12 MP photo never lands in memory at full
+// resolution), encoded into a cache file, and handed to Storage as a file upload.
+public class ImageUploadPipeline {
+
+    private static final String TAG = "ImageUploadPipeline";
+
+    // Long edge of uploaded product photos; the largest place they show is a full-width card
+    public static final int MAX_DIMENSION = 1280;
+    public static final int WEBP_QUALITY = 80;
+    public static final String CONTENT_TYPE = "image/webp";
+
+    private static final String CACHE_DIR = "image_uploads";
+
+    // One at a time: each decode briefly holds a full target-size bitmap
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private ImageUploadPipeline() {}
+
+    // One file:// Uri per requested long edge, in the order given, each a WebP in the app's cache.
+    // The source is decoded once at the largest size and each smaller rendition is scaled down
+    // from that bitmap.
+    public static Task<List<Uri>> encodeRenditions(@NonNull Context context, @NonNull Uri source,
+                                                   @NonNull int... maxDimensions) {
+        Context appContext = context.getApplicationContext();
+        return Tasks.call(executor, () -> {
+            int largest = 0;
+            for (int dimension : maxDimensions) {
+                largest = Math.max(largest, dimension);
+            }
+
+            Bitmap decoded = decode(appContext.getContentResolver(), source, largest);
+            try {
+                List<Uri> files = new ArrayList<>();
+                for (int dimension : maxDimensions) {
+                    float scale = scaleFor(decoded.getWidth(), decoded.getHeight(), dimension);
+                    Bitmap rendition = scale >= 1f ? decoded : Bitmap.createScaledBitmap(decoded,
+                            Math.round(decoded.getWidth() * scale), Math.round(decoded.getHeight() * scale), true);
+                    try {
+                        files.add(write(appContext, rendition, source));
+                    } finally {
+                        if (rendition != decoded) {
+                            rendition.recycle();
+                        }
+                    }
+                }
+                return files;
+            } finally {
+                decoded.recycle();
+            }
+        });
+    }
+
+    private static Uri write(Context context, Bitmap bitmap, Uri source) throws IOException {
+        File dir = new File(context.getCacheDir(), CACHE_DIR);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        File out = new File(dir, UUID.randomUUID() + ".webp");
+        try (OutputStream stream = new FileOutputStream(out)) {
+            if (!bitmap.compress(webpFormat(), WEBP_QUALITY, stream)) {
+                throw new IOException("WebP encode failed for " + source);
+            }
+        }
+        Log.d(TAG, "Encoded " + bitmap.getWidth() + "x" + bitmap.getHeight() + " -> " + out.length() + " bytes");
+        return Uri.fromFile(out);
+    }
+
+    // Streams the encoded file to Storage and removes it from the cache once the upload settles
+    public static UploadTask upload(@NonNull StorageReference ref, @NonNull Uri encodedFile) {
+        StorageMetadata metadata = new StorageMetadata.Builder()
+                .setContentType(CONTENT_TYPE)
+                .build();
+        UploadTask task = ref.putFile(encodedFile, metadata);
+        task.addOnCompleteListener(done -> {
+            String path = encodedFile.getPath();
+            if (path != null && !new File(path).delete()) {
+                Log.w(TAG, "Could not delete " + path);
+            }
+        });
+        return task;
+    }
+
+    private static Bitmap decode(ContentResolver resolver, Uri source, int maxDimension) throws IOException {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            // ImageDecoder hands over the header before decoding and applies EXIF rotation itself
+            ImageDecoder.Source src = ImageDecoder.createSource(resolver, source);
+            return ImageDecoder.decodeBitmap(src, (decoder, info, s) -> {
+                Size size = info.getSize();
+                float scale = scaleFor(size.getWidth(), size.getHeight(), maxDimension);
+                if (scale < 1f) {
+                    decoder.setTargetSize(Math.round(size.getWidth() * scale), Math.round(size.getHeight() * scale));
+                }
+                // Hardware bitmaps cannot be compressed
+                decoder.setAllocator(ImageDecoder.ALLOCATOR_SOFTWARE);
+            });
+        }
+
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = resolver.openInputStream(source)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("Not a decodable image: " + source);
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSizeFor(bounds.outWidth, bounds.outHeight, maxDimension);
+        Bitmap sampled;
+        try (InputStream in = resolver.openInputStream(source)) {
+            sampled = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (sampled == null) {
+            throw new IOException("Decode failed for " + source);
+        }
+
+        // inSampleSize only halves; finish the last step with a single scale
+        float scale = scaleFor(sampled.getWidth(), sampled.getHeight(), maxDimension);
+        if (scale >= 1f) {
+            return sampled;
+        }
+        Bitmap scaled = Bitmap.createScaledBitmap(sampled,
+                Math.round(sampled.getWidth() * scale), Math.round(sampled.getHeight() * scale), true);
+        if (scaled != sampled) {
+            sampled.recycle();
+        }
+        return scaled;
+    }
+
+    private static float scaleFor(int width, int height, int maxDimension) {
+        return Math.min(1f, (float) maxDimension / Math.max(width, height));
+    }
+
+    // Largest power of two that keeps the long edge at or above maxDimension
+    private static int sampleSizeFor(int width, int height, int maxDimension) {
+        int longEdge = Math.max(width, height);
+        int sampleSize = 1;
+        while (longEdge / (sampleSize * 2) >= maxDimension) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat webpFormat() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY
+                : Bitmap.CompressFormat.WEBP;
+    }
+}
@@ -0,0 +1,346 @@
+package com.lu.coffeecompanion.data;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Process-wide docId -> (shopId, menu snapshot) index so screens no longer scan every shop's menu.
+// Built once from a single collection-group listener on "menu"; later changes patch the index in place.
+// The index only counts as ready once the server has confirmed it, since a snapshot served from the
+// cache alone can miss items. If a listener fails, lookups fall back to direct reads and the index is
+// retried with backoff.
+public class MenuItemRepository {
+
+    private static final String TAG = "MenuItemRepository";
+    private static final long RETRY_INITIAL_MS = 2_000;
+    private static final long RETRY_MAX_MS = 5 * 60_000;
+    // Offline, the server never confirms; waiting lookups fall back to direct reads after this long
+    private static final long PENDING_TIMEOUT_MS = 10_000;
+
+    private static MenuItemRepository instance;
+
+    private final FirebaseFirestore db;
+    private final Map<String, DocumentSnapshot> menuIndex = new HashMap<>();
+    private final Map<String, String> shopNames = new HashMap<>();
+    private final List<Runnable> pendingLookups = new ArrayList<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private ListenerRegistration menuListener;
+    private ListenerRegistration shopListener;
+    private boolean menuReady = false;
+    private boolean shopsReady = false;
+    private boolean indexFailed = false;
+    private long retryDelayMs = RETRY_INITIAL_MS;
+
+    public interface OnMenuItemLoaded {
+        void onLoaded(@Nullable MenuEntry entry);
+    }
+
+    public interface OnMenuItemsLoaded {
+        void onLoaded(@NonNull Map<String, MenuEntry> entries);
+    }
+
+    public static class MenuEntry {
+        private final String docId;
+        private final String shopId;
+        private final String shopName;
+        private final DocumentSnapshot document;
+
+        MenuEntry(String docId, String shopId, String shopName, DocumentSnapshot document) {
+            this.docId = docId;
+            this.shopId = shopId;
+            this.shopName = shopName;
+            this.document = document;
+        }
+
+        public String getDocId() { return docId; }
+        public String getShopId() { return shopId; }
+        public String getShopName() { return shopName; }
+        public DocumentSnapshot getDocument() { return document; }
+        public String getName() { return document.getString("name"); }
+        public Double getPrice() { return document.getDouble("price"); }
+        public String getImageUrl() { return document.getString("imageUrl"); }
+        public String getImageUrl(int targetPx) { return ImageRenditions.pick(document, targetPx); }
+    }
+
+    private MenuItemRepository() {
+        db = FirebaseFirestore.getInstance();
+    }
+
+    public static synchronized MenuItemRepository getInstance() {
+        if (instance == null) {
+            instance = new MenuItemRepository();
+        }
+        return instance;
+    }
+
+    public void getMenuItem(@NonNull String docId, @Nullable String shopIdHint, @NonNull OnMenuItemLoaded callback) {
+        if (isReady()) {
+            callback.onLoaded(buildEntry(docId));
+            return;
+        }
+
+        if (indexFailed) {
+            fetchDirect(docId, shopIdHint, callback);
+            return;
+        }
+
+        addPending(() -> {
+            if (isReady()) {
+                callback.onLoaded(buildEntry(docId));
+            } else {
+                fetchDirect(docId, shopIdHint, callback);
+            }
+        });
+    }
+
+    // Keys are menu docIds, values are the owning shopId if the caller already knows it (may be null)
+    public void getMenuItems(@NonNull Map<String, String> shopIdHints, @NonNull OnMenuItemsLoaded callback) {
+        if (isReady()) {
+            callback.onLoaded(collectEntries(shopIdHints.keySet()));
+            return;
+        }
+
+        if (indexFailed) {
+            fetchDirectAll(shopIdHints, callback);
+            return;
+        }
+
+        addPending(() -> {
+            if (isReady()) {
+                callback.onLoaded(collectEntries(shopIdHints.keySet()));
+            } else {
+                fetchDirectAll(shopIdHints, callback);
+            }
+        });
+    }
+
+    // Cheap synchronous peek for binders that can render without waiting (returns null until indexed)
+    @Nullable
+    public MenuEntry peek(@NonNull String docId) {
+        return isReady() ? buildEntry(docId) : null;
+    }
+
+    @Nullable
+    public String getShopName(@NonNull String shopId) {
+        return shopNames.get(shopId);
+    }
+
+    private boolean isReady() {
+        return menuReady && shopsReady;
+    }
+
+    // Runs lookup once the index is ready or has failed, or after PENDING_TIMEOUT_MS, whichever is first
+    private void addPending(Runnable lookup) {
+        pendingLookups.add(lookup);
+        handler.postDelayed(() -> {
+            if (pendingLookups.remove(lookup)) {
+                lookup.run();
+            }
+        }, PENDING_TIMEOUT_MS);
+        startIndex();
+    }
+
+    private void startIndex() {
+        if (menuListener != null || indexFailed) {
+            return;
+        }
+
+        // Metadata changes included so the server confirming a cached snapshot is heard even
+        // when no document changed
+        shopListener = db.collection("shops")
+                .addSnapshotListener(MetadataChanges.INCLUDE, (snapshots, error) -> {
+                    if (error != null) {
+                        Log.e(TAG, "Shop listener failed", error);
+                        onIndexFailed();
+                        return;
+                    }
+                    if (snapshots == null) return;
+
+                    for (DocumentChange change : snapshots.getDocumentChanges()) {
+                        DocumentSnapshot shop = change.getDocument();
+                        if (change.getType() == DocumentChange.Type.REMOVED) {
+                            shopNames.remove(shop.getId());
+                        } else {
+                            shopNames.put(shop.getId(), shop.getString("name"));
+                        }
+                    }
+                    if (!snapshots.getMetadata().isFromCache()) {
+                        shopsReady = true;
+                        onServerSnapshot();
+                    }
+                });
+
+        menuListener = db.collectionGroup("menu")
+                .addSnapshotListener(MetadataChanges.INCLUDE, (snapshots, error) -> {
+                    if (error != null) {
+                        Log.e(TAG, "Menu index listener failed", error);
+                        onIndexFailed();
+                        return;
+                    }
+                    if (snapshots == null) return;
+
+                    for (DocumentChange change : snapshots.getDocumentChanges()) {
+                        DocumentSnapshot item = change.getDocument();
+                        if (change.getType() == DocumentChange.Type.REMOVED) {
+                            menuIndex.remove(item.getId());
+                        } else {
+                            menuIndex.put(item.getId(), item);
+                        }
+                    }
+                    if (!snapshots.getMetadata().isFromCache()) {
+                        menuReady = true;
+                        Log.d(TAG, "Menu index size: " + menuIndex.size());
+                        onServerSnapshot();
+                    }
+                });
+    }
+
+    private void onServerSnapshot() {
+        if (isReady()) {
+            retryDelayMs = RETRY_INITIAL_MS;
+        }
+        flushPending();
+    }
+
+    private void onIndexFailed() {
+        if (indexFailed) return;
+        indexFailed = true;
+        menuReady = false;
+        shopsReady = false;
+        if (menuListener != null) {
+            menuListener.remove();
+            menuListener = null;
+        }
+        if (shopListener != null) {
+            shopListener.remove();
+            shopListener = null;
+        }
+        flushPending();
+
+        Log.w(TAG, "Retrying menu index in " + retryDelayMs + " ms");
+        handler.postDelayed(() -> {
+            indexFailed = false;
+            startIndex();
+        }, retryDelayMs);
+        retryDelayMs = Math.min(retryDelayMs * 2, RETRY_MAX_MS);
+    }
+
+    private void flushPending() {
+        if (!isReady() && !indexFailed) return;
+
+        List<Runnable> lookups = new ArrayList<>(pendingLookups);
+        pendingLookups.clear();
+        for (Runnable lookup : lookups) {
+            lookup.run();
+        }
+    }
+
+    // Fallback when the collection-group listener is unavailable: one direct read if the shop is known
+    private void fetchDirect(String docId, @Nullable String shopIdHint, OnMenuItemLoaded callback) {
+        if (shopIdHint == null) {
+            fetchFromAnyShop(docId, callback);
+            return;
+        }
+
+        db.collection("shops").document(shopIdHint)
+                .collection("menu").document(docId)
+                .get()
+                .addOnSuccessListener(document -> callback.onLoaded(document.exists()
+                        ? new MenuEntry(docId, shopIdHint, shopNames.get(shopIdHint), document)
+                        : null))
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Direct menu item read failed", e);
+                    callback.onLoaded(null);
+                });
+    }
+
+    // Without a shop hint, tries the item under every shop; only reached while the index is down
+    private void fetchFromAnyShop(String docId, OnMenuItemLoaded callback) {
+        db.collection("shops").get()
+                .addOnSuccessListener(shops -> {
+                    List<DocumentSnapshot> shopDocs = shops.getDocuments();
+                    List<Task<DocumentSnapshot>> reads = new ArrayList<>();
+                    for (DocumentSnapshot shop : shopDocs) {
+                        shopNames.put(shop.getId(), shop.getString("name"));
+                        reads.add(shop.getReference().collection("menu").document(docId).get());
+                    }
+                    Tasks.whenAllComplete(reads).addOnCompleteListener(done -> {
+                        for (int i = 0; i < reads.size(); i++) {
+                            Task<DocumentSnapshot> read = reads.get(i);
+                            if (read.isSuccessful() && read.getResult().exists()) {
+                                String shopId = shopDocs.get(i).getId();
+                                callback.onLoaded(new MenuEntry(docId, shopId, shopNames.get(shopId), read.getResult()));
+                                return;
+                            }
+                        }
+                        callback.onLoaded(null);
+                    });
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Shop list read failed", e);
+                    callback.onLoaded(null);
+                });
+    }
+
+    private void fetchDirectAll(Map<String, String> shopIdHints, OnMenuItemsLoaded callback) {
+        Map<String, MenuEntry> entries = new HashMap<>();
+        if (shopIdHints.isEmpty()) {
+            callback.onLoaded(entries);
+            return;
+        }
+
+        int[] remaining = {shopIdHints.size()};
+        for (Map.Entry<String, String> hint : shopIdHints.entrySet()) {
+            fetchDirect(hint.getKey(), hint.getValue(), entry -> {
+                if (entry != null) {
+                    entries.put(entry.getDocId(), entry);
+                }
+                remaining[0]--;
+                if (remaining[0] == 0) {
+                    callback.onLoaded(entries);
+                }
+            });
+        }
+    }
+
+    private Map<String, MenuEntry> collectEntries(Collection<String> docIds) {
+        Map<String, MenuEntry> entries = new HashMap<>();
+        for (String docId : docIds) {
+            MenuEntry entry = buildEntry(docId);
+            if (entry != null) {
+                entries.put(docId, entry);
+            }
+        }
+        return entries;
+    }
+
+    @Nullable
+    private MenuEntry buildEntry(String docId) {
+        DocumentSnapshot document = menuIndex.get(docId);
+        if (document == null) return null;
+
+        // shops/{shopId}/menu/{docId}
+        DocumentReference shopRef = document.getReference().getParent().getParent();
+        String shopId = shopRef != null ? shopRef.getId() : null;
+        return new MenuEntry(docId, shopId, shopId != null ? shopNames.get(shopId) : null, document);
+    }
+}
@@ -0,0 +1,126 @@
+package com.lu.coffeecompanion.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Keeps the current MenuSearchIndex for the Search tab. refresh() runs the catalog syncs for
+// coffees and every shop's menu (one delta query each once the first sync is done), then rebuilds
+// the index on a background thread and swaps it in.
+public class MenuSearch {
+
+    private static final String TAG = "MenuSearch";
+
+    // Watermark key for the collection-group sync of every shop's menu
+    private static final String MENU_GROUP_KEY = "group/menu";
+    // Result rows show a 100dp square image (item_coffee_vertical_simple)
+    private static final int RESULT_IMAGE_DP = 100;
+
+    public interface OnReady {
+        void onReady(@NonNull MenuSearchIndex index);
+    }
+
+    private static MenuSearch instance;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private volatile MenuSearchIndex index = MenuSearchIndex.EMPTY;
+
+    private MenuSearch() {}
+
+    public static synchronized MenuSearch getInstance() {
+        if (instance == null) {
+            instance = new MenuSearch();
+        }
+        return instance;
+    }
+
+    @NonNull
+    public MenuSearchIndex current() {
+        return index;
+    }
+
+    public void refresh(@NonNull Context context, boolean force, @NonNull OnReady callback) {
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        int imagePx = ImageRenditions.dpToPx(context, RESULT_IMAGE_DP);
+
+        Task<QuerySnapshot> shopsTask = CatalogCache.getInstance(context)
+                .get(db.collection("shops").orderBy("order"), CatalogCache.SHOPS, "all", CatalogBundle.QUERY_SHOPS);
+        Task<List<DocumentSnapshot>> coffeesTask = CatalogSync.getInstance(context)
+                .sync(db.collection("coffees"), force);
+        Task<List<DocumentSnapshot>> menuTask = CatalogSync.getInstance(context)
+                .sync(db.collectionGroup("menu"), MENU_GROUP_KEY, force);
+
+        Tasks.whenAllComplete(shopsTask, coffeesTask, menuTask)
+                .continueWith(executor, done -> {
+                    long start = System.nanoTime();
+                    MenuSearchIndex built = MenuSearchIndex.build(entries(shopsTask, coffeesTask, menuTask, imagePx));
+                    Log.d(TAG, "Indexed " + built.size() + " items in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+                    return built;
+                })
+                .addOnSuccessListener(built -> {
+                    index = built;
+                    callback.onReady(built);
+                })
+                .addOnFailureListener(e -> Log.e(TAG, "Failed to build search index", e));
+    }
+
+    // Whatever synced is indexed; a failed source just leaves its items out until the next refresh
+    private static List<MenuSearchIndex.Entry> entries(Task<QuerySnapshot> shopsTask,
+                                                       Task<List<DocumentSnapshot>> coffeesTask,
+                                                       Task<List<DocumentSnapshot>> menuTask, int imagePx) {
+        Map<String, String> shopNames = new HashMap<>();
+        if (shopsTask.isSuccessful()) {
+            for (DocumentSnapshot shop : shopsTask.getResult().getDocuments()) {
+                shopNames.put(shop.getId(), shop.getString("name"));
+            }
+        }
+
+        List<MenuSearchIndex.Entry> entries = new ArrayList<>();
+        if (coffeesTask.isSuccessful()) {
+            for (DocumentSnapshot coffee : coffeesTask.getResult()) {
+                String name = coffee.getString("name");
+                if (name == null || name.isEmpty()) continue;
+                entries.add(new MenuSearchIndex.Entry(MenuSearchIndex.KIND_COFFEE, coffee.getId(), null, name,
+                        coffee.getString("description"), ImageRenditions.pick(coffee, imagePx), null));
+            }
+        }
+        if (menuTask.isSuccessful()) {
+            for (DocumentSnapshot item : menuTask.getResult()) {
+                String name = item.getString("name");
+                // shops/{shopId}/menu/{itemId}
+                DocumentReference shop = item.getReference().getParent().getParent();
+                if (name == null || name.isEmpty() || shop == null) continue;
+
+                String shopName = shopNames.get(shop.getId());
+                Double price = item.getDouble("price");
+                String description = price != null
+                        ? String.format(Locale.getDefault(), "₱%.2f", price) : null;
+                if (shopName != null) {
+                    description = description != null ? shopName + " · " + description : shopName;
+                }
+                String category = item.getString("category");
+                String keywords = shopName != null
+                        ? (category != null ? category + " " + shopName : shopName) : category;
+                entries.add(new MenuSearchIndex.Entry(MenuSearchIndex.KIND_MENU, item.getId(), shop.getId(), name,
+                        description, ImageRenditions.pick(item, imagePx), keywords));
+            }
+        }
+        return entries;
+    }
+}
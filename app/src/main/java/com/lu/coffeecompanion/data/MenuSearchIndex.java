@@ -0,0 +1,264 @@
+package com.lu.coffeecompanion.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+// In-memory search over menu items and coffees, built off the main thread from synced catalog
+// documents and queried on every keystroke. Two posting lists per entry: whole tokens in a sorted
+// map for exact and prefix matches, and padded trigrams for typo-tolerant matches ("capucino"
+// finds "Cappuccino"). Every query token has to match somewhere; exact beats prefix beats fuzzy.
+// Immutable once built; search() reuses scratch arrays and is synchronized for that.
+public class MenuSearchIndex {
+
+    public static final int KIND_COFFEE = 0;
+    public static final int KIND_MENU = 1;
+
+    private static final float EXACT_SCORE = 1.0f;
+    private static final float PREFIX_SCORE = 0.8f;
+    // Fuzzy matches score this times the share of the query token's trigrams found
+    private static final float FUZZY_WEIGHT = 0.6f;
+    private static final float MIN_FUZZY_SIMILARITY = 0.45f;
+    // Extra for entries whose name starts with the whole query
+    private static final float NAME_PREFIX_BONUS = 0.25f;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    public static final MenuSearchIndex EMPTY = build(Collections.emptyList());
+
+    public static final class Entry {
+        public final int kind;
+        public final String id;
+        // Owning shop for menu items, null for coffees
+        @Nullable public final String shopId;
+        public final String name;
+        @Nullable public final String description;
+        @Nullable public final String imageUrl;
+        // Extra searchable text that is not shown, e.g. the category
+        @Nullable final String keywords;
+
+        public Entry(int kind, @NonNull String id, @Nullable String shopId, @NonNull String name,
+                     @Nullable String description, @Nullable String imageUrl, @Nullable String keywords) {
+            this.kind = kind;
+            this.id = id;
+            this.shopId = shopId;
+            this.name = name;
+            this.description = description;
+            this.imageUrl = imageUrl;
+            this.keywords = keywords;
+        }
+    }
+
+    private final Entry[] entries;
+    private final String[] normalizedNames;
+    private final TreeMap<String, int[]> tokens;
+    private final Map<String, int[]> trigrams;
+
+    // Search scratch, sized to the entry count
+    private final float[] total;
+    private final float[] tokenScore;
+    private final int[] matchedTokens;
+    private final int[] gramHits;
+    private final int[] touched;
+
+    private MenuSearchIndex(Entry[] entries, String[] normalizedNames,
+                            TreeMap<String, int[]> tokens, Map<String, int[]> trigrams) {
+        this.entries = entries;
+        this.normalizedNames = normalizedNames;
+        this.tokens = tokens;
+        this.trigrams = trigrams;
+        int n = entries.length;
+        total = new float[n];
+        tokenScore = new float[n];
+        matchedTokens = new int[n];
+        gramHits = new int[n];
+        touched = new int[n];
+    }
+
+    public static MenuSearchIndex build(@NonNull List<Entry> source) {
+        Entry[] entries = source.toArray(new Entry[0]);
+        String[] names = new String[entries.length];
+        Map<String, IntList> tokenPostings = new HashMap<>();
+        Map<String, IntList> gramPostings = new HashMap<>();
+
+        for (int doc = 0; doc < entries.length; doc++) {
+            Entry entry = entries[doc];
+            names[doc] = normalize(entry.name);
+
+            Set<String> docTokens = new LinkedHashSet<>();
+            Collections.addAll(docTokens, tokenize(entry.name));
+            if (entry.keywords != null) {
+                Collections.addAll(docTokens, tokenize(entry.keywords));
+            }
+
+            Set<String> docGrams = new LinkedHashSet<>();
+            for (String token : docTokens) {
+                add(tokenPostings, token, doc);
+                addTrigrams(docGrams, " " + token + " ");
+            }
+            for (String gram : docGrams) {
+                add(gramPostings, gram, doc);
+            }
+        }
+
+        TreeMap<String, int[]> tokens = new TreeMap<>();
+        for (Map.Entry<String, IntList> posting : tokenPostings.entrySet()) {
+            tokens.put(posting.getKey(), posting.getValue().toArray());
+        }
+        Map<String, int[]> grams = new HashMap<>(gramPostings.size() * 2);
+        for (Map.Entry<String, IntList> posting : gramPostings.entrySet()) {
+            grams.put(posting.getKey(), posting.getValue().toArray());
+        }
+        return new MenuSearchIndex(entries, names, tokens, grams);
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    // Best matches first, at most limit of them; empty for a blank query
+    @NonNull
+    public synchronized List<Entry> search(@NonNull String query, int limit) {
+        String[] queryTokens = tokenize(query);
+        if (queryTokens.length == 0 || entries.length == 0) {
+            return Collections.emptyList();
+        }
+
+        int n = entries.length;
+        Arrays.fill(total, 0f);
+        Arrays.fill(matchedTokens, 0);
+
+        for (String token : queryTokens) {
+            Arrays.fill(tokenScore, 0f);
+
+            // Exact and prefix: every indexed token in [token, token + \uffff)
+            SortedMap<String, int[]> range = tokens.subMap(token, token + Character.MAX_VALUE);
+            for (Map.Entry<String, int[]> match : range.entrySet()) {
+                float score = match.getKey().length() == token.length() ? EXACT_SCORE : PREFIX_SCORE;
+                for (int doc : match.getValue()) {
+                    if (score > tokenScore[doc]) tokenScore[doc] = score;
+                }
+            }
+
+            // Fuzzy: shared trigrams of the token as typed so far (no closing pad, it may be partial)
+            if (token.length() >= 3) {
+                Set<String> queryGrams = new LinkedHashSet<>();
+                addTrigrams(queryGrams, " " + token);
+                int touchedCount = 0;
+                for (String gram : queryGrams) {
+                    int[] postings = trigrams.get(gram);
+                    if (postings == null) continue;
+                    for (int doc : postings) {
+                        if (gramHits[doc]++ == 0) touched[touchedCount++] = doc;
+                    }
+                }
+                for (int i = 0; i < touchedCount; i++) {
+                    int doc = touched[i];
+                    float similarity = (float) gramHits[doc] / queryGrams.size();
+                    gramHits[doc] = 0;
+                    if (similarity >= MIN_FUZZY_SIMILARITY) {
+                        float score = FUZZY_WEIGHT * similarity;
+                        if (score > tokenScore[doc]) tokenScore[doc] = score;
+                    }
+                }
+            }
+
+            for (int doc = 0; doc < n; doc++) {
+                if (tokenScore[doc] > 0f) {
+                    total[doc] += tokenScore[doc];
+                    matchedTokens[doc]++;
+                }
+            }
+        }
+
+        // Keep only the best limit hits, in order: short prefixes like "c" match thousands of
+        // entries and sorting them all would blow the keystroke budget
+        String whole = normalize(query);
+        int[] best = new int[Math.max(0, limit)];
+        int bestCount = 0;
+        for (int doc = 0; doc < n && limit > 0; doc++) {
+            if (matchedTokens[doc] != queryTokens.length) continue;
+            if (normalizedNames[doc].startsWith(whole)) total[doc] += NAME_PREFIX_BONUS;
+
+            if (bestCount == limit && !ranksBefore(doc, best[limit - 1])) continue;
+            int slot = bestCount < limit ? bestCount++ : limit - 1;
+            while (slot > 0 && ranksBefore(doc, best[slot - 1])) {
+                best[slot] = best[slot - 1];
+                slot--;
+            }
+            best[slot] = doc;
+        }
+
+        List<Entry> results = new ArrayList<>(bestCount);
+        for (int i = 0; i < bestCount; i++) {
+            results.add(entries[best[i]]);
+        }
+        return results;
+    }
+
+    // Higher score first, then the shorter (closer) name, then alphabetical
+    private boolean ranksBefore(int a, int b) {
+        int byScore = Float.compare(total[b], total[a]);
+        if (byScore != 0) return byScore < 0;
+        int byLength = Integer.compare(normalizedNames[a].length(), normalizedNames[b].length());
+        return byLength != 0 ? byLength < 0 : normalizedNames[a].compareTo(normalizedNames[b]) < 0;
+    }
+
+    // Lowercase, accents stripped ("Café" -> "cafe"), anything but letters and digits to spaces
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        String unaccented = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        return SEPARATORS.matcher(unaccented).replaceAll(" ").trim();
+    }
+
+    static String[] tokenize(String text) {
+        String normalized = normalize(text);
+        return normalized.isEmpty() ? new String[0] : normalized.split(" ");
+    }
+
+    private static void addTrigrams(Set<String> out, String padded) {
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            out.add(padded.substring(i, i + 3));
+        }
+    }
+
+    private static void add(Map<String, IntList> postings, String key, int doc) {
+        IntList list = postings.get(key);
+        if (list == null) {
+            list = new IntList();
+            postings.put(key, list);
+        }
+        list.add(doc);
+    }
+
+    // Growable int[] so postings are not boxed
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
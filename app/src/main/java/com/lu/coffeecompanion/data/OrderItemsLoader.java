@@ -0,0 +1,163 @@
+package com.lu.coffeecompanion.data;
+
+import android.util.Log;
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Coalesces orders/{id}/items requests from rows bound within one frame into
+// collectionGroup("items") whereIn("orderId", ...) queries, then fans results back out per order.
+public class OrderItemsLoader {
+
+    private static final String TAG = "OrderItemsLoader";
+
+    // Firestore caps whereIn at 30 values per query
+    static final int WHERE_IN_LIMIT = 30;
+
+    private static OrderItemsLoader instance;
+
+    private final FirebaseFirestore db;
+    private final Map<String, List<DocumentSnapshot>> cache = new HashMap<>();
+    private final Map<String, List<OnItemsLoaded>> queued = new LinkedHashMap<>();
+    private final Map<String, List<OnItemsLoaded>> inFlight = new HashMap<>();
+    private boolean flushScheduled = false;
+    private int queryCount = 0;
+
+    public interface OnItemsLoaded {
+        void onLoaded(@NonNull String orderId, @NonNull List<DocumentSnapshot> items);
+    }
+
+    @VisibleForTesting
+    OrderItemsLoader(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    public static synchronized OrderItemsLoader getInstance() {
+        if (instance == null) {
+            instance = new OrderItemsLoader(FirebaseFirestore.getInstance());
+        }
+        return instance;
+    }
+
+    // Must be called on the main thread (row binding)
+    public void load(@NonNull String orderId, @NonNull OnItemsLoaded callback) {
+        List<DocumentSnapshot> cached = cache.get(orderId);
+        if (cached != null) {
+            callback.onLoaded(orderId, cached);
+            return;
+        }
+
+        List<OnItemsLoaded> pending = inFlight.get(orderId);
+        if (pending == null) {
+            pending = queued.get(orderId);
+        }
+        if (pending == null) {
+            pending = new ArrayList<>();
+            queued.put(orderId, pending);
+        }
+        pending.add(callback);
+
+        if (!flushScheduled) {
+            flushScheduled = true;
+            Choreographer.getInstance().postFrameCallback(frameTimeNanos -> flush());
+        }
+    }
+
+    public void invalidate(@NonNull String orderId) {
+        cache.remove(orderId);
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    @VisibleForTesting
+    int getQueryCount() {
+        return queryCount;
+    }
+
+    private void flush() {
+        flushScheduled = false;
+        if (queued.isEmpty()) return;
+
+        List<String> orderIds = new ArrayList<>(queued.keySet());
+        inFlight.putAll(queued);
+        queued.clear();
+
+        for (int start = 0; start < orderIds.size(); start += WHERE_IN_LIMIT) {
+            List<String> chunk = orderIds.subList(start, Math.min(start + WHERE_IN_LIMIT, orderIds.size()));
+            fetchChunk(new ArrayList<>(chunk));
+        }
+    }
+
+    private void fetchChunk(List<String> orderIds) {
+        queryCount++;
+        db.collectionGroup("items")
+                .whereIn("orderId", orderIds)
+                .get()
+                .addOnSuccessListener(snapshot -> {
+                    Map<String, List<DocumentSnapshot>> grouped = new HashMap<>();
+                    for (DocumentSnapshot item : snapshot.getDocuments()) {
+                        String orderId = item.getString("orderId");
+                        List<DocumentSnapshot> items = grouped.get(orderId);
+                        if (items == null) {
+                            items = new ArrayList<>();
+                            grouped.put(orderId, items);
+                        }
+                        items.add(item);
+                    }
+
+                    for (String orderId : orderIds) {
+                        List<DocumentSnapshot> items = grouped.get(orderId);
+                        if (items != null) {
+                            deliver(orderId, items, true);
+                        } else {
+                            // Older line items were written without an orderId field
+                            fetchLegacy(orderId);
+                        }
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Batched items query failed, falling back per order", e);
+                    for (String orderId : orderIds) {
+                        fetchLegacy(orderId);
+                    }
+                });
+    }
+
+    private void fetchLegacy(String orderId) {
+        queryCount++;
+        db.collection("orders").document(orderId)
+                .collection("items")
+                .get()
+                .addOnSuccessListener(snapshot -> deliver(orderId, snapshot.getDocuments(), true))
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to load items for order " + orderId, e);
+                    deliver(orderId, Collections.emptyList(), false);
+                });
+    }
+
+    private void deliver(String orderId, List<DocumentSnapshot> items, boolean cacheResult) {
+        List<DocumentSnapshot> result = Collections.unmodifiableList(new ArrayList<>(items));
+        if (cacheResult) {
+            cache.put(orderId, result);
+        }
+
+        List<OnItemsLoaded> callbacks = inFlight.remove(orderId);
+        if (callbacks == null) return;
+        for (OnItemsLoaded callback : callbacks) {
+            callback.onLoaded(orderId, result);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.lu.coffeecompanion.data;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// What was bought, frozen onto the order document as a "lines" array at checkout: menu item,
+// name, unit price, shop name and thumbnail per line. Order screens render from the order
+// document alone, and a receipt keeps the prices that were paid. orders/{id}/items is still
+// written for the admin and review queries that read it.
+public class OrderLines {
+
+    private static final String TAG = "OrderLines";
+
+    public static final String FIELD_LINES = "lines";
+
+    // rollups/order_lines holds the backfill cursor, then marks that older orders are done
+    private static final String META_COLLECTION = "rollups";
+    private static final String META_DOC = "order_lines";
+    // Orders examined per dashboard open
+    private static final int PAGE_SIZE = 50;
+    // Long edge of the thumb rendition
+    private static final int THUMB_PX = 160;
+
+    public interface OnComplete {
+        void onComplete(boolean success);
+    }
+
+    public static class Line {
+        private final String docId;
+        private final String shopId;
+        private final String name;
+        private final double unitPrice;
+        private final String shopName;
+        private final String imageUrl;
+        private final int quantity;
+
+        public Line(@Nullable String docId, @Nullable String shopId, @NonNull String name, double unitPrice,
+                    @Nullable String shopName, @Nullable String imageUrl, int quantity) {
+            this.docId = docId;
+            this.shopId = shopId;
+            this.name = name;
+            this.unitPrice = unitPrice;
+            this.shopName = shopName;
+            this.imageUrl = imageUrl;
+            this.quantity = quantity;
+        }
+
+        public String getDocId() { return docId; }
+        public String getShopId() { return shopId; }
+        public String getName() { return name; }
+        public double getUnitPrice() { return unitPrice; }
+        @Nullable public String getShopName() { return shopName; }
+        @Nullable public String getImageUrl() { return imageUrl; }
+        public int getQuantity() { return quantity; }
+        public double getSubtotal() { return unitPrice * quantity; }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("docId", docId);
+            map.put("shopId", shopId);
+            map.put("name", name);
+            map.put("unitPrice", unitPrice);
+            map.put("shopName", shopName);
+            map.put("imageUrl", imageUrl);
+            map.put("quantity", quantity);
+            return map;
+        }
+
+        @Nullable
+        static Line fromMap(Map<?, ?> map) {
+            Object name = map.get("name");
+            Object unitPrice = map.get("unitPrice");
+            if (!(name instanceof String) || !(unitPrice instanceof Number)) return null;
+            Object quantity = map.get("quantity");
+            return new Line(stringOrNull(map.get("docId")), stringOrNull(map.get("shopId")), (String) name,
+                    ((Number) unitPrice).doubleValue(), stringOrNull(map.get("shopName")),
+                    stringOrNull(map.get("imageUrl")), quantity instanceof Number ? ((Number) quantity).intValue() : 1);
+        }
+    }
+
+    private OrderLines() {}
+
+    public static List<Map<String, Object>> toMaps(@NonNull List<Line> lines) {
+        List<Map<String, Object>> maps = new ArrayList<>(lines.size());
+        for (Line line : lines) {
+            maps.add(line.toMap());
+        }
+        return maps;
+    }
+
+    // The order's lines, or null when the order has no complete set: placed before lines were
+    // written, or saved with an entry that cannot be read. Callers then fall back to the items.
+    @Nullable
+    public static List<Line> of(@NonNull DocumentSnapshot order) {
+        Object raw = order.get(FIELD_LINES);
+        if (!(raw instanceof List) || ((List<?>) raw).isEmpty()) return null;
+        List<Line> lines = new ArrayList<>();
+        for (Object entry : (List<?>) raw) {
+            Line line = entry instanceof Map ? Line.fromMap((Map<?, ?>) entry) : null;
+            if (line == null) return null;
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    // Gives older orders their lines, PAGE_SIZE orders per call so a dashboard open costs a bounded
+    // number of reads; rollups/order_lines keeps the cursor between calls. Only the price saved on
+    // each line item counts as what was paid: an order with any line item lacking one is left
+    // without lines and stays on the item lookup path.
+    public static void backfillIfNeeded(@NonNull FirebaseFirestore db, @NonNull OnComplete callback) {
+        DocumentReference metaRef = db.collection(META_COLLECTION).document(META_DOC);
+        metaRef.get()
+                .addOnSuccessListener(meta -> {
+                    if (meta.exists() && meta.getTimestamp("backfilledAt") != null) {
+                        callback.onComplete(true);
+                        return;
+                    }
+                    backfillPage(db, metaRef, meta.getString("cursor"), callback);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to read order lines meta", e);
+                    callback.onComplete(false);
+                });
+    }
+
+    private static void backfillPage(FirebaseFirestore db, DocumentReference metaRef, @Nullable String cursor,
+                                     OnComplete callback) {
+        Query page = db.collection("orders").orderBy(FieldPath.documentId()).limit(PAGE_SIZE);
+        if (cursor != null) {
+            page = page.startAfter(cursor);
+        }
+        page.get()
+                .onSuccessTask(orders -> {
+                    List<DocumentSnapshot> missing = new ArrayList<>();
+                    List<Task<QuerySnapshot>> reads = new ArrayList<>();
+                    for (DocumentSnapshot order : orders.getDocuments()) {
+                        if (order.get(FIELD_LINES) != null) continue;
+                        missing.add(order);
+                        reads.add(order.getReference().collection("items").get());
+                    }
+                    return Tasks.<QuerySnapshot>whenAllSuccess(reads).continueWith(done -> {
+                        Map<DocumentSnapshot, List<DocumentSnapshot>> itemsByOrder = new HashMap<>();
+                        for (int i = 0; i < missing.size(); i++) {
+                            itemsByOrder.put(missing.get(i), done.getResult().get(i).getDocuments());
+                        }
+                        return new Page(orders.getDocuments(), itemsByOrder);
+                    });
+                })
+                .addOnSuccessListener(result -> {
+                    Map<String, String> shopIdHints = new HashMap<>();
+                    for (List<DocumentSnapshot> items : result.itemsByOrder.values()) {
+                        for (DocumentSnapshot item : items) {
+                            String docId = item.getString("docId");
+                            if (docId != null) shopIdHints.put(docId, item.getString("shopId"));
+                        }
+                    }
+                    MenuItemRepository.getInstance().getMenuItems(shopIdHints,
+                            entries -> write(db, metaRef, result, entries, callback));
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Order lines backfill read failed", e);
+                    callback.onComplete(false);
+                });
+    }
+
+    private static class Page {
+        final List<DocumentSnapshot> orders;
+        final Map<DocumentSnapshot, List<DocumentSnapshot>> itemsByOrder;
+
+        Page(List<DocumentSnapshot> orders, Map<DocumentSnapshot, List<DocumentSnapshot>> itemsByOrder) {
+            this.orders = orders;
+            this.itemsByOrder = itemsByOrder;
+        }
+    }
+
+    // The order's lines from its saved line items, or null if any item lacks the price it was sold at.
+    // The menu supplies only display details (name if unsaved, shop name, thumbnail), never the price.
+    @Nullable
+    private static List<Line> linesFromItems(List<DocumentSnapshot> items,
+                                             Map<String, MenuItemRepository.MenuEntry> entries) {
+        if (items.isEmpty()) return null;
+        List<Line> lines = new ArrayList<>();
+        for (DocumentSnapshot item : items) {
+            Double price = item.getDouble("itemPrice");
+            if (price == null) return null;
+
+            String docId = item.getString("docId");
+            MenuItemRepository.MenuEntry entry = docId != null ? entries.get(docId) : null;
+            String name = item.getString("itemName");
+            if (name == null && entry != null) name = entry.getName();
+            if (name == null) return null;
+
+            Long quantity = item.getLong("quantity");
+            lines.add(new Line(docId, item.getString("shopId"), name, price,
+                    entry != null ? entry.getShopName() : null,
+                    entry != null ? entry.getImageUrl(THUMB_PX) : item.getString("imageUrl"),
+                    quantity != null ? quantity.intValue() : 1));
+        }
+        return lines;
+    }
+
+    private static void write(FirebaseFirestore db, DocumentReference metaRef, Page page,
+                              Map<String, MenuItemRepository.MenuEntry> entries, OnComplete callback) {
+        // A page is at most PAGE_SIZE orders plus the meta doc, well inside one batch
+        WriteBatch batch = db.batch();
+        int written = 0;
+        for (Map.Entry<DocumentSnapshot, List<DocumentSnapshot>> order : page.itemsByOrder.entrySet()) {
+            List<Line> lines = linesFromItems(order.getValue(), entries);
+            if (lines == null) continue;
+            batch.update(order.getKey().getReference(), FIELD_LINES, toMaps(lines));
+            written++;
+        }
+
+        Map<String, Object> meta = new HashMap<>();
+        boolean lastPage = page.orders.size() < PAGE_SIZE;
+        if (lastPage) {
+            meta.put("backfilledAt", FieldValue.serverTimestamp());
+        } else {
+            meta.put("cursor", page.orders.get(page.orders.size() - 1).getId());
+        }
+        batch.set(metaRef, meta, SetOptions.merge());
+
+        int writtenOrders = written;
+        batch.commit()
+                .addOnSuccessListener(unused -> {
+                    Log.d(TAG, "Backfilled lines for " + writtenOrders + " of " + page.itemsByOrder.size()
+                            + " orders" + (lastPage ? "; done" : "; more next time"));
+                    callback.onComplete(true);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Order lines backfill write failed", e);
+                    callback.onComplete(false);
+                });
+    }
+
+    @Nullable
+    private static String stringOrNull(Object value) {
+        return value instanceof String ? (String) value : null;
+    }
+}
@@ -0,0 +1,178 @@
+package com.lu.coffeecompanion.data;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Cursor-paged order history for one user, newest first by orderTimestamp.
+// The first page is the newest pageSize orders of OrderStatusHub's live window, shared with the
+// other order screens; older pages are one-shot reads of pageSize continued with startAfter(). An order that leaves the
+// window is read once more: one that slid past a newer order stays, one that was deleted goes.
+public class OrderPageSource {
+
+    private static final String TAG = "OrderPageSource";
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    public interface Listener {
+        void onOrdersChanged(@NonNull List<DocumentSnapshot> orders, boolean hasMore);
+        void onError(@NonNull Exception e);
+    }
+
+    private final FirebaseFirestore db;
+    private final String userId;
+    private final Query baseQuery;
+    private final int pageSize;
+    private final Listener listener;
+    private final Map<String, DocumentSnapshot> loaded = new HashMap<>();
+    // Ids in the hub's last window, to see which ones leave it
+    private final Set<String> windowIds = new HashSet<>();
+
+    private DocumentSnapshot cursor;
+    private boolean loadingMore = false;
+    private boolean endReached = false;
+    // Bumped by start() so re-checks from before a restart are dropped
+    private int generation = 0;
+
+    private final OrderStatusHub.ListObserver firstPage = new OrderStatusHub.ListObserver() {
+        @Override
+        public void onOrdersChanged(@NonNull List<DocumentSnapshot> orders, boolean windowFull) {
+            // The shared window may be larger than a page; orders past the page wait for loadMore
+            List<DocumentSnapshot> page = orders.size() > pageSize ? orders.subList(0, pageSize) : orders;
+            boolean more = windowFull || orders.size() > pageSize;
+
+            Set<String> current = new HashSet<>();
+            for (int i = 0; i < orders.size(); i++) {
+                DocumentSnapshot order = orders.get(i);
+                // Past the page, only refresh orders an earlier page already showed
+                if (i < page.size() || loaded.containsKey(order.getId())) {
+                    loaded.put(order.getId(), order);
+                }
+                current.add(order.getId());
+            }
+            for (String orderId : windowIds) {
+                if (!current.contains(orderId)) recheck(orderId);
+            }
+            windowIds.clear();
+            windowIds.addAll(current);
+
+            if (cursor == null) {
+                if (!page.isEmpty()) {
+                    cursor = page.get(page.size() - 1);
+                }
+                endReached = !more;
+            }
+
+            publish();
+        }
+
+        @Override
+        public void onError(@NonNull Exception e) {
+            listener.onError(e);
+        }
+    };
+
+    // pageSize sizes every page, the first included: the hub's window is grown to fit it if needed
+    public OrderPageSource(@NonNull FirebaseFirestore db, @NonNull String userId, int pageSize,
+                           @NonNull Listener listener) {
+        this.db = db;
+        this.userId = userId;
+        this.baseQuery = db.collection("orders")
+                .whereEqualTo("userId", userId)
+                .orderBy("orderTimestamp", Query.Direction.DESCENDING);
+        this.pageSize = pageSize > 0 ? pageSize : DEFAULT_PAGE_SIZE;
+        this.listener = listener;
+    }
+
+    public void start() {
+        stop();
+        loaded.clear();
+        windowIds.clear();
+        generation++;
+        cursor = null;
+        endReached = false;
+        loadingMore = false;
+
+        OrderStatusHub.getInstance().ensureWindow(pageSize);
+        OrderStatusHub.getInstance().addListObserver(userId, firstPage);
+    }
+
+    public void loadMore() {
+        if (loadingMore || endReached || cursor == null) return;
+        loadingMore = true;
+
+        baseQuery.startAfter(cursor)
+                .limit(pageSize)
+                .get()
+                .addOnSuccessListener(snapshot -> {
+                    loadingMore = false;
+                    List<DocumentSnapshot> docs = snapshot.getDocuments();
+                    for (DocumentSnapshot doc : docs) {
+                        if (!loaded.containsKey(doc.getId())) {
+                            loaded.put(doc.getId(), doc);
+                        }
+                    }
+                    if (!docs.isEmpty()) {
+                        cursor = docs.get(docs.size() - 1);
+                    }
+                    endReached = docs.size() < pageSize;
+                    Log.d(TAG, "Loaded page of " + docs.size() + " orders");
+                    publish();
+                })
+                .addOnFailureListener(e -> {
+                    loadingMore = false;
+                    Log.e(TAG, "Failed to load next page", e);
+                    listener.onError(e);
+                });
+    }
+
+    public boolean hasMore() {
+        return !endReached;
+    }
+
+    public void stop() {
+        OrderStatusHub.getInstance().removeListObserver(firstPage);
+    }
+
+    // The window cannot tell a deleted order from one pushed out by a newer order
+    private void recheck(String orderId) {
+        int startedIn = generation;
+        db.collection("orders").document(orderId)
+                .get()
+                .addOnSuccessListener(order -> {
+                    if (startedIn != generation || windowIds.contains(orderId)) return;
+                    if (order.exists()) {
+                        loaded.put(orderId, order);
+                    } else {
+                        loaded.remove(orderId);
+                    }
+                    publish();
+                })
+                .addOnFailureListener(e -> Log.w(TAG, "Failed to recheck order " + orderId, e));
+    }
+
+    private void publish() {
+        List<DocumentSnapshot> ordered = new ArrayList<>(loaded.values());
+        Collections.sort(ordered, (a, b) -> Long.compare(sortKey(b), sortKey(a)));
+        listener.onOrdersChanged(ordered, !endReached);
+    }
+
+    static long sortKey(DocumentSnapshot doc) {
+        // Freshly placed orders still carry a pending server timestamp locally
+        Timestamp ts = doc.getTimestamp("orderTimestamp", DocumentSnapshot.ServerTimestampBehavior.ESTIMATE);
+        return ts != null ? ts.toDate().getTime() : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,285 @@
+package com.lu.coffeecompanion.data;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// The signed-in user's recent orders, shared by the account tab, order history and order details.
+// One listener on the newest window orders stays attached for the session and applies docChanges
+// to a local copy, so moving between those screens attaches nothing and reads nothing, and only
+// the screens watching a changed order hear about it. Because the listener outlives the screens,
+// Firestore resumes it after a dropped connection instead of sending the set again. An order
+// older than the window gets its own document listener while a screen is watching it.
+// Without the userId + orderTimestamp index the hub falls back to all of the user's orders, sorted
+// here; that costs one user's history, never other customers' orders.
+public class OrderStatusHub {
+
+    private static final String TAG = "OrderStatusHub";
+
+    // Covers the account tab's cards and the first page of order history; ensureWindow grows it
+    public static final int DEFAULT_WINDOW = OrderPageSource.DEFAULT_PAGE_SIZE;
+
+    public interface ListObserver {
+        // windowFull means older orders may exist past the last one given
+        void onOrdersChanged(@NonNull List<DocumentSnapshot> orders, boolean windowFull);
+        void onError(@NonNull Exception e);
+    }
+
+    public interface OrderObserver {
+        // order is null when it does not exist
+        void onOrderChanged(@Nullable DocumentSnapshot order);
+        void onError(@NonNull Exception e);
+    }
+
+    private static OrderStatusHub instance;
+
+    private final FirebaseFirestore db;
+    private final Map<String, DocumentSnapshot> recent = new HashMap<>();
+    private final List<ListObserver> listObservers = new ArrayList<>();
+    private final Map<String, List<OrderObserver>> orderObservers = new HashMap<>();
+    // Watched orders outside the window, each on its own document listener
+    private final Map<String, ListenerRegistration> outside = new HashMap<>();
+
+    private String userId;
+    private int window = DEFAULT_WINDOW;
+    private ListenerRegistration listener;
+    private List<DocumentSnapshot> ordered = Collections.emptyList();
+    private boolean loaded = false;
+    private boolean windowFull = false;
+    // Set once the ordered query is refused for a missing index
+    private boolean unordered = false;
+
+    private OrderStatusHub() {
+        db = FirebaseFirestore.getInstance();
+        // Drop the listener and the copy on sign-out so the next account starts clean
+        FirebaseAuth.getInstance().addAuthStateListener(auth -> {
+            if (auth.getCurrentUser() == null) {
+                detach();
+            }
+        });
+    }
+
+    public static synchronized OrderStatusHub getInstance() {
+        if (instance == null) {
+            instance = new OrderStatusHub();
+        }
+        return instance;
+    }
+
+    // Calls observer with the newest orders now (once loaded) and on every change until owner is destroyed
+    public void observeList(@NonNull LifecycleOwner owner, @NonNull String userId, @NonNull ListObserver observer) {
+        addListObserver(userId, observer);
+        owner.getLifecycle().addObserver(new DefaultLifecycleObserver() {
+            @Override
+            public void onDestroy(@NonNull LifecycleOwner source) {
+                removeListObserver(observer);
+            }
+        });
+    }
+
+    public void addListObserver(@NonNull String userId, @NonNull ListObserver observer) {
+        attach(userId);
+        listObservers.add(observer);
+        if (loaded) {
+            observer.onOrdersChanged(ordered, windowFull);
+        }
+    }
+
+    public void removeListObserver(@NonNull ListObserver observer) {
+        listObservers.remove(observer);
+    }
+
+    // Grows the window to at least size orders. Never shrinks it, since the other screens share it;
+    // a larger window re-attaches the listener, and its first snapshot reaches every list observer.
+    public void ensureWindow(int size) {
+        if (size <= window) return;
+        window = size;
+        if (listener != null && !unordered) {
+            listener.remove();
+            listener = null;
+            attach(userId);
+        }
+    }
+
+    // Calls observer with the order now (once known) and whenever it changes until owner is destroyed
+    public void observeOrder(@NonNull LifecycleOwner owner, @NonNull String userId, @NonNull String orderId,
+                             @NonNull OrderObserver observer) {
+        attach(userId);
+        List<OrderObserver> observers = orderObservers.get(orderId);
+        if (observers == null) {
+            observers = new ArrayList<>();
+            orderObservers.put(orderId, observers);
+        }
+        observers.add(observer);
+        owner.getLifecycle().addObserver(new DefaultLifecycleObserver() {
+            @Override
+            public void onDestroy(@NonNull LifecycleOwner source) {
+                removeOrderObserver(orderId, observer);
+            }
+        });
+
+        DocumentSnapshot order = recent.get(orderId);
+        if (order != null) {
+            observer.onOrderChanged(order);
+        } else if (loaded) {
+            watchOutside(orderId);
+        }
+        // Otherwise the first window snapshot decides where it comes from
+    }
+
+    private void removeOrderObserver(String orderId, OrderObserver observer) {
+        List<OrderObserver> observers = orderObservers.get(orderId);
+        if (observers == null) return;
+        observers.remove(observer);
+        if (observers.isEmpty()) {
+            orderObservers.remove(orderId);
+            stopOutside(orderId);
+        }
+    }
+
+    private void attach(String userId) {
+        if (userId.equals(this.userId) && listener != null) {
+            return;
+        }
+        if (!userId.equals(this.userId)) {
+            detach();
+            this.userId = userId;
+        } else {
+            // Retrying after a failure: the new listener's first snapshot is the whole window
+            recent.clear();
+            loaded = false;
+        }
+        Query query = db.collection("orders").whereEqualTo("userId", userId);
+        if (!unordered) {
+            query = query.orderBy("orderTimestamp", Query.Direction.DESCENDING).limit(window);
+        }
+        listener = query.addSnapshotListener((snapshot, error) -> {
+            if (error != null) {
+                // A failed listener is closed; the next observer attaches a fresh one
+                listener = null;
+                if (!unordered && error.getCode() == FirebaseFirestoreException.Code.FAILED_PRECONDITION) {
+                    Log.w(TAG, "Order index missing, sorting the user's orders on the device", error);
+                    unordered = true;
+                    attach(userId);
+                    return;
+                }
+                Log.e(TAG, "Order listener failed", error);
+                for (ListObserver observer : new ArrayList<>(listObservers)) {
+                    observer.onError(error);
+                }
+                for (String orderId : new ArrayList<>(orderObservers.keySet())) {
+                    if (!recent.containsKey(orderId)) watchOutside(orderId);
+                }
+                return;
+            }
+            if (snapshot == null) return;
+
+            Set<String> changed = new HashSet<>();
+            for (DocumentChange change : snapshot.getDocumentChanges()) {
+                String orderId = change.getDocument().getId();
+                // REMOVED covers an order sliding out of the window as well as a deleted one
+                if (change.getType() == DocumentChange.Type.REMOVED) {
+                    recent.remove(orderId);
+                } else {
+                    recent.put(orderId, change.getDocument());
+                }
+                changed.add(orderId);
+            }
+
+            if (unordered) {
+                // The whole history is here, so nothing lies past the end
+                List<DocumentSnapshot> all = new ArrayList<>(recent.values());
+                Collections.sort(all, (a, b) -> Long.compare(OrderPageSource.sortKey(b), OrderPageSource.sortKey(a)));
+                ordered = all;
+                windowFull = false;
+            } else {
+                // Already in query order; the SDK keeps it sorted as changes apply
+                ordered = snapshot.getDocuments();
+                windowFull = ordered.size() >= window;
+            }
+            boolean firstLoad = !loaded;
+            loaded = true;
+
+            for (String orderId : new ArrayList<>(orderObservers.keySet())) {
+                DocumentSnapshot order = recent.get(orderId);
+                if (order != null) {
+                    stopOutside(orderId);
+                    if (firstLoad || changed.contains(orderId)) notifyOrder(orderId, order);
+                } else if (firstLoad || changed.contains(orderId)) {
+                    watchOutside(orderId);
+                }
+            }
+            for (ListObserver observer : new ArrayList<>(listObservers)) {
+                observer.onOrdersChanged(ordered, windowFull);
+            }
+        });
+    }
+
+    private void detach() {
+        if (listener != null) {
+            listener.remove();
+            listener = null;
+        }
+        for (ListenerRegistration registration : outside.values()) {
+            registration.remove();
+        }
+        outside.clear();
+        userId = null;
+        recent.clear();
+        ordered = Collections.emptyList();
+        loaded = false;
+        windowFull = false;
+    }
+
+    private void watchOutside(String orderId) {
+        if (outside.containsKey(orderId)) return;
+        outside.put(orderId, db.collection("orders").document(orderId)
+                .addSnapshotListener((document, error) -> {
+                    if (error != null) {
+                        Log.e(TAG, "Order " + orderId + " listener failed", error);
+                        outside.remove(orderId);
+                        List<OrderObserver> observers = orderObservers.get(orderId);
+                        if (observers == null) return;
+                        for (OrderObserver observer : new ArrayList<>(observers)) {
+                            observer.onError(error);
+                        }
+                        return;
+                    }
+                    notifyOrder(orderId, document != null && document.exists() ? document : null);
+                }));
+    }
+
+    private void stopOutside(String orderId) {
+        ListenerRegistration registration = outside.remove(orderId);
+        if (registration != null) {
+            registration.remove();
+        }
+    }
+
+    private void notifyOrder(String orderId, @Nullable DocumentSnapshot order) {
+        List<OrderObserver> observers = orderObservers.get(orderId);
+        if (observers == null) return;
+        for (OrderObserver observer : new ArrayList<>(observers)) {
+            observer.onOrderChanged(order);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.lu.coffeecompanion.data;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Moves any number of orders to a new status, one transaction per CHUNK_SIZE orders, and stamps
+// statusTimes.<status> so each step of an order's progress keeps its time. Each transaction reads
+// its orders first and only moves those still in one of the expected statuses, so a customer's
+// cancel (or another admin's move) that lands meanwhile is never overwritten; those orders come
+// back as failed with a StatusChangedException. Open order lists see the writes through their listeners.
+public class OrderStatusTransitions {
+
+    private static final String TAG = "OrderStatusTransitions";
+    // Reads in a transaction run one at a time, so chunks stay well under the 500 write limit
+    private static final int CHUNK_SIZE = 100;
+
+    public static final String FIELD_STATUS_TIMES = "statusTimes";
+
+    public interface OnComplete {
+        // failed maps each order that was not moved to the error of its transaction,
+        // or to a StatusChangedException when it had left the expected statuses
+        void onComplete(@NonNull List<String> moved, @NonNull Map<String, Exception> failed);
+    }
+
+    // An order was not moved because its status was no longer one the caller expected
+    public static class StatusChangedException extends Exception {
+        @Nullable
+        private final String status;
+
+        StatusChangedException(@Nullable String status) {
+            super(status != null ? "Order is now " + status : "Order no longer exists");
+            this.status = status;
+        }
+
+        // The order's status when it was read, or null when the order is gone
+        @Nullable
+        public String getStatus() {
+            return status;
+        }
+    }
+
+    // What one transaction moved and which of its orders it left alone
+    private static class ChunkResult {
+        final List<String> moved = new ArrayList<>();
+        final Map<String, Exception> changed = new LinkedHashMap<>();
+    }
+
+    private OrderStatusTransitions() {}
+
+    // "Out for Delivery" -> "out_for_delivery"
+    public static String timeKey(@NonNull String status) {
+        return status.trim().toLowerCase(Locale.ROOT).replace(' ', '_');
+    }
+
+    // Moves the orders whose status is still one of fromStatuses (in any spelling) to newStatus
+    public static void transition(@NonNull FirebaseFirestore db, @NonNull Collection<String> orderIds,
+                                  @NonNull Collection<String> fromStatuses, @NonNull String newStatus,
+                                  @NonNull OnComplete callback) {
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> chunk = new ArrayList<>();
+        for (String orderId : orderIds) {
+            chunk.add(orderId);
+            if (chunk.size() == CHUNK_SIZE) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+
+        Set<String> expected = new HashSet<>();
+        for (String status : fromStatuses) {
+            expected.add(OrderStatuses.normalize(status));
+        }
+
+        FieldPath timePath = FieldPath.of(FIELD_STATUS_TIMES, timeKey(newStatus));
+        List<Task<ChunkResult>> commits = new ArrayList<>();
+        for (List<String> ids : chunks) {
+            commits.add(db.runTransaction(transaction -> {
+                // Built afresh on every attempt, since Firestore reruns the function on contention
+                ChunkResult result = new ChunkResult();
+                List<DocumentReference> toMove = new ArrayList<>();
+                // Every read has to come before the first write
+                for (String orderId : ids) {
+                    DocumentReference ref = db.collection("orders").document(orderId);
+                    DocumentSnapshot order = transaction.get(ref);
+                    String current = order.exists() ? order.getString("status") : null;
+                    if (order.exists() && expected.contains(OrderStatuses.normalize(current))) {
+                        toMove.add(ref);
+                        result.moved.add(orderId);
+                    } else {
+                        result.changed.put(orderId, new StatusChangedException(current));
+                    }
+                }
+                for (DocumentReference ref : toMove) {
+                    transaction.update(ref,
+                            FieldPath.of("status"), newStatus,
+                            timePath, FieldValue.serverTimestamp());
+                }
+                return result;
+            }));
+        }
+
+        // Settles once every transaction has, whatever each one's outcome
+        Tasks.whenAllComplete(commits).addOnCompleteListener(done -> {
+            List<String> moved = new ArrayList<>();
+            Map<String, Exception> failed = new LinkedHashMap<>();
+            for (int i = 0; i < commits.size(); i++) {
+                Task<ChunkResult> commit = commits.get(i);
+                if (commit.isSuccessful()) {
+                    moved.addAll(commit.getResult().moved);
+                    failed.putAll(commit.getResult().changed);
+                } else {
+                    Exception e = commit.getException() != null
+                            ? commit.getException() : new IllegalStateException("Transaction not committed");
+                    Log.e(TAG, "Failed to move " + chunks.get(i).size() + " orders to " + newStatus, e);
+                    for (String orderId : chunks.get(i)) {
+                        failed.put(orderId, e);
+                    }
+                }
+            }
+            Log.d(TAG, "Moved " + moved.size() + " orders to " + newStatus + ", " + failed.size() + " not moved");
+            callback.onComplete(moved, failed);
+        });
+    }
+}
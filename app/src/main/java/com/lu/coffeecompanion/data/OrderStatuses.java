@@ -0,0 +1,59 @@
+package com.lu.coffeecompanion.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+// Every order status the app writes, in the spelling it writes them. Admin screens pick from ALL
+// and the order queue partitions by these lists, so a status set anywhere is shown somewhere.
+// Older orders may carry a lowercase spelling (customers used to cancel with "cancelled"); queries
+// go through storedForms() so those still match.
+public class OrderStatuses {
+
+    public static final String PENDING = "Pending";
+    public static final String CONFIRMED = "Confirmed";
+    public static final String PREPARING = "Preparing";
+    public static final String OUT_FOR_DELIVERY = "Out for Delivery";
+    public static final String DELIVERED = "Delivered";
+    public static final String COMPLETED = "Completed";
+    public static final String CANCELLED = "Cancelled";
+
+    // In the order an order moves through them
+    public static final List<String> ALL = Collections.unmodifiableList(Arrays.asList(
+            PENDING, CONFIRMED, PREPARING, OUT_FOR_DELIVERY, DELIVERED, COMPLETED, CANCELLED));
+    public static final List<String> CLOSED = Collections.unmodifiableList(Arrays.asList(
+            DELIVERED, COMPLETED, CANCELLED));
+
+    private OrderStatuses() {}
+
+    // The canonical spelling of a stored status, or the stored value if it is not one the app writes
+    @Nullable
+    public static String normalize(@Nullable String stored) {
+        if (stored == null) return null;
+        for (String status : ALL) {
+            if (status.equalsIgnoreCase(stored.trim())) return status;
+        }
+        return stored;
+    }
+
+    public static boolean isClosed(@Nullable String stored) {
+        return CLOSED.contains(normalize(stored));
+    }
+
+    // Each status as written now plus its lowercase form, for whereIn (at most 10 values)
+    public static List<String> storedForms(@NonNull Collection<String> statuses) {
+        List<String> forms = new ArrayList<>();
+        for (String status : statuses) {
+            forms.add(status);
+            String lower = status.toLowerCase(Locale.ROOT);
+            if (!lower.equals(status)) forms.add(lower);
+        }
+        return forms;
+    }
+}
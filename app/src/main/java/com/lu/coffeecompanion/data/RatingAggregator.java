@@ -0,0 +1,270 @@
+package com.lu.coffeecompanion.data;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Running rating totals per product in products/{productId}: ratingCount, ratingSum and a
+// star1..star5 histogram. Every writer of a product rating (productRatings from ReviewActivity,
+// reviews from the order details rating dialog) adds its FieldValue.increment()s to the same
+// batch as the rating itself, so readers get the summary in one document read. Code that rewrites
+// or deletes a productRatings or reviews doc must go through changeRating or removeRating in the
+// same batch or transaction, or the totals drift from the ratings they summarize.
+public class RatingAggregator {
+
+    private static final String TAG = "RatingAggregator";
+
+    public static final String COLLECTION = "products";
+    public static final String FIELD_COUNT = "ratingCount";
+    public static final String FIELD_SUM = "ratingSum";
+    // Set by every write below, so the backfill can tell whether a product changed under it
+    private static final String FIELD_UPDATED = "lastUpdated";
+    // Written by the old full recount; the backfill removes it
+    public static final String FIELD_LEGACY_AVERAGE = "averageRating";
+
+    // rollups/product_ratings marks that existing ratings have been folded into the totals
+    private static final String META_COLLECTION = "rollups";
+    private static final String META_DOC = "product_ratings";
+    // Product docs read and rewritten per backfill transaction
+    private static final int PRODUCTS_PER_TRANSACTION = 100;
+
+    public interface OnComplete {
+        void onComplete(boolean success);
+    }
+
+    private RatingAggregator() {}
+
+    // star1..star5; half-star ratings round to the nearest whole star
+    public static String starField(int star) {
+        return "star" + star;
+    }
+
+    public static int bucketOf(double rating) {
+        return (int) Math.max(1, Math.min(5, Math.round(rating)));
+    }
+
+    public static void addRating(@NonNull FirebaseFirestore db, @NonNull WriteBatch batch,
+                                 @NonNull String productId, double rating) {
+        batch.set(ref(db, productId), addUpdate(productId, rating), SetOptions.merge());
+    }
+
+    public static void addRating(@NonNull FirebaseFirestore db, @NonNull Transaction transaction,
+                                 @NonNull String productId, double rating) {
+        transaction.set(ref(db, productId), addUpdate(productId, rating), SetOptions.merge());
+    }
+
+    // For an edited rating: the count stays, the sum moves by the difference and the star moves buckets
+    public static void changeRating(@NonNull FirebaseFirestore db, @NonNull WriteBatch batch,
+                                    @NonNull String productId, double oldRating, double newRating) {
+        batch.set(ref(db, productId), changeUpdate(productId, oldRating, newRating), SetOptions.merge());
+    }
+
+    public static void changeRating(@NonNull FirebaseFirestore db, @NonNull Transaction transaction,
+                                    @NonNull String productId, double oldRating, double newRating) {
+        transaction.set(ref(db, productId), changeUpdate(productId, oldRating, newRating), SetOptions.merge());
+    }
+
+    // For a deleted rating: takes it back out of the count, the sum and its star bucket
+    public static void removeRating(@NonNull FirebaseFirestore db, @NonNull WriteBatch batch,
+                                    @NonNull String productId, double rating) {
+        batch.set(ref(db, productId), removeUpdate(productId, rating), SetOptions.merge());
+    }
+
+    public static void removeRating(@NonNull FirebaseFirestore db, @NonNull Transaction transaction,
+                                    @NonNull String productId, double rating) {
+        transaction.set(ref(db, productId), removeUpdate(productId, rating), SetOptions.merge());
+    }
+
+    private static Map<String, Object> addUpdate(String productId, double rating) {
+        Map<String, Object> update = baseUpdate(productId);
+        update.put(FIELD_COUNT, FieldValue.increment(1));
+        update.put(FIELD_SUM, FieldValue.increment(rating));
+        update.put(starField(bucketOf(rating)), FieldValue.increment(1));
+        return update;
+    }
+
+    private static Map<String, Object> changeUpdate(String productId, double oldRating, double newRating) {
+        Map<String, Object> update = baseUpdate(productId);
+        update.put(FIELD_SUM, FieldValue.increment(newRating - oldRating));
+        int oldStar = bucketOf(oldRating);
+        int newStar = bucketOf(newRating);
+        if (oldStar != newStar) {
+            update.put(starField(oldStar), FieldValue.increment(-1));
+            update.put(starField(newStar), FieldValue.increment(1));
+        }
+        return update;
+    }
+
+    private static Map<String, Object> removeUpdate(String productId, double rating) {
+        Map<String, Object> update = baseUpdate(productId);
+        update.put(FIELD_COUNT, FieldValue.increment(-1));
+        update.put(FIELD_SUM, FieldValue.increment(-rating));
+        update.put(starField(bucketOf(rating)), FieldValue.increment(-1));
+        return update;
+    }
+
+    // One-time rebuild of every product's totals from existing productRatings and reviews. Runs
+    // only if the meta doc says history has not been folded in yet, so it is a single read later.
+    public static void backfillIfNeeded(@NonNull FirebaseFirestore db, @NonNull OnComplete callback) {
+        DocumentReference metaRef = db.collection(META_COLLECTION).document(META_DOC);
+        metaRef.get()
+                .addOnSuccessListener(meta -> {
+                    if (meta.exists() && meta.getTimestamp("backfilledAt") != null) {
+                        callback.onComplete(true);
+                        return;
+                    }
+                    backfill(db, metaRef, callback);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to read rating rollup meta", e);
+                    callback.onComplete(false);
+                });
+    }
+
+    // Ratings keep arriving while this runs, so each product's lastUpdated is noted before the
+    // ratings are read. A product is only overwritten, inside a transaction, if lastUpdated is
+    // unchanged; otherwise an increment landed after the recount and the product is left for the
+    // next run. The marker is written only once every product has been rebuilt.
+    private static void backfill(FirebaseFirestore db, DocumentReference metaRef, OnComplete callback) {
+        db.collection(COLLECTION).get()
+                .addOnSuccessListener(existing -> {
+                    Map<String, Timestamp> updatedBefore = new HashMap<>();
+                    for (DocumentSnapshot doc : existing.getDocuments()) {
+                        updatedBefore.put(doc.getId(), doc.getTimestamp(FIELD_UPDATED));
+                    }
+                    recount(db, metaRef, updatedBefore, callback);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Rating backfill read failed", e);
+                    callback.onComplete(false);
+                });
+    }
+
+    private static void recount(FirebaseFirestore db, DocumentReference metaRef,
+                                Map<String, Timestamp> updatedBefore, OnComplete callback) {
+        Task<QuerySnapshot> productRatingsTask = db.collection("productRatings").get();
+        Task<QuerySnapshot> reviewsTask = db.collection("reviews").get();
+
+        Tasks.whenAllComplete(productRatingsTask, reviewsTask).addOnCompleteListener(done -> {
+            if (!productRatingsTask.isSuccessful() || !reviewsTask.isSuccessful()) {
+                Log.e(TAG, "Rating backfill read failed");
+                callback.onComplete(false);
+                return;
+            }
+
+            Map<String, double[]> products = new HashMap<>();
+            for (DocumentSnapshot doc : productRatingsTask.getResult().getDocuments()) {
+                addToProduct(products, doc.getString("productId"), doc.getDouble("rating"));
+            }
+            for (DocumentSnapshot doc : reviewsTask.getResult().getDocuments()) {
+                addToProduct(products, doc.getString("menuItemId"), doc.getDouble("rating"));
+            }
+
+            List<String> ids = new ArrayList<>(products.keySet());
+            List<Task<Integer>> commits = new ArrayList<>();
+            for (int from = 0; from < ids.size(); from += PRODUCTS_PER_TRANSACTION) {
+                List<String> chunk = ids.subList(from, Math.min(from + PRODUCTS_PER_TRANSACTION, ids.size()));
+                commits.add(db.runTransaction(transaction -> {
+                    List<String> unchanged = new ArrayList<>();
+                    // Every read has to come before the first write
+                    for (String productId : chunk) {
+                        DocumentSnapshot current = transaction.get(ref(db, productId));
+                        Timestamp now = current.exists() ? current.getTimestamp(FIELD_UPDATED) : null;
+                        if (Objects.equals(now, updatedBefore.get(productId))) {
+                            unchanged.add(productId);
+                        }
+                    }
+                    for (String productId : unchanged) {
+                        transaction.set(ref(db, productId), productTotals(productId, products.get(productId)),
+                                SetOptions.merge());
+                    }
+                    // Products rated again since the recount
+                    return chunk.size() - unchanged.size();
+                }));
+            }
+
+            Tasks.whenAll(commits)
+                    .addOnSuccessListener(unused -> {
+                        int skipped = 0;
+                        for (Task<Integer> commit : commits) {
+                            skipped += commit.getResult();
+                        }
+                        if (skipped > 0) {
+                            // Not marked done, so the next dashboard open recounts those products again
+                            Log.w(TAG, skipped + " products took new ratings during the backfill; retrying later");
+                            callback.onComplete(false);
+                            return;
+                        }
+                        Map<String, Object> meta = new HashMap<>();
+                        meta.put("backfilledAt", FieldValue.serverTimestamp());
+                        metaRef.set(meta)
+                                .addOnSuccessListener(marked -> {
+                                    Log.d(TAG, "Backfilled rating totals for " + products.size() + " products");
+                                    callback.onComplete(true);
+                                })
+                                .addOnFailureListener(e -> {
+                                    Log.e(TAG, "Failed to mark rating backfill done", e);
+                                    callback.onComplete(false);
+                                });
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.e(TAG, "Rating backfill write failed", e);
+                        callback.onComplete(false);
+                    });
+        });
+    }
+
+    private static Map<String, Object> productTotals(String productId, double[] totals) {
+        Map<String, Object> data = baseUpdate(productId);
+        data.put(FIELD_COUNT, (long) totals[0]);
+        data.put(FIELD_SUM, totals[1]);
+        for (int star = 1; star <= 5; star++) {
+            data.put(starField(star), (long) totals[star + 1]);
+        }
+        // Recount-era field; readers derive the average from sum and count now
+        data.put(FIELD_LEGACY_AVERAGE, FieldValue.delete());
+        return data;
+    }
+
+    // totals = {count, sum, star1, star2, star3, star4, star5}
+    private static void addToProduct(Map<String, double[]> products, String productId, Double rating) {
+        if (productId == null || rating == null) return;
+        double[] totals = products.get(productId);
+        if (totals == null) {
+            totals = new double[7];
+            products.put(productId, totals);
+        }
+        totals[0] += 1;
+        totals[1] += rating;
+        totals[bucketOf(rating) + 1] += 1;
+    }
+
+    private static Map<String, Object> baseUpdate(String productId) {
+        Map<String, Object> update = new HashMap<>();
+        update.put("productId", productId);
+        update.put(FIELD_UPDATED, FieldValue.serverTimestamp());
+        return update;
+    }
+
+    private static DocumentReference ref(FirebaseFirestore db, String productId) {
+        return db.collection(COLLECTION).document(productId);
+    }
+}
@@ -0,0 +1,67 @@
+package com.lu.coffeecompanion.data;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+// Read side of the totals RatingAggregator keeps in products/{productId}, so a review screen's
+// summary header is one document read instead of a scan over every rating for the product.
+public class RatingHistogram {
+
+    private static final String TAG = "RatingHistogram";
+
+    public interface OnLoaded {
+        // null when no rating has been recorded for the product yet
+        void onLoaded(@Nullable RatingHistogram histogram);
+    }
+
+    private final long count;
+    private final double sum;
+    private final long[] stars = new long[5];
+
+    private RatingHistogram(DocumentSnapshot doc) {
+        count = longOf(doc, RatingAggregator.FIELD_COUNT);
+        Double total = doc.getDouble(RatingAggregator.FIELD_SUM);
+        sum = total != null ? total : 0.0;
+        for (int star = 1; star <= 5; star++) {
+            stars[star - 1] = longOf(doc, RatingAggregator.starField(star));
+        }
+    }
+
+    public long getCount() { return count; }
+
+    public double getAverage() {
+        return count == 0 ? 0.0 : sum / count;
+    }
+
+    public long getStarCount(int star) {
+        return star < 1 || star > 5 ? 0 : stars[star - 1];
+    }
+
+    public static void load(@NonNull FirebaseFirestore db, @NonNull String productId,
+                            @NonNull OnLoaded callback) {
+        db.collection(RatingAggregator.COLLECTION).document(productId)
+                .get()
+                .addOnSuccessListener(doc -> callback.onLoaded(isFoldedIn(doc) ? new RatingHistogram(doc) : null))
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to load rating totals for " + productId, e);
+                    callback.onLoaded(null);
+                });
+    }
+
+    // Until the admin backfill runs, a product rated before the totals existed still carries the old
+    // recount's averageRating, and new increments are stacked on that recount's ratingCount, so its
+    // totals are not shown yet. The backfill deletes averageRating when it rewrites them.
+    private static boolean isFoldedIn(DocumentSnapshot doc) {
+        return doc.exists() && doc.contains(RatingAggregator.FIELD_COUNT) && !doc.contains(RatingAggregator.FIELD_LEGACY_AVERAGE);
+    }
+
+    private static long longOf(DocumentSnapshot doc, String field) {
+        Long value = doc.getLong(field);
+        return value != null ? value : 0L;
+    }
+}
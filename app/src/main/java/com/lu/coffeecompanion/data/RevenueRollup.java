@@ -0,0 +1,326 @@
+package com.lu.coffeecompanion.data;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.AggregateField;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Pre-aggregated revenue per day in daily_revenue/{yyyy-MM-dd}, kept current by the writers
+// (checkout and admin COD entry) so the dashboard reads one doc per day instead of every order.
+public class RevenueRollup {
+
+    private static final String TAG = "RevenueRollup";
+
+    public static final String COLLECTION = "daily_revenue";
+    public static final String FIELD_DATE = "date";
+    public static final String FIELD_GCASH_TOTAL = "gcashTotal";
+    public static final String FIELD_COD_TOTAL = "codTotal";
+    public static final String FIELD_GCASH_COUNT = "gcashCount";
+    public static final String FIELD_COD_COUNT = "codCount";
+
+    public static final String METHOD_GCASH = "GCash";
+    public static final String METHOD_COD = "Cash on Delivery";
+
+    // rollups/daily_revenue marks that history has been folded into the daily docs
+    private static final String META_COLLECTION = "rollups";
+    // Day docs read and rewritten per backfill transaction
+    private static final int DAYS_PER_TRANSACTION = 100;
+
+    public interface OnTotalsLoaded {
+        void onLoaded(double gcashTotal, double codTotal);
+    }
+
+    public interface OnDaysLoaded {
+        void onLoaded(@NonNull Map<String, DocumentSnapshot> daysByKey);
+    }
+
+    public interface OnComplete {
+        void onComplete(boolean success);
+    }
+
+    private RevenueRollup() {}
+
+    public static String dayKey(Date date) {
+        return new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(date);
+    }
+
+    // Adds this payment to today's rollup in the caller's batch so both land atomically
+    public static void addPayment(@NonNull FirebaseFirestore db, @NonNull WriteBatch batch,
+                                  String paymentMethod, double amount, Date date) {
+        String key = dayKey(date);
+        batch.set(db.collection(COLLECTION).document(key), paymentUpdate(key, paymentMethod, amount), SetOptions.merge());
+    }
+
+    // Same, for writers that place the payment inside a transaction
+    public static void addPayment(@NonNull FirebaseFirestore db, @NonNull Transaction transaction,
+                                  String paymentMethod, double amount, Date date) {
+        String key = dayKey(date);
+        transaction.set(db.collection(COLLECTION).document(key), paymentUpdate(key, paymentMethod, amount), SetOptions.merge());
+    }
+
+    private static Map<String, Object> paymentUpdate(String key, String paymentMethod, double amount) {
+        boolean isGcash = METHOD_GCASH.equals(paymentMethod);
+
+        Map<String, Object> update = new HashMap<>();
+        update.put(FIELD_DATE, key);
+        update.put(isGcash ? FIELD_GCASH_TOTAL : FIELD_COD_TOTAL, FieldValue.increment(amount));
+        update.put(isGcash ? FIELD_GCASH_COUNT : FIELD_COD_COUNT, FieldValue.increment(1));
+        update.put("updatedAt", FieldValue.serverTimestamp());
+        return update;
+    }
+
+    public static void loadRange(@NonNull FirebaseFirestore db, String startKey, String endKey,
+                                 @NonNull OnDaysLoaded callback) {
+        db.collection(COLLECTION)
+                .whereGreaterThanOrEqualTo(FIELD_DATE, startKey)
+                .whereLessThanOrEqualTo(FIELD_DATE, endKey)
+                .get()
+                .addOnSuccessListener(snapshot -> {
+                    Map<String, DocumentSnapshot> days = new HashMap<>();
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        days.put(doc.getId(), doc);
+                    }
+                    callback.onLoaded(days);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to load daily revenue", e);
+                    callback.onLoaded(new HashMap<>());
+                });
+    }
+
+    // All-time totals via server-side sum() aggregations; cost does not grow with order history
+    public static void loadAllTimeTotals(@NonNull FirebaseFirestore db, @NonNull OnTotalsLoaded callback) {
+        AggregateField orderTotal = AggregateField.sum("totalPrice");
+        AggregateField orderFees = AggregateField.sum("deliveryFee");
+        AggregateField codAmount = AggregateField.sum("amount");
+
+        Task<AggregateQuerySnapshot> gcashTask = db.collection("orders")
+                .whereEqualTo("paymentMethod", METHOD_GCASH)
+                .aggregate(orderTotal, orderFees)
+                .get(AggregateSource.SERVER);
+        Task<AggregateQuerySnapshot> codOrdersTask = db.collection("orders")
+                .whereEqualTo("paymentMethod", METHOD_COD)
+                .aggregate(orderTotal, orderFees)
+                .get(AggregateSource.SERVER);
+        Task<AggregateQuerySnapshot> codPaymentsTask = db.collection("cod_payments")
+                .aggregate(codAmount)
+                .get(AggregateSource.SERVER);
+
+        Tasks.whenAllComplete(gcashTask, codOrdersTask, codPaymentsTask)
+                .addOnCompleteListener(done -> {
+                    double gcash = 0.0;
+                    double cod = 0.0;
+
+                    if (gcashTask.isSuccessful()) {
+                        gcash = sumOf(gcashTask.getResult(), orderTotal) + sumOf(gcashTask.getResult(), orderFees);
+                    } else {
+                        Log.e(TAG, "GCash aggregate failed", gcashTask.getException());
+                    }
+                    if (codOrdersTask.isSuccessful()) {
+                        cod += sumOf(codOrdersTask.getResult(), orderTotal) + sumOf(codOrdersTask.getResult(), orderFees);
+                    } else {
+                        Log.e(TAG, "COD orders aggregate failed", codOrdersTask.getException());
+                    }
+                    if (codPaymentsTask.isSuccessful()) {
+                        cod += sumOf(codPaymentsTask.getResult(), codAmount);
+                    } else {
+                        Log.e(TAG, "COD payments aggregate failed", codPaymentsTask.getException());
+                    }
+
+                    callback.onLoaded(gcash, cod);
+                });
+    }
+
+    private static double sumOf(AggregateQuerySnapshot snapshot, AggregateField field) {
+        Object value = snapshot.get(field);
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+    }
+
+    // One-time rebuild of every day from existing orders and COD payments. Runs only if the
+    // meta doc says history has not been folded in yet, so it is a single read on later opens.
+    public static void backfillIfNeeded(@NonNull FirebaseFirestore db, @NonNull OnComplete callback) {
+        DocumentReference metaRef = db.collection(META_COLLECTION).document(COLLECTION);
+        metaRef.get()
+                .addOnSuccessListener(meta -> {
+                    if (meta.exists() && meta.getTimestamp("backfilledAt") != null) {
+                        callback.onComplete(true);
+                        return;
+                    }
+                    backfill(db, metaRef, callback);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to read rollup meta", e);
+                    callback.onComplete(false);
+                });
+    }
+
+    // Checkout keeps incrementing day docs while this runs, so each day's payment count is noted
+    // before the orders are read. A day is only overwritten, inside a transaction, if its count is
+    // unchanged; otherwise a payment landed after the recount and the day is left for the next run.
+    private static void backfill(FirebaseFirestore db, DocumentReference metaRef, OnComplete callback) {
+        db.collection(COLLECTION).get()
+                .addOnSuccessListener(existing -> {
+                    Map<String, Long> countsBefore = new HashMap<>();
+                    for (DocumentSnapshot doc : existing.getDocuments()) {
+                        countsBefore.put(doc.getId(), paymentCount(doc));
+                    }
+                    recount(db, metaRef, countsBefore, callback);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Backfill read failed", e);
+                    callback.onComplete(false);
+                });
+    }
+
+    private static void recount(FirebaseFirestore db, DocumentReference metaRef,
+                                Map<String, Long> countsBefore, OnComplete callback) {
+        Task<QuerySnapshot> ordersTask = db.collection("orders")
+                .whereIn("paymentMethod", Arrays.asList(METHOD_GCASH, METHOD_COD))
+                .get();
+        Task<QuerySnapshot> codTask = db.collection("cod_payments").get();
+
+        Tasks.whenAllComplete(ordersTask, codTask).addOnCompleteListener(done -> {
+            if (!ordersTask.isSuccessful() || !codTask.isSuccessful()) {
+                Log.e(TAG, "Backfill read failed");
+                callback.onComplete(false);
+                return;
+            }
+
+            Map<String, double[]> days = new HashMap<>();
+
+            for (DocumentSnapshot doc : ordersTask.getResult().getDocuments()) {
+                Double totalPrice = doc.getDouble("totalPrice");
+                Double deliveryFee = doc.getDouble("deliveryFee");
+                Date orderDate = orderDate(doc);
+                if (totalPrice == null || orderDate == null) continue;
+
+                boolean isGcash = METHOD_GCASH.equals(doc.getString("paymentMethod"));
+                addToDay(days, dayKey(orderDate), isGcash,
+                        totalPrice + (deliveryFee != null ? deliveryFee : 0.0));
+            }
+
+            for (DocumentSnapshot doc : codTask.getResult().getDocuments()) {
+                Double amount = doc.getDouble("amount");
+                Timestamp ts = doc.getTimestamp("timestamp");
+                if (amount == null || ts == null) continue;
+
+                addToDay(days, dayKey(ts.toDate()), false, amount);
+            }
+
+            List<String> keys = new ArrayList<>(days.keySet());
+            List<Task<Integer>> commits = new ArrayList<>();
+            for (int from = 0; from < keys.size(); from += DAYS_PER_TRANSACTION) {
+                List<String> chunk = keys.subList(from, Math.min(from + DAYS_PER_TRANSACTION, keys.size()));
+                commits.add(db.runTransaction(transaction -> {
+                    List<String> unchanged = new ArrayList<>();
+                    // Every read has to come before the first write
+                    for (String key : chunk) {
+                        DocumentSnapshot current = transaction.get(db.collection(COLLECTION).document(key));
+                        Long before = countsBefore.get(key);
+                        if (paymentCount(current) == (before != null ? before : 0L)) {
+                            unchanged.add(key);
+                        }
+                    }
+                    for (String key : unchanged) {
+                        transaction.set(db.collection(COLLECTION).document(key), dayTotals(key, days.get(key)));
+                    }
+                    // Days that moved on since the recount
+                    return chunk.size() - unchanged.size();
+                }));
+            }
+
+            Tasks.whenAll(commits)
+                    .addOnSuccessListener(unused -> {
+                        int skipped = 0;
+                        for (Task<Integer> commit : commits) {
+                            skipped += commit.getResult();
+                        }
+                        if (skipped > 0) {
+                            // Not marked done, so the next dashboard open recounts those days again
+                            Log.w(TAG, skipped + " days took new payments during the backfill; retrying later");
+                            callback.onComplete(false);
+                            return;
+                        }
+                        Map<String, Object> meta = new HashMap<>();
+                        meta.put("backfilledAt", FieldValue.serverTimestamp());
+                        metaRef.set(meta)
+                                .addOnSuccessListener(marked -> {
+                                    Log.d(TAG, "Backfilled " + days.size() + " days of revenue");
+                                    callback.onComplete(true);
+                                })
+                                .addOnFailureListener(e -> {
+                                    Log.e(TAG, "Failed to mark backfill done", e);
+                                    callback.onComplete(false);
+                                });
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.e(TAG, "Backfill write failed", e);
+                        callback.onComplete(false);
+                    });
+        });
+    }
+
+    // Orders placed before orderTimestamp was saved only carry the older timestamp field,
+    // written as epoch millis by checkout and as a Timestamp by some older builds
+    private static Date orderDate(DocumentSnapshot doc) {
+        Timestamp ts = doc.getTimestamp("orderTimestamp");
+        if (ts != null) return ts.toDate();
+        Object legacy = doc.get("timestamp");
+        if (legacy instanceof Timestamp) return ((Timestamp) legacy).toDate();
+        if (legacy instanceof Number) return new Date(((Number) legacy).longValue());
+        return null;
+    }
+
+    // Every addPayment bumps one of the two counts, so their sum changes with each payment
+    private static long paymentCount(DocumentSnapshot day) {
+        if (!day.exists()) return 0L;
+        Long gcash = day.getLong(FIELD_GCASH_COUNT);
+        Long cod = day.getLong(FIELD_COD_COUNT);
+        return (gcash != null ? gcash : 0L) + (cod != null ? cod : 0L);
+    }
+
+    private static Map<String, Object> dayTotals(String key, double[] totals) {
+        Map<String, Object> data = new HashMap<>();
+        data.put(FIELD_DATE, key);
+        data.put(FIELD_GCASH_TOTAL, totals[0]);
+        data.put(FIELD_COD_TOTAL, totals[1]);
+        data.put(FIELD_GCASH_COUNT, (long) totals[2]);
+        data.put(FIELD_COD_COUNT, (long) totals[3]);
+        data.put("updatedAt", FieldValue.serverTimestamp());
+        return data;
+    }
+
+    // totals = {gcashTotal, codTotal, gcashCount, codCount}
+    private static void addToDay(Map<String, double[]> days, String key, boolean isGcash, double amount) {
+        double[] totals = days.get(key);
+        if (totals == null) {
+            totals = new double[4];
+            days.put(key, totals);
+        }
+        totals[isGcash ? 0 : 1] += amount;
+        totals[isGcash ? 2 : 3] += 1;
+    }
+}
@@ -0,0 +1,71 @@
+package com.lu.coffeecompanion.macrobenchmark;
+
+import android.content.Intent;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Frame timing while a 500-row list refreshes. Runs against the app's benchmark build type,
+ * whose ListRefreshActivity feeds the production PaymentAdapter with synthetic rows, so no
+ * Firebase project or signed-in account is needed.
+ *
+ * Run with: ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest
+ */
+@RunWith(AndroidJUnit4.class)
+public class ListRefreshBenchmark {
+
+    private static final String PACKAGE_NAME = "com.lu.coffeecompanion";
+    private static final String ACTIVITY = PACKAGE_NAME + ".benchmark.ListRefreshActivity";
+    private static final int REFRESHES = 20;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void refresh500Rows() {
+        benchmarkRule.measureRepeated(
+                PACKAGE_NAME,
+                Collections.singletonList(new FrameTimingMetric()),
+                CompilationMode.DEFAULT,
+                StartupMode.WARM,
+                5,
+                scope -> {
+                    Intent intent = new Intent();
+                    intent.setClassName(PACKAGE_NAME, ACTIVITY);
+                    scope.startActivityAndWait(intent);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    UiDevice device = scope.getDevice();
+                    UiObject2 refresh = device.findObject(By.desc("refresh"));
+                    UiObject2 list = device.findObject(By.desc("list"));
+
+                    for (int i = 0; i < REFRESHES; i++) {
+                        refresh.click();
+                        device.waitForIdle();
+                    }
+
+                    // Scroll through the refreshed rows so rebinding of changed items is measured too
+                    list.setGestureMargin(device.getDisplayWidth() / 5);
+                    list.fling(Direction.DOWN);
+                    device.waitForIdle();
+                    return Unit.INSTANCE;
+                });
+    }
+}
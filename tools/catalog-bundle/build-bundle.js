@@ -0,0 +1,46 @@
+// Exports the catalog (coffees, shops, shops/*/menu) into a Firestore data bundle that ships in
+// the APK, so a fresh install renders Home, Shops and a shop's menu from the local cache.
+//
+// Needs service account credentials:
+//   GOOGLE_APPLICATION_CREDENTIALS=/path/to/key.json node build-bundle.js [output]
+// Usually run through `./gradlew :app:exportCatalogBundle`.
+//
+// Named query names must match CatalogBundle.java.
+
+const fs = require('fs');
+const path = require('path');
+const admin = require('firebase-admin');
+
+const output = process.argv[2]
+    || path.join(__dirname, '..', '..', 'app', 'src', 'main', 'assets', 'catalog.bundle');
+
+admin.initializeApp();
+const db = admin.firestore();
+
+async function main() {
+    const bundle = db.bundle('catalog');
+
+    // Coffees and menus are read as whole collections by CatalogSync, so they go in as documents
+    const coffees = await db.collection('coffees').get();
+    coffees.docs.forEach((doc) => bundle.add(doc));
+
+    const shops = await db.collection('shops').orderBy('order').get();
+    bundle.add('shops-all', shops);
+
+    let menuItems = 0;
+    for (const shop of shops.docs) {
+        const menu = await shop.ref.collection('menu').get();
+        menu.docs.forEach((doc) => bundle.add(doc));
+        menuItems += menu.size;
+    }
+
+    const bytes = bundle.build();
+    fs.mkdirSync(path.dirname(output), { recursive: true });
+    fs.writeFileSync(output, bytes);
+    console.log(`Wrote ${output}: ${coffees.size} coffees, ${shops.size} shops, ${menuItems} menu items, ${bytes.length} bytes`);
+}
+
+main().catch((err) => {
+    console.error(err);
+    process.exit(1);
+});